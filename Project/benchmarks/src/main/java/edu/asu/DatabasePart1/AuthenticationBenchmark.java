@@ -0,0 +1,175 @@
+package edu.asu.DatabasePart1;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * <p> AuthenticationBenchmark Class </p>
+ *
+ * <p> Description: JMH benchmarks of the {@link DatabaseHelper} operations on the login
+ * and registration paths. Each trial runs against its own in-memory H2 database, seeded
+ * with {@code users} users (all sharing one password, hashed once at {@code bcryptCost})
+ * and {@code invitations} unused invitations, so the table sizes are fixed by the
+ * parameters. Users are picked from a random sequence with a fixed seed, and the BCrypt
+ * cost is pinned instead of calibrated, so runs on the same host are comparable. The
+ * cost defaults to the minimum so the database work is not hidden behind hashing;
+ * {@link PasswordHashingBenchmark} measures the hashing itself. </p>
+ *
+ * <p> Usage: {@code java -jar target/benchmarks.jar AuthenticationBenchmark -p users=1000,100000 -rf json} </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for JMH benchmarks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Dcse360.bcrypt.cost=4", "-Dcse360.invitations.purgeIntervalMillis=0",
+        "-Dcse360.bloom.rebuildIntervalMillis=0"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AuthenticationBenchmark {
+
+    static final String PASSWORD = "Benchmark#Pass1";
+    private static final String[] ROLES = {"Student", "Instructor", "Student,Instructor", "Admin"};
+
+    @Param({"1000"})
+    int users;
+
+    @Param({"1000"})
+    int invitations;
+
+    @Param({"4"})
+    int bcryptCost;
+
+    @Param({"42"})
+    long seed;
+
+    DatabaseHelper helper;
+
+    private final InvitationCodeGenerator codes = new InvitationCodeGenerator();
+    private final AtomicLong registrations = new AtomicLong();
+
+    /**
+     * Creates and seeds the database for one trial.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        helper = new DatabaseHelper("jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        helper.connectToDatabase();
+        helper.setBcryptCost(bcryptCost);
+        String hashedPassword = new BCryptPasswordHasher(bcryptCost).hash(PASSWORD.toCharArray());
+        List<BulkUserImporter.ImportedUser> batch = new ArrayList<>(BulkUserImporter.DEFAULT_BATCH_SIZE);
+        for (int i = 0; i < users; i++) {
+            batch.add(new BulkUserImporter.ImportedUser(i + 1, username(i), PASSWORD.toCharArray(), ROLES[i % ROLES.length],
+                    username(i) + "@example.edu", "First" + i, null, "Last" + i, null).withHashedPassword(hashedPassword));
+            if (batch.size() == BulkUserImporter.DEFAULT_BATCH_SIZE || i == users - 1) {
+                helper.insertUsers(batch);
+                batch.clear();
+            }
+        }
+        helper.createInvitations(invitations, "Student", codes);
+    }
+
+    /**
+     * Closes the database. Each trial runs in its own fork, so the in-memory instance goes
+     * with it.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        helper.closeConnection();
+    }
+
+    static String username(int index) {
+        return "user" + index;
+    }
+
+    /**
+     * The random sequence of users one benchmark thread works through. Each thread's
+     * sequence is fixed by the seed and the thread's index.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp(AuthenticationBenchmark benchmark, ThreadParams thread) {
+            random = new SplittableRandom(benchmark.seed + thread.getThreadIndex());
+        }
+
+        String nextUsername(AuthenticationBenchmark benchmark) {
+            return username(random.nextInt(benchmark.users));
+        }
+    }
+
+    @Benchmark
+    public boolean login(Cursor cursor) throws SQLException {
+        return helper.login(cursor.nextUsername(this), PASSWORD.toCharArray());
+    }
+
+    @Benchmark
+    public boolean loginWrongPassword(Cursor cursor) throws SQLException {
+        return helper.login(cursor.nextUsername(this), "Wrong#Pass1".toCharArray());
+    }
+
+    @Benchmark
+    public String[] getUserRoles(Cursor cursor) throws SQLException {
+        return helper.getUserRoles(cursor.nextUsername(this));
+    }
+
+    /**
+     * Issues an OTP and verifies it, since a code is only accepted once.
+     */
+    @Benchmark
+    public boolean issueAndVerifyOTP(Cursor cursor) throws SQLException {
+        String username = cursor.nextUsername(this);
+        return helper.verifyOTP(username, helper.issueOTP(username));
+    }
+
+    /**
+     * Registers a new user per call, so the users table grows over the run.
+     */
+    @Benchmark
+    public String register() throws SQLException {
+        String username = "registered" + registrations.incrementAndGet();
+        helper.register(username, PASSWORD.toCharArray(), "Student");
+        return username;
+    }
+
+    @Benchmark
+    public String createInvitation() throws SQLException {
+        String code = codes.nextCode();
+        helper.createInvitation(code, "Student");
+        return code;
+    }
+
+    /**
+     * Creates an invitation and redeems it with a new registration. Subtract
+     * {@link #createInvitation} for the cost of the redemption alone.
+     */
+    @Benchmark
+    public String createAndRedeemInvitation() throws SQLException {
+        String code = codes.nextCode();
+        helper.createInvitation(code, "Student");
+        return helper.redeemInvitationAndRegister(code, "invited" + registrations.incrementAndGet(), PASSWORD.toCharArray());
+    }
+}
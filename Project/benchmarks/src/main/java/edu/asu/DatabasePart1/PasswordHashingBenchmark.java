@@ -0,0 +1,60 @@
+package edu.asu.DatabasePart1;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p> PasswordHashingBenchmark Class </p>
+ *
+ * <p> Description: JMH benchmarks of BCrypt hashing and verification, the work behind
+ * {@code DatabaseHelper.hashPassword} and every login, at several cost factors. Each step
+ * of the cost doubles the time, so the results show directly what a cost chosen by
+ * {@link BCryptCostCalibrator} means for login latency and hashing throughput. </p>
+ *
+ * <p> Usage: {@code java -jar target/benchmarks.jar PasswordHashingBenchmark -p cost=10,11,12 -rf json} </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for JMH benchmarks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class PasswordHashingBenchmark {
+
+    @Param({"10", "12", "14"})
+    int cost;
+
+    private BCryptPasswordHasher hasher;
+    private String storedHash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hasher = new BCryptPasswordHasher(cost);
+        storedHash = hasher.hash(AuthenticationBenchmark.PASSWORD.toCharArray());
+    }
+
+    @Benchmark
+    public String hash() {
+        return hasher.hash(AuthenticationBenchmark.PASSWORD.toCharArray());
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hasher.verify(AuthenticationBenchmark.PASSWORD.toCharArray(), storedHash);
+    }
+}
@@ -1,6 +1,13 @@
 package edu.asu.DatabasePart1;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.SQLException;
-import java.util.UUID;
+import java.util.List;
 
 /****
  * <p> AdminManager Class </p>
@@ -15,6 +22,7 @@ import java.util.UUID;
 public class AdminManager {
     private final DatabaseHelper databaseHelper;
     private final AuthenticationManager authManager;
+    private final InvitationCodeGenerator codeGenerator = new InvitationCodeGenerator();
 
     /**
      * Constructs an AdminManager with the given DatabaseHelper.
@@ -36,21 +44,41 @@ public class AdminManager {
         System.out.println("-------------------------------------");
         String username = UserInterface.getInput("Enter Admin Username: ");
         char[] password = UserInterface.getPassword("Enter Admin Password: ");
-        if (authManager.login(username, password)) {
-            if (databaseHelper.isUserAdmin(username)) {
+        // Started after the prompts, so typing is not counted
+        FlowEvent event = new FlowEvent();
+        event.begin();
+        LoginContext context = databaseHelper.getLoginContext(username);
+        if (authManager.login(context, password)) {
+            if (context.hasPermission(Permission.ACCESS_ADMIN_PANEL)) {
+                // Created before any further prompt, so a demotion or deletion meanwhile revokes it
+                String token = databaseHelper.getSessionManager().create(context);
+                if (token == null) {
+                    event.finish("admin.login", "revoked");
+                    System.out.println("-------------------------------------");
+                    System.out.println("Your account changed while you were logging in. Please log in again.");
+                    System.out.println("-------------------------------------");
+                    return;
+                }
+                event.finish("admin.login", "success");
                 System.out.println("-------------------------------------");
                 System.out.println("Admin login successful.");
                 System.out.println("-------------------------------------");
-                if (!databaseHelper.isProfileComplete(username)) {
-                    authManager.setupProfile(username);
+                try {
+                    if (!context.isProfileComplete()) {
+                        authManager.setupProfile(username);
+                    }
+                    adminSession(token);
+                } finally {
+                    databaseHelper.getSessionManager().revoke(token);
                 }
-                adminSession();
             } else {
+                event.finish("admin.login", "denied");
                 System.out.println("-------------------------------------");
                 System.out.println("You do not have admin privileges.");
                 System.out.println("-------------------------------------");
             }
         } else {
+            event.finish("admin.login", "invalidCredentials");
             System.out.println("-------------------------------------");
             System.out.println("Invalid admin credentials. Try again.");
             System.out.println("-------------------------------------");
@@ -58,59 +86,253 @@ public class AdminManager {
     }
 
     /**
-     * Admin session, presenting a menu of admin actions.
+     * Opens the admin panel for a user who is already logged in, authorizing from their
+     * session instead of asking for the password again.
+     *
+     * @param token the user's session token
+     */
+    public void adminFlow(String token) throws SQLException {
+        SessionManager.Session session = databaseHelper.getSessionManager().get(token);
+        if (session == null) {
+            System.out.println("-------------------------------------");
+            System.out.println("Your session has ended. Please log in again.");
+            System.out.println("-------------------------------------");
+        } else if (!session.hasPermission(Permission.ACCESS_ADMIN_PANEL)) {
+            System.out.println("-------------------------------------");
+            System.out.println("You do not have admin privileges.");
+            System.out.println("-------------------------------------");
+        } else {
+            adminSession(token);
+        }
+    }
+
+    /**
+     * Admin session, presenting a menu of admin actions. The session's permissions are
+     * checked before every action, so an admin whose roles change or who is deleted is
+     * logged out.
+     *
+     * @param token the admin's session token
      */
-    public void adminSession() throws SQLException {
+    public void adminSession(String token) throws SQLException {
         String choice;
         do {
+            SessionManager.Session session = databaseHelper.getSessionManager().get(token);
+            if (session == null || !session.hasPermission(Permission.ACCESS_ADMIN_PANEL)) {
+                System.out.println("-------------------------------------");
+                System.out.println("Your admin session has ended. Please log in again.");
+                System.out.println("-------------------------------------");
+                return;
+            }
             System.out.println("\n-------------------------------------");
             System.out.println("Admin Menu:");
             System.out.println("-------------------------------------");
             System.out.println("I - Invite user");
+            System.out.println("G - Generate invitations in bulk");
             System.out.println("R - Reset user password");
             System.out.println("D - Delete user account");
             System.out.println("L - List user accounts");
             System.out.println("M - Modify user roles");
+            System.out.println("B - Bulk import users from CSV");
+            System.out.println("E - Export users to a compressed file");
+            System.out.println("C - Run admin commands from a file");
             System.out.println("Q - Logout");
             System.out.println("-------------------------------------");
             System.out.print("Enter your choice: ");
             choice = UserInterface.getInput("").toUpperCase();
+            Permission required = requiredPermission(choice);
+            FlowEvent event = new FlowEvent();
+            event.begin();
+            if (required != null && !hasPermission(token, required)) {
+                event.finish(actionName(choice), "denied");
+                System.out.println("-------------------------------------");
+                System.out.println("You do not have permission to do that.");
+                System.out.println("-------------------------------------");
+                continue;
+            }
 
-            switch (choice) {
-                case "I":
-                    inviteUser();
-                    break;
-                case "R":
-                    resetUserPassword();
-                    break;
-                case "D":
-                    deleteUserAccount();
-                    break;
-                case "L":
-                    databaseHelper.displayUsersByAdmin();
-                    break;
-                case "M":
-                    modifyUserRoles();
-                    break;
-                case "Q":
-                    System.out.println("-------------------------------------");
-                    System.out.println("Securely logging you out.");
-                    System.out.println("-------------------------------------");
-                    break;
-                default:
-                    System.out.println("-------------------------------------");
-                    System.out.println("Invalid choice. Please try again.");
-                    System.out.println("-------------------------------------");
+            boolean completed = false;
+            try {
+                dispatch(choice);
+                completed = true;
+            } finally {
+                if (required != null) {
+                    event.finish(actionName(choice), completed ? "completed" : "error");
+                }
             }
         } 
         while (!choice.equals("Q"));
     }
 
+    /**
+     * Runs the admin action for a menu choice.
+     *
+     * @param choice the menu choice
+     */
+    private void dispatch(String choice) throws SQLException {
+        switch (choice) {
+            case "I":
+                inviteUser();
+                break;
+            case "G":
+                inviteUsersInBulk();
+                break;
+            case "R":
+                resetUserPassword();
+                break;
+            case "D":
+                deleteUserAccount();
+                break;
+            case "L":
+                listUserAccounts();
+                break;
+            case "M":
+                modifyUserRoles();
+                break;
+            case "B":
+                importUsers();
+                break;
+            case "E":
+                exportUsers();
+                break;
+            case "C":
+                runCommandFile();
+                break;
+            case "Q":
+                System.out.println("-------------------------------------");
+                System.out.println("Securely logging you out.");
+                System.out.println("-------------------------------------");
+                break;
+            default:
+                System.out.println("-------------------------------------");
+                System.out.println("Invalid choice. Please try again.");
+                System.out.println("-------------------------------------");
+        }
+    }
+
+    /**
+     * Maps an admin menu choice to the permission it needs.
+     *
+     * @param choice the menu choice
+     * @return the required permission, or null if the choice needs none
+     */
+    private static Permission requiredPermission(String choice) {
+        switch (choice) {
+            case "I":
+            case "G":
+                return Permission.INVITE_USERS;
+            case "R":
+                return Permission.RESET_PASSWORDS;
+            case "D":
+                return Permission.DELETE_USERS;
+            case "L":
+                return Permission.LIST_USERS;
+            case "M":
+                return Permission.MODIFY_ROLES;
+            case "B":
+                return Permission.IMPORT_USERS;
+            case "E":
+                return Permission.EXPORT_USERS;
+            case "C":
+                return Permission.RUN_COMMAND_FILES;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Names the admin action for a menu choice, for flight recording events.
+     *
+     * @param choice the menu choice
+     * @return the action name, such as {@code admin.invite}
+     */
+    private static String actionName(String choice) {
+        switch (choice) {
+            case "I":
+                return "admin.invite";
+            case "G":
+                return "admin.inviteBulk";
+            case "R":
+                return "admin.resetPassword";
+            case "D":
+                return "admin.delete";
+            case "L":
+                return "admin.list";
+            case "M":
+                return "admin.modifyRoles";
+            case "B":
+                return "admin.import";
+            case "E":
+                return "admin.export";
+            case "C":
+                return "admin.runCommands";
+            default:
+                return "admin." + choice;
+        }
+    }
+
+    private boolean hasPermission(String token, Permission permission) {
+        SessionManager.Session session = databaseHelper.getSessionManager().get(token);
+        return session != null && session.hasPermission(permission);
+    }
+
+    /**
+     * Lists user accounts a page at a time, optionally filtered by role, profile status
+     * and username prefix.
+     */
+    public void listUserAccounts() throws SQLException {
+        UserFilter filter = new UserFilter()
+                .role(UserInterface.getInput("Filter by role (blank for all): ").trim())
+                .usernamePrefix(UserInterface.getInput("Filter by username prefix (blank for all): ").trim());
+        String profile = UserInterface.getInput("Profile complete? (Y/N, blank for all): ").trim();
+        if (profile.equalsIgnoreCase("Y")) {
+            filter.profileComplete(true);
+        } else if (profile.equalsIgnoreCase("N")) {
+            filter.profileComplete(false);
+        }
+
+        String cursor = null;
+        int pageNumber = 1;
+        do {
+            UserPage page = databaseHelper.listUsers(filter, cursor, DatabaseHelper.DEFAULT_PAGE_SIZE);
+            System.out.println("User List (page " + pageNumber + "):");
+            System.out.printf("%-20s %-20s %-20s %-20s%n", "Username", "First Name", "Last Name", "Roles");
+            System.out.println("-".repeat(80));
+            for (UserPage.UserSummary user : page.getUsers()) {
+                System.out.printf("%-20s %-20s %-20s %-20s%n", user.getUsername(), user.getFirstName(),
+                        user.getLastName(), String.join(",", user.getRoles()));
+            }
+            if (page.getUsers().isEmpty()) {
+                System.out.println("No users found.");
+            }
+            cursor = page.getNextCursor();
+            pageNumber++;
+        } while (cursor != null
+                && UserInterface.getInput("N - Next page, any other key to stop: ").trim().equalsIgnoreCase("N"));
+    }
+
+    /**
+     * Creates user accounts from a CSV file of username, password, roles and optional
+     * profile fields. Rows that cannot be imported are listed and skipped.
+     */
+    public void importUsers() throws SQLException {
+        String path = UserInterface.getInput("Enter the path of the CSV file to import: ").trim();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            BulkUserImporter.Result result = new BulkUserImporter(databaseHelper, System.out).importUsers(reader);
+            System.out.println("-------------------------------------");
+            System.out.println(result);
+            System.out.println("-------------------------------------");
+        } catch (IOException e) {
+            System.out.println("-------------------------------------");
+            System.out.println("Could not read " + path + ": " + e.getMessage());
+            System.out.println("-------------------------------------");
+        }
+    }
+
     /**
      * Handles the process of inviting a new user by generating a random code.
      */
     public void inviteUser() throws SQLException {
-        String invitationCode = generateInvitationCode();
+        String invitationCode = codeGenerator.nextCode();
         System.out.println("-------------------------------------");
         System.out.println("Send this invitation code to the user: " + invitationCode);
         System.out.println("-------------------------------------");
@@ -121,14 +343,103 @@ public class AdminManager {
         System.out.println("-------------------------------------");
     }
 
+    /**
+     * Runs admin commands from a file, such as {@code reset-password alice} or
+     * {@code set-roles bob instructor,student}, and writes a JSON Lines report of the
+     * outcome of each.
+     */
+    public void runCommandFile() throws SQLException {
+        Path input = Paths.get(UserInterface.getInput("Enter the path of the command file: ").trim());
+        Path output = Paths.get(UserInterface.getInput("Enter the file to write the report to: ").trim());
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            BatchCommandRunner.Summary summary = new BatchCommandRunner(databaseHelper, codeGenerator).run(reader, writer);
+            System.out.println("-------------------------------------");
+            System.out.println(summary);
+            System.out.println("Report written to " + output);
+            System.out.println("-------------------------------------");
+        } catch (IOException e) {
+            System.out.println("-------------------------------------");
+            System.out.println("Could not run the command file: " + e.getMessage());
+            System.out.println("-------------------------------------");
+        }
+    }
+
+    /**
+     * Exports every user to a gzip-compressed CSV or JSON Lines file.
+     */
+    public void exportUsers() throws SQLException {
+        UserExporter.Format format;
+        try {
+            format = UserExporter.Format.parse(UserInterface.getInput("Export format (csv/jsonl): "));
+        } catch (IllegalArgumentException e) {
+            System.out.println("-------------------------------------");
+            System.out.println(e.getMessage());
+            System.out.println("-------------------------------------");
+            return;
+        }
+        Path output = Paths.get(UserInterface.getInput("Enter the file to write (e.g. users.csv.gz): ").trim());
+
+        long start = System.nanoTime();
+        try {
+            long count = new UserExporter(databaseHelper).export(output, format);
+            System.out.println("-------------------------------------");
+            System.out.printf("%d users exported in %.2f s to %s%n", count, (System.nanoTime() - start) / 1e9, output);
+            System.out.println("-------------------------------------");
+        } catch (IOException e) {
+            System.out.println("-------------------------------------");
+            System.out.println("Could not write " + output + ": " + e.getMessage());
+            System.out.println("-------------------------------------");
+        }
+    }
+
+    /**
+     * Creates a batch of invitations for the same roles and writes the codes to a file,
+     * one per line.
+     */
+    public void inviteUsersInBulk() throws SQLException {
+        int count;
+        try {
+            count = Integer.parseInt(UserInterface.getInput("Number of invitations to generate: ").trim());
+        } catch (NumberFormatException e) {
+            count = 0;
+        }
+        if (count < 1) {
+            System.out.println("-------------------------------------");
+            System.out.println("Please enter a positive number.");
+            System.out.println("-------------------------------------");
+            return;
+        }
+        String roles = UserInterface.getInput("Enter roles for the invited users (comma-separated): ");
+        Path output = Paths.get(UserInterface.getInput("Enter the file to write the codes to: ").trim());
+
+        long start = System.nanoTime();
+        List<String> codes = databaseHelper.createInvitations(count, roles, codeGenerator);
+        // The codes are only written once the transaction has committed, so every code in the file is valid
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            for (String code : codes) {
+                writer.write(code);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.out.println("-------------------------------------");
+            System.out.println("Invitations were created but could not be written to " + output + ": " + e.getMessage());
+            System.out.println("-------------------------------------");
+            return;
+        }
+        System.out.println("-------------------------------------");
+        System.out.printf("%d invitations generated in %.2f s and written to %s%n",
+                codes.size(), (System.nanoTime() - start) / 1e9, output);
+        System.out.println("-------------------------------------");
+    }
+
     /**
      * Resets a user's password by generating an OTP.
      */
     public String resetUserPassword() throws SQLException {
         String username = UserInterface.getInput("Enter user username to reset password: ");
-        if (databaseHelper.doesUserExist(username)) {
-            String otp = authManager.generateOTP();
-            databaseHelper.resetUserPasswordByAdmin(username, otp);
+        String otp = databaseHelper.resetUserPasswordByAdmin(username);
+        if (otp != null) {
             System.out.println("-------------------------------------");
             System.out.println("Password reset. OTP: " + otp);
             System.out.println("-------------------------------------");
@@ -185,13 +496,4 @@ public class AdminManager {
             System.out.println("-------------------------------------");
         }
     }
-
-    /**
-     * Generates a unique invitation code.
-     * 
-     * @return A string representing the generated invitation code
-     */
-    private String generateInvitationCode() {
-        return UUID.randomUUID().toString().substring(0, 8);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,177 @@
+package edu.asu.DatabasePart1;
+
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
+import org.bouncycastle.crypto.params.Argon2Parameters;
+
+/****
+ * <p> Argon2idPasswordHasher Class </p>
+ *
+ * <p> Description: Password hashing with Argon2id from the bundled BouncyCastle
+ * provider. Memory, iterations and parallelism are tunable. Hashes are stored in the
+ * standard PHC string format, {@code $argon2id$v=19$m=<KiB>,t=<iterations>,p=<lanes>$<salt>$<hash>},
+ * so they carry their own parameters and interoperate with other Argon2 libraries. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for pluggable password hashing
+ */
+
+class Argon2idPasswordHasher implements PasswordHasher {
+    static final String NAME = "argon2id";
+    private static final String PREFIX = "$argon2id$";
+
+    static final int DEFAULT_MEMORY_KIB = Integer.getInteger("cse360.argon2.memoryKiB", 19_456);
+    static final int DEFAULT_ITERATIONS = Integer.getInteger("cse360.argon2.iterations", 2);
+    static final int DEFAULT_PARALLELISM = Integer.getInteger("cse360.argon2.parallelism", 1);
+
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH = 32;
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+    private final int memoryKiB;
+    private final int iterations;
+    private final int parallelism;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Creates an Argon2id hasher with the configured parameters.
+     */
+    Argon2idPasswordHasher() {
+        this(DEFAULT_MEMORY_KIB, DEFAULT_ITERATIONS, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Creates an Argon2id hasher.
+     *
+     * @param memoryKiB the memory cost in KiB
+     * @param iterations the number of passes over memory
+     * @param parallelism the number of lanes
+     */
+    Argon2idPasswordHasher(int memoryKiB, int iterations, int parallelism) {
+        if (memoryKiB < 8 * parallelism || iterations < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Invalid Argon2id parameters: m=" + memoryKiB
+                    + ", t=" + iterations + ", p=" + parallelism);
+        }
+        this.memoryKiB = memoryKiB;
+        this.iterations = iterations;
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String hash(char[] password) {
+        byte[] salt = new byte[SALT_LENGTH];
+        random.nextBytes(salt);
+        byte[] hash = derive(password, salt, memoryKiB, iterations, parallelism, HASH_LENGTH);
+        return PREFIX + "v=19$m=" + memoryKiB + ",t=" + iterations + ",p=" + parallelism
+                + "$" + ENCODER.encodeToString(salt) + "$" + ENCODER.encodeToString(hash);
+    }
+
+    @Override
+    public boolean verify(char[] password, String storedHash) {
+        Encoded encoded = Encoded.parse(storedHash);
+        if (encoded == null) {
+            System.err.println("Error checking password: malformed Argon2id hash");
+            return false;
+        }
+        byte[] actual = derive(password, encoded.salt, encoded.memoryKiB, encoded.iterations,
+                encoded.parallelism, encoded.hash.length);
+        return MessageDigest.isEqual(actual, encoded.hash);
+    }
+
+    @Override
+    public boolean supports(String storedHash) {
+        return storedHash != null && storedHash.startsWith(PREFIX);
+    }
+
+    @Override
+    public boolean needsRehash(String storedHash) {
+        Encoded encoded = Encoded.parse(storedHash);
+        return encoded == null || encoded.memoryKiB != memoryKiB || encoded.iterations != iterations
+                || encoded.parallelism != parallelism;
+    }
+
+    @Override
+    public String toString() {
+        return NAME + "(m=" + memoryKiB + " KiB, t=" + iterations + ", p=" + parallelism + ")";
+    }
+
+    private static byte[] derive(char[] password, byte[] salt, int memoryKiB, int iterations, int parallelism, int length) {
+        Argon2Parameters params = new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
+                .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+                .withMemoryAsKB(memoryKiB)
+                .withIterations(iterations)
+                .withParallelism(parallelism)
+                .withSalt(salt)
+                .build();
+        Argon2BytesGenerator generator = new Argon2BytesGenerator();
+        generator.init(params);
+        byte[] out = new byte[length];
+        generator.generateBytes(password, out);
+        return out;
+    }
+
+    /**
+     * The fields of a stored Argon2id hash.
+     */
+    private static class Encoded {
+        int memoryKiB;
+        int iterations;
+        int parallelism;
+        byte[] salt;
+        byte[] hash;
+
+        /**
+         * Parses {@code $argon2id$v=19$m=..,t=..,p=..$salt$hash}.
+         *
+         * @return the parsed fields, or null if the string is malformed
+         */
+        static Encoded parse(String storedHash) {
+            if (storedHash == null || !storedHash.startsWith(PREFIX)) {
+                return null;
+            }
+            String[] parts = storedHash.split("\\$");
+            // "", "argon2id", "v=19", "m=..,t=..,p=..", salt, hash
+            if (parts.length != 6 || !parts[2].equals("v=19")) {
+                return null;
+            }
+            try {
+                Encoded encoded = new Encoded();
+                for (String param : parts[3].split(",")) {
+                    String[] kv = param.split("=", 2);
+                    int value = Integer.parseInt(kv[1]);
+                    switch (kv[0]) {
+                        case "m":
+                            encoded.memoryKiB = value;
+                            break;
+                        case "t":
+                            encoded.iterations = value;
+                            break;
+                        case "p":
+                            encoded.parallelism = value;
+                            break;
+                        default:
+                            return null;
+                    }
+                }
+                encoded.salt = DECODER.decode(parts[4]);
+                encoded.hash = DECODER.decode(parts[5]);
+                if (encoded.memoryKiB < 1 || encoded.iterations < 1 || encoded.parallelism < 1 || encoded.hash.length == 0) {
+                    return null;
+                }
+                return encoded;
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -79,11 +79,15 @@ public class AuthManagerTest {
      * Tests the OTP generation functionality of AuthenticationManager.
      */
     private static void testGenerateOTP() {
-        String otp = authManager.generateOTP();
-        if (otp != null && otp.length() == 6 ) {
-            System.out.println("testGenerateOTP passed");
-        } else {
-            System.out.println("testGenerateOTP failed: Invalid OTP generated");
+        try {
+            String otp = authManager.generateOTP(TEST_USERNAME);
+            if (otp != null && otp.length() == 6 ) {
+                System.out.println("testGenerateOTP passed");
+            } else {
+                System.out.println("testGenerateOTP failed: Invalid OTP generated");
+            }
+        } catch (SQLException e) {
+            System.out.println("testGenerateOTP failed: " + e.getMessage());
         }
     }
 
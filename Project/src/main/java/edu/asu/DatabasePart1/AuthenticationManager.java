@@ -1,8 +1,7 @@
 package edu.asu.DatabasePart1;
 import java.sql.SQLException;
-import java.sql.Timestamp;
 import java.util.Arrays;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 /****
  * <p> AuthenticationManager Class </p>
@@ -16,6 +15,7 @@ import java.util.Random;
 
 public class AuthenticationManager {
     private final DatabaseHelper databaseHelper;
+    private final OperationMetrics metrics;
 
     /**
      * Constructs an AuthenticationManager with the given DatabaseHelper.
@@ -24,10 +24,12 @@ public class AuthenticationManager {
      */
     public AuthenticationManager(DatabaseHelper databaseHelper) {
         this.databaseHelper = databaseHelper;
+        this.metrics = databaseHelper.getMetrics();
     }
 
     /**
-     * Attempts to log in a user with the provided credentials.
+     * Attempts to log in a user with the provided credentials. Attempts beyond the
+     * login throttling limits are refused before the password is hashed.
      * 
      * @param username The username of the user
      * @param password The password of the user
@@ -35,7 +37,90 @@ public class AuthenticationManager {
      * @throws SQLException if a database error occurs
      */
     public boolean login(String username, char[] password) throws SQLException {
-        return databaseHelper.login(username, password);
+        return metrics.check("auth.login", () ->
+                allowAttempt(username, password) && loggedIn(username, databaseHelper.login(username, password)));
+    }
+
+    /**
+     * Attempts to log in a user without blocking the caller. Password verification runs on
+     * the dedicated hashing pool and fails fast with a
+     * {@link java.util.concurrent.RejectedExecutionException} when that pool is saturated.
+     * 
+     * @param username The username of the user
+     * @param password The password of the user
+     * @return a future completing with true if login is successful, false otherwise
+     */
+    public CompletableFuture<Boolean> loginAsync(String username, char[] password) {
+        if (!allowAttempt(username, password)) {
+            return metrics.timeAsync("auth.loginAsync", CompletableFuture.completedFuture(false));
+        }
+        return metrics.timeAsync("auth.loginAsync",
+                databaseHelper.loginAsync(username, password).thenApply(success -> loggedIn(username, success)));
+    }
+
+    /**
+     * Attempts to log in a user whose login context has already been fetched,
+     * so the check costs no further database round trip.
+     * 
+     * @param context The user's login context, or null if the user does not exist
+     * @param password The password of the user
+     * @return true if login is successful, false otherwise
+     */
+    public boolean login(LoginContext context, char[] password) {
+        OperationMetrics.Timer timer = metrics.timer("auth.login");
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            // Unknown users are refused without hashing, so only real accounts need a token
+            if (context != null && !allowAttempt(context.getUsername(), password)) {
+                return false;
+            }
+            success = databaseHelper.login(context, password);
+            return context == null ? success : loggedIn(context.getUsername(), success);
+        } finally {
+            timer.record(System.nanoTime() - start, !success);
+        }
+    }
+
+    /**
+     * Verifies a one-time password, refusing attempts beyond the throttling limits so the
+     * six digits cannot be guessed by brute force.
+     * 
+     * @param username The username of the user
+     * @param otp The one-time password entered by the user
+     * @return true if the OTP is valid, false otherwise
+     * @throws SQLException if a database error occurs
+     */
+    public boolean verifyOTP(String username, String otp) throws SQLException {
+        return metrics.check("auth.verifyOTP", () ->
+                allowAttempt("otp:" + username, null) && loggedIn("otp:" + username, databaseHelper.verifyOTP(username, otp)));
+    }
+
+    /**
+     * Takes a login throttling token for an attempt, clearing the password if the attempt is refused.
+     */
+    private boolean allowAttempt(String key, char[] password) {
+        LoginThrottler.Decision decision = databaseHelper.getLoginThrottler().tryAcquire(key);
+        if (decision.isAllowed()) {
+            return true;
+        }
+        if (password != null) {
+            Arrays.fill(password, '\0');
+        }
+        System.out.println(decision == LoginThrottler.Decision.USER_LIMITED
+                ? "Too many attempts for this account. Please wait a minute and try again."
+                : "The system is busy. Please try again shortly.");
+        return false;
+    }
+
+    /**
+     * Refills the throttling bucket of a key after a successful attempt, so earlier typos do not count against it.
+     */
+    private boolean loggedIn(String key, boolean success) {
+        if (success) {
+            databaseHelper.getLoginThrottler().reset(key);
+        }
+        return success;
     }
 
     /**
@@ -73,7 +158,7 @@ public class AuthenticationManager {
         System.out.println("-------------------------------------");
         String enteredOTP = UserInterface.getInput("Enter OTP: ");
         
-        if (databaseHelper.verifyOTP(username, enteredOTP)) {
+        if (verifyOTP(username, enteredOTP)) {
             System.out.println("-------------------------------------");
             System.out.println("OTP verified. Please set a new password.");
             System.out.println("-------------------------------------");
@@ -110,17 +195,16 @@ public class AuthenticationManager {
         System.out.println("-------------------------------------");
         String username = UserInterface.getInput("Enter your username: ");
 
-        if (databaseHelper.doesUserExist(username)) {
-            String otp = generateOTP();
-            Timestamp expirationTime = new Timestamp(System.currentTimeMillis() + 15 * 60 * 1000); // 15 minutes from now
-            databaseHelper.resetUserPassword(username, otp, expirationTime);
+        // The code is derived, not stored, so asking for one changes nothing until it is used
+        String otp = generateOTP(username);
+        if (otp != null) {
             System.out.println("-------------------------------------");
             System.out.println("An OTP has been generated and sent to your email: " + otp);
             System.out.println("-------------------------------------");
             
             String enteredOTP = UserInterface.getInput("Enter the OTP: ");
             
-            if (databaseHelper.verifyOTP(username, enteredOTP)) {
+            if (verifyOTP(username, enteredOTP)) {
                 resetPassword(username);
             } else {
                 System.out.println("-------------------------------------");
@@ -135,14 +219,15 @@ public class AuthenticationManager {
     }
 
     /**
-     * Generates a random 6-digit OTP.
+     * Generates a 6-digit OTP for a user. It is valid once, for a limited time, and only
+     * until the user's password changes.
      * 
-     * @return A string representing the generated OTP
+     * @param username The username of the user
+     * @return A string representing the generated OTP, or null if the user does not exist
+     * @throws SQLException if a database error occurs
      */
-    public String generateOTP() {
-        Random random = new Random();
-        int otp = 100000 + random.nextInt(900000);
-        return String.valueOf(otp);
+    public String generateOTP(String username) throws SQLException {
+        return metrics.time("auth.generateOTP", () -> databaseHelper.issueOTP(username));
     }
 
     /**
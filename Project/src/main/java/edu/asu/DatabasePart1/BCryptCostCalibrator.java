@@ -0,0 +1,122 @@
+package edu.asu.DatabasePart1;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+/****
+ * <p> BCryptCostCalibrator Class </p>
+ *
+ * <p> Description: Picks the BCrypt cost factor for this host. It times hashes at a
+ * low reference cost and, since every extra cost step doubles the work, chooses the
+ * highest cost whose predicted hash time fits the configured latency target. The
+ * choice is then confirmed with one real hash at that cost. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for adaptive BCrypt cost
+ */
+
+class BCryptCostCalibrator {
+
+    static final long DEFAULT_TARGET_MILLIS = Long.getLong("cse360.bcrypt.targetMillis", 250L);
+    static final int DEFAULT_MIN_COST = Integer.getInteger("cse360.bcrypt.minCost", 10);
+    static final int DEFAULT_MAX_COST = Integer.getInteger("cse360.bcrypt.maxCost", 14);
+
+    // Set -Dcse360.bcrypt.cost to skip calibration and use a fixed cost
+    static final int FIXED_COST = Integer.getInteger("cse360.bcrypt.cost", 0);
+
+    private static final int REFERENCE_COST = 8;
+    private static final int SAMPLES = 5;
+    private static final String SAMPLE_PASSWORD = "calibration-sample";
+
+    private final long targetMillis;
+    private final int minCost;
+    private final int maxCost;
+    private double measuredMillis;
+
+    /**
+     * Creates a calibrator with the configured target and bounds.
+     */
+    BCryptCostCalibrator() {
+        this(DEFAULT_TARGET_MILLIS, DEFAULT_MIN_COST, DEFAULT_MAX_COST);
+    }
+
+    /**
+     * Creates a calibrator.
+     *
+     * @param targetMillis the longest acceptable time for one hash
+     * @param minCost the lowest cost ever chosen, even on slow hosts
+     * @param maxCost the highest cost ever chosen, even on fast hosts
+     */
+    BCryptCostCalibrator(long targetMillis, int minCost, int maxCost) {
+        this.targetMillis = targetMillis;
+        this.minCost = minCost;
+        this.maxCost = maxCost;
+    }
+
+    /**
+     * Determines the cost factor to use on this host.
+     *
+     * @return the chosen cost factor
+     */
+    int calibrate() {
+        if (FIXED_COST > 0) {
+            measuredMillis = timeHash(FIXED_COST);
+            return FIXED_COST;
+        }
+        timeHash(REFERENCE_COST); // Warm up the JIT before measuring
+        double referenceMillis = Double.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            referenceMillis = Math.min(referenceMillis, timeHash(REFERENCE_COST));
+        }
+
+        int cost = minCost;
+        while (cost < maxCost && referenceMillis * Math.pow(2, cost + 1 - REFERENCE_COST) <= targetMillis) {
+            cost++;
+        }
+
+        // Confirm the prediction with a real hash and step down if it overshoots
+        measuredMillis = timeHash(cost);
+        while (cost > minCost && measuredMillis > targetMillis) {
+            cost--;
+            measuredMillis = timeHash(cost);
+        }
+        return cost;
+    }
+
+    /**
+     * @return the measured time of one hash at the chosen cost, in milliseconds
+     */
+    double getMeasuredMillis() {
+        return measuredMillis;
+    }
+
+    /**
+     * @return the configured latency target, in milliseconds
+     */
+    long getTargetMillis() {
+        return targetMillis;
+    }
+
+    /**
+     * Reads the cost factor out of a stored BCrypt hash such as {@code $2a$12$...}.
+     *
+     * @param hash the stored hash
+     * @return the cost factor, or -1 if the hash is not in BCrypt format
+     */
+    static int costOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static double timeHash(int cost) {
+        long start = System.nanoTime();
+        BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(cost));
+        return (System.nanoTime() - start) / 1_000_000.0;
+    }
+}
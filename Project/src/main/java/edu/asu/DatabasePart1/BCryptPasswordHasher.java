@@ -0,0 +1,67 @@
+package edu.asu.DatabasePart1;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+/****
+ * <p> BCryptPasswordHasher Class </p>
+ *
+ * <p> Description: Password hashing with jBCrypt. The cost factor can be changed at
+ * runtime, for example after {@link BCryptCostCalibrator} has measured the host. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for pluggable password hashing
+ */
+
+class BCryptPasswordHasher implements PasswordHasher {
+    static final String NAME = "bcrypt";
+
+    private volatile int cost;
+
+    /**
+     * Creates a BCrypt hasher.
+     *
+     * @param cost the cost factor for new hashes
+     */
+    BCryptPasswordHasher(int cost) {
+        this.cost = cost;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String hash(char[] password) {
+        return BCrypt.hashpw(new String(password), BCrypt.gensalt(cost));
+    }
+
+    @Override
+    public boolean verify(char[] password, String storedHash) {
+        try {
+            return BCrypt.checkpw(new String(password), storedHash);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error checking password: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean supports(String storedHash) {
+        return storedHash != null && storedHash.startsWith("$2");
+    }
+
+    @Override
+    public boolean needsRehash(String storedHash) {
+        return BCryptCostCalibrator.costOf(storedHash) != cost;
+    }
+
+    int getCost() {
+        return cost;
+    }
+
+    void setCost(int cost) {
+        this.cost = cost;
+    }
+}
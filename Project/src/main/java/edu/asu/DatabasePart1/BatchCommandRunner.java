@@ -0,0 +1,266 @@
+package edu.asu.DatabasePart1;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/****
+ * <p> BatchCommandRunner Class </p>
+ *
+ * <p> Description: Runs admin commands from a file instead of interactive prompts. Each
+ * line holds one command; blank lines and lines starting with {@code #} are ignored:
+ * <pre>
+ * invite student,instructor
+ * reset-password alice
+ * set-roles bob instructor,student
+ * delete carol
+ * </pre>
+ * Commands run through the same {@link DatabaseHelper} operations as the admin menu and
+ * are committed in groups of a configurable size. If a command in a group fails, the
+ * group is rolled back and its commands are retried one per transaction, so one bad
+ * command never loses the others. The outcome of every command is written as one JSON
+ * object per line, followed by a summary line. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for batch admin commands
+ */
+
+class BatchCommandRunner {
+
+    static final int DEFAULT_TRANSACTION_SIZE = Integer.getInteger("cse360.batch.transactionSize", 100);
+
+    private final DatabaseHelper databaseHelper;
+    private final InvitationCodeGenerator codeGenerator;
+    private final int transactionSize;
+
+    /**
+     * Creates a runner with the default transaction size.
+     *
+     * @param databaseHelper the database to run commands against
+     * @param codeGenerator the source of invitation codes
+     */
+    BatchCommandRunner(DatabaseHelper databaseHelper, InvitationCodeGenerator codeGenerator) {
+        this(databaseHelper, codeGenerator, DEFAULT_TRANSACTION_SIZE);
+    }
+
+    /**
+     * Creates a runner.
+     *
+     * @param databaseHelper the database to run commands against
+     * @param codeGenerator the source of invitation codes
+     * @param transactionSize the number of commands committed together
+     */
+    BatchCommandRunner(DatabaseHelper databaseHelper, InvitationCodeGenerator codeGenerator, int transactionSize) {
+        this.databaseHelper = databaseHelper;
+        this.codeGenerator = codeGenerator;
+        this.transactionSize = transactionSize;
+    }
+
+    /**
+     * Runs every command in a command file and reports the outcome of each.
+     *
+     * @param commands the command file
+     * @param report where the JSON Lines report is written
+     * @return the totals of the run
+     * @throws IOException if the command file cannot be read or the report cannot be written
+     * @throws SQLException if the database fails in a way that is not specific to one command
+     */
+    Summary run(BufferedReader commands, Writer report) throws IOException, SQLException {
+        Summary summary = new Summary();
+        List<Command> group = new ArrayList<>(transactionSize);
+        long start = System.nanoTime();
+        String line;
+        int lineNumber = 0;
+        while ((line = commands.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            group.add(new Command(lineNumber, trimmed));
+            if (group.size() == transactionSize) {
+                runGroup(group, report, summary);
+            }
+        }
+        runGroup(group, report, summary);
+        summary.elapsedNanos = System.nanoTime() - start;
+        report.write(summary.toJson());
+        report.write('\n');
+        report.flush();
+        return summary;
+    }
+
+    private void runGroup(List<Command> group, Writer report, Summary summary) throws IOException, SQLException {
+        if (group.isEmpty()) {
+            return;
+        }
+        try {
+            databaseHelper.inTransaction(() -> {
+                for (Command command : group) {
+                    command.execute();
+                }
+                return null;
+            });
+            summary.transactions++;
+        } catch (SQLException e) {
+            // Something in the group failed and everything was rolled back; find it by running them one at a time
+            for (Command command : group) {
+                try {
+                    databaseHelper.inTransaction(() -> {
+                        command.execute();
+                        return null;
+                    });
+                } catch (SQLException commandError) {
+                    command.fail(DatabaseHelper.describeFailure(commandError));
+                }
+                summary.transactions++;
+            }
+        }
+        for (Command command : group) {
+            summary.count(command);
+            report.write(command.toJson());
+            report.write('\n');
+        }
+        group.clear();
+    }
+
+    /**
+     * One command line and, once run, its outcome.
+     */
+    private class Command {
+        final int lineNumber;
+        final String name;
+        final String[] args;
+        String status;
+        String result;
+
+        Command(int lineNumber, String line) {
+            this.lineNumber = lineNumber;
+            String[] parts = line.split("\\s+");
+            this.name = parts[0].toLowerCase(Locale.ROOT);
+            this.args = Arrays.copyOfRange(parts, 1, parts.length);
+        }
+
+        /**
+         * Runs the command. Problems with the command itself, like an unknown user, are
+         * recorded as errors; database failures are thrown so the transaction rolls back.
+         */
+        void execute() throws SQLException {
+            status = "ok";
+            result = null;
+            switch (name) {
+                case "invite":
+                    if (expectArgs(1)) {
+                        String code = codeGenerator.nextCode();
+                        databaseHelper.createInvitation(code, String.join(",", DatabaseHelper.normalizeRoles(args[0])));
+                        result = code;
+                    }
+                    break;
+                case "reset-password":
+                    if (expectArgs(1) && requireUser(args[0])) {
+                        result = databaseHelper.resetUserPasswordByAdmin(args[0]);
+                    }
+                    break;
+                case "set-roles":
+                    if (expectArgs(2) && requireUser(args[0])) {
+                        if (DatabaseHelper.normalizeRoles(args[1]).length == 0) {
+                            fail("At least one role is required");
+                        } else {
+                            databaseHelper.updateUserRoles(args[0], args[1]);
+                        }
+                    }
+                    break;
+                case "delete":
+                    if (expectArgs(1) && requireUser(args[0])) {
+                        databaseHelper.deleteUser(args[0]);
+                    }
+                    break;
+                default:
+                    fail("Unknown command: " + name);
+            }
+        }
+
+        private boolean expectArgs(int count) {
+            if (args.length != count) {
+                fail(name + " expects " + count + (count == 1 ? " argument" : " arguments"));
+                return false;
+            }
+            return true;
+        }
+
+        private boolean requireUser(String username) throws SQLException {
+            if (!databaseHelper.doesUserExist(username)) {
+                fail("User not found: " + username);
+                return false;
+            }
+            return true;
+        }
+
+        void fail(String message) {
+            status = "error";
+            result = message;
+        }
+
+        String toJson() throws IOException {
+            StringWriter json = new StringWriter();
+            json.write("{\"line\":" + lineNumber + ",\"command\":");
+            UserExporter.writeJsonString(json, name);
+            json.write(",\"args\":[");
+            for (int i = 0; i < args.length; i++) {
+                if (i > 0) {
+                    json.write(',');
+                }
+                UserExporter.writeJsonString(json, args[i]);
+            }
+            json.write("],\"status\":");
+            UserExporter.writeJsonString(json, status);
+            json.write(",\"result\":");
+            UserExporter.writeJsonString(json, result);
+            json.write('}');
+            return json.toString();
+        }
+    }
+
+    /**
+     * The totals of a batch run.
+     */
+    static class Summary {
+        int commands;
+        int succeeded;
+        int failed;
+        int transactions;
+        long elapsedNanos;
+
+        private void count(Command command) {
+            commands++;
+            if ("ok".equals(command.status)) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+        }
+
+        double getCommandsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : commands / (elapsedNanos / 1e9);
+        }
+
+        String toJson() {
+            return String.format("{\"summary\":true,\"commands\":%d,\"succeeded\":%d,\"failed\":%d,"
+                            + "\"transactions\":%d,\"elapsedMillis\":%d}",
+                    commands, succeeded, failed, transactions, elapsedNanos / 1_000_000);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Batch finished: %d commands, %d succeeded, %d failed, %d transactions in %.2f s (%.0f commands/s)",
+                    commands, succeeded, failed, transactions, elapsedNanos / 1e9, getCommandsPerSecond());
+        }
+    }
+}
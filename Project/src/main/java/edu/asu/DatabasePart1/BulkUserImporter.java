@@ -0,0 +1,335 @@
+package edu.asu.DatabasePart1;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/****
+ * <p> BulkUserImporter Class </p>
+ *
+ * <p> Description: Creates user accounts from a CSV file. Rows are streamed from the
+ * reader, their passwords are hashed in parallel on one thread per core, and the users
+ * are written in JDBC batches, each committed as its own transaction. Only a bounded
+ * window of rows is in memory at a time, so the file can be any size. A bad row is
+ * reported and skipped without stopping the run. </p>
+ *
+ * <p> Columns, in order: username, password, roles, email, first name, middle name,
+ * last name, preferred name. Only the first three are required. Multiple roles are
+ * separated by commas inside a quoted field, e.g. {@code "student,instructor"}. A first
+ * line starting with {@code username} is treated as a header. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for bulk user import
+ */
+
+class BulkUserImporter {
+
+    static final int DEFAULT_BATCH_SIZE = Integer.getInteger("cse360.import.batchSize", 500);
+    static final int DEFAULT_THREADS = Integer.getInteger("cse360.import.threads",
+            Runtime.getRuntime().availableProcessors());
+    static final long PROGRESS_INTERVAL_MILLIS = Long.getLong("cse360.import.progressMillis", 2000L);
+
+    private final DatabaseHelper databaseHelper;
+    private final int batchSize;
+    private final int threads;
+    private final PrintStream log;
+
+    /**
+     * Creates an importer with the default batch size and thread count.
+     *
+     * @param databaseHelper the database to import into
+     * @param log where progress and row errors are reported
+     */
+    BulkUserImporter(DatabaseHelper databaseHelper, PrintStream log) {
+        this(databaseHelper, DEFAULT_BATCH_SIZE, DEFAULT_THREADS, log);
+    }
+
+    /**
+     * Creates an importer.
+     *
+     * @param databaseHelper the database to import into
+     * @param batchSize the number of users written and committed together
+     * @param threads the number of password hashing threads
+     * @param log where progress and row errors are reported
+     */
+    BulkUserImporter(DatabaseHelper databaseHelper, int batchSize, int threads, PrintStream log) {
+        this.databaseHelper = databaseHelper;
+        this.batchSize = batchSize;
+        this.threads = threads;
+        this.log = log;
+    }
+
+    /**
+     * Imports every row of a CSV file.
+     *
+     * @param reader the CSV content
+     * @return the totals of the run
+     * @throws IOException if the CSV cannot be read
+     * @throws SQLException if a batch cannot be written at all, e.g. the database is down
+     */
+    Result importUsers(BufferedReader reader) throws IOException, SQLException {
+        Result result = new Result();
+        ExecutorService hashers = Executors.newFixedThreadPool(threads, HashingService.daemonThreads("cse360-import-"));
+        // Rows whose hashes are in flight, oldest first; bounded so reading never runs far ahead of writing
+        Deque<CompletableFuture<ImportedUser>> window = new ArrayDeque<>();
+        int windowSize = Math.max(batchSize, threads * 4);
+        List<ImportedUser> batch = new ArrayList<>(batchSize);
+        long start = System.nanoTime();
+        long lastProgress = start;
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty() || (lineNumber == 1 && line.toLowerCase().startsWith("username"))) {
+                    continue;
+                }
+                result.read++;
+                ImportedUser user;
+                try {
+                    user = ImportedUser.parse(lineNumber, line);
+                } catch (IllegalArgumentException e) {
+                    reportError(result, lineNumber, null, e.getMessage());
+                    continue;
+                }
+                window.add(CompletableFuture.supplyAsync(() -> user.hash(databaseHelper.getPasswordHashers()), hashers));
+                while (window.size() >= windowSize) {
+                    drainOne(window, batch, result);
+                }
+                if (System.nanoTime() - lastProgress > PROGRESS_INTERVAL_MILLIS * 1_000_000L) {
+                    lastProgress = System.nanoTime();
+                    reportProgress(result, lastProgress - start);
+                }
+            }
+            while (!window.isEmpty()) {
+                drainOne(window, batch, result);
+            }
+            flush(batch, result);
+        } finally {
+            hashers.shutdownNow();
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        reportProgress(result, result.elapsedNanos);
+        return result;
+    }
+
+    private void drainOne(Deque<CompletableFuture<ImportedUser>> window, List<ImportedUser> batch, Result result)
+            throws SQLException {
+        ImportedUser user;
+        try {
+            user = window.remove().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while hashing imported passwords", e);
+        } catch (ExecutionException e) {
+            throw new SQLException("Password hashing failed during import", e.getCause());
+        }
+        batch.add(user);
+        if (batch.size() >= batchSize) {
+            flush(batch, result);
+        }
+    }
+
+    private void flush(List<ImportedUser> batch, Result result) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        String[] failures = databaseHelper.insertUsers(batch);
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] == null) {
+                result.imported++;
+            } else {
+                reportError(result, batch.get(i).lineNumber, batch.get(i).username, failures[i]);
+            }
+        }
+        result.batches++;
+        batch.clear();
+    }
+
+    private void reportError(Result result, int lineNumber, String username, String message) {
+        result.failed++;
+        log.println("Line " + lineNumber + (username != null ? " (" + username + ")" : "") + ": " + message);
+    }
+
+    private void reportProgress(Result result, long elapsedNanos) {
+        log.printf("Imported %d of %d rows, %d failed, %.0f rows/s%n",
+                result.imported, result.read, result.failed, result.read / (elapsedNanos / 1e9));
+    }
+
+    /**
+     * Splits one CSV line into fields. Fields may be quoted with double quotes, and a
+     * doubled quote inside a quoted field stands for one quote.
+     *
+     * @param line the CSV line
+     * @return the fields
+     * @throws IllegalArgumentException if a quoted field is not closed
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * One user read from the import file. The password is replaced by its hash before the
+     * user is written.
+     */
+    static class ImportedUser {
+        final int lineNumber;
+        final String username;
+        final String roles;
+        final String email;
+        final String firstName;
+        final String middleName;
+        final String lastName;
+        final String preferredName;
+        private char[] password;
+        private String hashedPassword;
+
+        ImportedUser(int lineNumber, String username, char[] password, String roles, String email,
+                     String firstName, String middleName, String lastName, String preferredName) {
+            this.lineNumber = lineNumber;
+            this.username = username;
+            this.password = password;
+            this.roles = roles;
+            this.email = email;
+            this.firstName = firstName;
+            this.middleName = middleName;
+            this.lastName = lastName;
+            this.preferredName = preferredName;
+        }
+
+        /**
+         * Parses and validates one CSV line.
+         *
+         * @param lineNumber the line number, for error reports
+         * @param line the CSV line
+         * @return the user
+         * @throws IllegalArgumentException if the line is malformed or a required field is missing
+         */
+        static ImportedUser parse(int lineNumber, String line) {
+            List<String> fields = parseCsvLine(line);
+            if (fields.size() < 3 || fields.size() > 8) {
+                throw new IllegalArgumentException("Expected 3 to 8 columns but found " + fields.size());
+            }
+            String username = fields.get(0).trim();
+            if (username.isEmpty()) {
+                throw new IllegalArgumentException("Username is required");
+            }
+            if (fields.get(1).isEmpty()) {
+                throw new IllegalArgumentException("Password is required");
+            }
+            if (DatabaseHelper.normalizeRoles(fields.get(2)).length == 0) {
+                throw new IllegalArgumentException("At least one role is required");
+            }
+            return new ImportedUser(lineNumber, username, fields.get(1).toCharArray(), fields.get(2),
+                    optional(fields, 3), optional(fields, 4), optional(fields, 5), optional(fields, 6), optional(fields, 7));
+        }
+
+        private static String optional(List<String> fields, int index) {
+            if (index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        /**
+         * Hashes the password and clears it from memory.
+         *
+         * @param hashers the hashing algorithms
+         * @return this user
+         */
+        ImportedUser hash(PasswordHashers hashers) {
+            try {
+                hashedPassword = hashers.hash(password);
+            } finally {
+                Arrays.fill(password, '\0');
+                password = null;
+            }
+            return this;
+        }
+
+        /**
+         * Uses a hash computed elsewhere and clears the password, e.g. when seeding many
+         * users that share one password.
+         *
+         * @param hashedPassword the stored form of this user's password
+         * @return this user
+         */
+        ImportedUser withHashedPassword(String hashedPassword) {
+            this.hashedPassword = hashedPassword;
+            Arrays.fill(password, '\0');
+            password = null;
+            return this;
+        }
+
+        String getHashedPassword() {
+            return hashedPassword;
+        }
+
+        /**
+         * @return true if the row fills in everything the profile setup would ask for
+         */
+        boolean isProfileComplete() {
+            return email != null && firstName != null && lastName != null;
+        }
+    }
+
+    /**
+     * The totals of an import run.
+     */
+    static class Result {
+        int read;
+        int imported;
+        int failed;
+        int batches;
+        long elapsedNanos;
+
+        double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : read / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Import finished: %d rows read, %d imported, %d failed, %d batches in %.2f s (%.0f rows/s)",
+                    read, imported, failed, batches, elapsedNanos / 1e9, getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package edu.asu.DatabasePart1;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/****
+ * <p> ConnectionPool Class </p>
+ *
+ * <p> Description: A bounded pool of JDBC connections. Connections are checked out for the
+ * duration of a single database operation and returned afterwards, so concurrent sessions
+ * no longer queue behind one shared H2 session. Idle connections are validated before
+ * reuse and connections held for too long are reported as leaks. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for connection pooling
+ */
+
+class ConnectionPool {
+
+    // Pool settings, overridable with -D system properties
+    static final int DEFAULT_MAX_SIZE = Integer.getInteger("cse360.pool.maxSize", 10);
+    static final long DEFAULT_BORROW_TIMEOUT_MILLIS = Long.getLong("cse360.pool.borrowTimeoutMillis", 5_000L);
+    static final long DEFAULT_VALIDATION_INTERVAL_MILLIS = Long.getLong("cse360.pool.validationIntervalMillis", 30_000L);
+    static final long DEFAULT_LEAK_THRESHOLD_MILLIS = Long.getLong("cse360.pool.leakThresholdMillis", 60_000L);
+    static final boolean CAPTURE_LEAK_TRACES = Boolean.getBoolean("cse360.pool.leakTraces");
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final long leakThresholdMillis;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final ScheduledExecutorService leakDetector;
+    private final int statementCacheSize = StatementCache.DEFAULT_MAX_SIZE;
+    private final StatementCache.Stats statementCacheStats = new StatementCache.Stats();
+    private volatile boolean closed = false;
+    private volatile UnaryOperator<Connection> connectionWrapper = UnaryOperator.identity();
+
+    // Metrics
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+    private final LatencyHistogram holdTimes = new LatencyHistogram();
+    private final LatencyHistogram queryTimes = new LatencyHistogram();
+
+    /**
+     * Creates a pool with the default settings.
+     *
+     * @param url the JDBC URL of the database
+     * @param user the database user
+     * @param password the database password
+     */
+    ConnectionPool(String url, String user, String password) {
+        this(url, user, password, DEFAULT_MAX_SIZE, DEFAULT_BORROW_TIMEOUT_MILLIS,
+                DEFAULT_VALIDATION_INTERVAL_MILLIS, DEFAULT_LEAK_THRESHOLD_MILLIS);
+    }
+
+    /**
+     * Creates a pool with explicit settings.
+     *
+     * @param url the JDBC URL of the database
+     * @param user the database user
+     * @param password the database password
+     * @param maxSize the maximum number of open connections
+     * @param borrowTimeoutMillis how long a caller waits for a free connection before failing
+     * @param validationIntervalMillis idle time after which a connection is validated before reuse
+     * @param leakThresholdMillis how long a connection may be held before it is reported as leaked (0 disables)
+     */
+    ConnectionPool(String url, String user, String password, int maxSize, long borrowTimeoutMillis,
+                   long validationIntervalMillis, long leakThresholdMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        if (leakThresholdMillis > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "cse360-pool-leak-detector");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(1_000L, leakThresholdMillis / 2);
+            leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            leakDetector = null;
+        }
+    }
+
+    /**
+     * Checks a connection out of the pool, opening a new one if none is idle.
+     * The caller must close the returned connection to give it back.
+     *
+     * @return a connection reserved for the caller
+     * @throws SQLException if the pool is closed, no connection frees up in time, or opening fails
+     */
+    PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.increment();
+                throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis
+                        + " ms waiting for a database connection (" + maxSize + " in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection conn;
+            while ((conn = idle.pollFirst()) != null) {
+                if (isUsable(conn)) {
+                    break;
+                }
+                validationFailures.increment();
+                discard(conn);
+            }
+            if (conn == null) {
+                conn = open();
+            }
+            conn.markBorrowed(CAPTURE_LEAK_TRACES);
+            borrowed.add(conn);
+            borrowCount.increment();
+            return conn;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a connection to the pool. Any open transaction is rolled back first.
+     *
+     * @param conn the connection being returned
+     */
+    void release(PooledConnection conn) {
+        if (!borrowed.remove(conn)) {
+            return; // Already returned
+        }
+        holdTimes.record(System.nanoTime() - conn.getBorrowedNanos());
+        try {
+            Connection physical = conn.getConnection();
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (closed) {
+                discard(conn);
+            } else {
+                conn.markReturned();
+                idle.offerFirst(conn); // LIFO keeps the most recently used connections warm
+            }
+        } catch (SQLException e) {
+            System.err.println("Discarding connection that failed to reset: " + e.getMessage());
+            discard(conn);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops handing out new ones. Borrowed
+     * connections are closed as they are returned.
+     */
+    void close() {
+        closed = true;
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        PooledConnection conn;
+        while ((conn = idle.pollFirst()) != null) {
+            discard(conn);
+        }
+    }
+
+    /**
+     * Wraps every connection opened from now on, e.g. to instrument it. Call it before the
+     * first borrow so no connection is missed.
+     *
+     * @param connectionWrapper returns the connection to pool in place of a new one
+     */
+    void setConnectionWrapper(UnaryOperator<Connection> connectionWrapper) {
+        this.connectionWrapper = connectionWrapper;
+    }
+
+    /**
+     * Opens a new physical connection.
+     */
+    private PooledConnection open() throws SQLException {
+        Connection physical = connectionWrapper.apply(DriverManager.getConnection(url, user, password));
+        openConnections.incrementAndGet();
+        return new PooledConnection(this, physical, statementCacheSize, statementCacheStats);
+    }
+
+    /**
+     * Validates an idle connection if it has been unused longer than the validation interval.
+     */
+    private boolean isUsable(PooledConnection conn) {
+        try {
+            if (conn.getConnection().isClosed()) {
+                return false;
+            }
+            if (conn.idleMillis() < validationIntervalMillis) {
+                return true;
+            }
+            return conn.getConnection().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes a physical connection and removes it from the pool's accounting.
+     */
+    private void discard(PooledConnection conn) {
+        openConnections.decrementAndGet();
+        conn.closePhysical();
+    }
+
+    /**
+     * Reports connections that have been checked out for longer than the leak threshold.
+     */
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection conn : borrowed) {
+            if (now - conn.getBorrowedAt() > leakThresholdMillis && conn.flagLeak()) {
+                leakCount.increment();
+                System.err.println("Possible connection leak: connection held by thread '"
+                        + conn.getBorrowerThread() + "' for " + (now - conn.getBorrowedAt()) + " ms");
+                if (conn.getBorrowSite() != null) {
+                    conn.getBorrowSite().printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        waitTimes.record(nanos);
+        totalWaitNanos.add(nanos);
+        long max;
+        while (nanos > (max = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(max, nanos)) {
+            // Retry until the maximum is updated or another thread records a larger wait
+        }
+    }
+
+    /** @return the hit and miss counters of the per-connection statement caches */
+    StatementCache.Stats getStatementCacheStats() {
+        return statementCacheStats;
+    }
+
+    /** @return the number of connections currently checked out */
+    int getActiveCount() {
+        return borrowed.size();
+    }
+
+    /** @return the number of open connections waiting in the pool */
+    int getIdleCount() {
+        return idle.size();
+    }
+
+    /** @return the number of physical connections currently open */
+    int getOpenCount() {
+        return openConnections.get();
+    }
+
+    /** @return the maximum number of connections the pool will open */
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    /** @return how long callers waited for a connection */
+    LatencyHistogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    /**
+     * @return how long connections were held per checkout, including whatever the
+     *         borrower did in between statements, such as the rest of a transaction or
+     *         writing out an export
+     */
+    LatencyHistogram getHoldTimes() {
+        return holdTimes;
+    }
+
+    /**
+     * @return how long each statement run on the pool's connections spent in the
+     *         database, recorded by {@link PooledConnection}
+     */
+    LatencyHistogram getQueryTimes() {
+        return queryTimes;
+    }
+
+    /** @return the total number of successful checkouts */
+    long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    /** @return the average time callers waited for a connection, in milliseconds */
+    double getAverageWaitMillis() {
+        long borrows = borrowCount.sum();
+        return borrows == 0 ? 0.0 : totalWaitNanos.sum() / 1_000_000.0 / borrows;
+    }
+
+    /** @return the longest time a caller waited for a connection, in milliseconds */
+    double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    /** @return the number of checkouts that timed out */
+    long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    /** @return the number of idle connections discarded because they failed validation */
+    long getValidationFailureCount() {
+        return validationFailures.sum();
+    }
+
+    /** @return the number of connections reported as leaked */
+    long getLeakCount() {
+        return leakCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[active=%d, idle=%d, open=%d/%d, borrows=%d, avgWait=%.3f ms, "
+                        + "maxWait=%.3f ms, timeouts=%d, validationFailures=%d, leaks=%d]",
+                getActiveCount(), getIdleCount(), getOpenCount(), maxSize, getBorrowCount(),
+                getAverageWaitMillis(), getMaxWaitMillis(), getTimeoutCount(),
+                getValidationFailureCount(), getLeakCount()) + " " + statementCacheStats;
+    }
+}
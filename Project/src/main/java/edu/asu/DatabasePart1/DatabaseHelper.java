@@ -1,7 +1,24 @@
 package edu.asu.DatabasePart1;
+import java.io.IOException;
+import java.security.SecureRandom;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.Arrays;
-import org.mindrot.jbcrypt.BCrypt;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /****
  * <p> DatabaseHelper Class </p>
@@ -23,11 +40,100 @@ class DatabaseHelper {
 	static final String USER = "sa"; 
 	static final String PASS = ""; 
 
-	private Connection connection = null;
-	private Statement statement = null; 
+	// Transactions may hit H2 lock conflicts under contention; they are retried this many times
+	static final int TRANSACTION_ATTEMPTS = Integer.getInteger("cse360.tx.maxAttempts", 5);
+
+	// Users copied from the legacy roles column into user_roles per migration transaction
+	static final int ROLE_MIGRATION_BATCH_SIZE = Integer.getInteger("cse360.roles.migrationBatchSize", 500);
+
+	// Invitations inserted per JDBC batch when creating invitations in bulk
+	static final int INVITATION_BATCH_SIZE = Integer.getInteger("cse360.invitations.batchSize", 1000);
+	// Invitations expire after a week; used and expired ones are purged in the background in short batches
+	static final long INVITATION_TTL_MILLIS = Long.getLong("cse360.invitations.ttlMillis", 7 * 24 * 60 * 60_000L);
+	static final int INVITATION_PURGE_BATCH_SIZE = Integer.getInteger("cse360.invitations.purgeBatchSize", 500);
+	static final long INVITATION_PURGE_INTERVAL_MILLIS = Long.getLong("cse360.invitations.purgeIntervalMillis", 3_600_000L);
+
+	// User listings are served a page at a time; rows are pulled from the driver in fetch-size chunks
+	static final int DEFAULT_PAGE_SIZE = Integer.getInteger("cse360.users.pageSize", 20);
+	static final int MAX_PAGE_SIZE = Integer.getInteger("cse360.users.maxPageSize", 500);
+	static final int LIST_FETCH_SIZE = Integer.getInteger("cse360.users.fetchSize", 100);
+	static final int EXPORT_FETCH_SIZE = Integer.getInteger("cse360.export.fetchSize", 1000);
+
+	// The listed details of a user, with roles from user_roles in their assigned order
+	private static final String USER_SUMMARY_COLUMNS = "u.username, u.email, u.first_name, u.middle_name, u.last_name, "
+			+ "u.preferred_name, u.profile_complete, (SELECT LISTAGG(r.role, ',') WITHIN GROUP (ORDER BY r.position) "
+			+ "FROM user_roles r WHERE r.user_id = u.id) AS roles";
+
+	private final String dbUrl;
+	private ConnectionPool pool = null;
+	// Logs statements over cse360.slowQuery.thresholdMillis; null when no threshold is set
+	private SlowQueryLog slowQueryLog;
+	private final ThreadLocal<Transaction> currentTransaction = new ThreadLocal<>();
+	private final UserAttributeCache userCache = new UserAttributeCache(this::loadUserAttributes);
+
+	// Answers "no such user" without a query; rebuilt periodically to forget deleted usernames
+	static final long USERNAME_FILTER_REBUILD_MILLIS = Long.getLong("cse360.bloom.rebuildIntervalMillis", 600_000L);
+	private final UsernameBloomFilter usernameFilter = new UsernameBloomFilter(new UsernameBloomFilter.Loader() {
+		@Override
+		public int countUsernames() throws SQLException {
+			return DatabaseHelper.this.countUsernames();
+		}
+
+		@Override
+		public void forEachUsername(Consumer<String> sink) throws SQLException {
+			DatabaseHelper.this.forEachUsername(sink);
+		}
+	});
+	// Rejects password and OTP guesses before they reach the hashing pool; idle buckets are swept periodically
+	static final long LOGIN_THROTTLE_EVICT_MILLIS = Long.getLong("cse360.throttle.evictIntervalMillis", 60_000L);
+	// Latency and failures of every public operation, published over JMX and Prometheus
+	private final OperationMetrics metrics = new OperationMetrics();
+	private final LoginThrottler loginThrottler = new LoginThrottler();
+	// Logged-in sessions, so authorization after login needs neither the password nor a query
+	static final long SESSION_SWEEP_MILLIS = Long.getLong("cse360.sessions.sweepIntervalMillis", 60_000L);
+	private final SessionManager sessionManager = new SessionManager();
+	// Derives one-time passwords from a server key, so issuing and checking them writes nothing
+	private OtpService otpService;
+	private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(
+			HashingService.daemonThreads("cse360-maintenance-"));
+
+	// CPU-bound hashing and blocking database I/O run on separate pools for the async API
+	private final HashingService hashingService = new HashingService(this::hashPassword, this::checkPassword);
+	private final ExecutorService databaseExecutor = Executors.newFixedThreadPool(
+			ConnectionPool.DEFAULT_MAX_SIZE, HashingService.daemonThreads("cse360-db-io-"));
+
+	// Hashing algorithms (BCrypt cost is calibrated at connect time), and counts of hashes migrated on login
+	private final PasswordHashers passwordHashers = new PasswordHashers(12, metrics);
+	private final LongAdder rehashUpgrades = new LongAdder();
+	private final LongAdder rehashDowngrades = new LongAdder();
+	private final LongAdder rehashMigrations = new LongAdder();
+	private final LongAdder rehashFailures = new LongAdder();
+	private final LongAdder invitationPurgeRuns = new LongAdder();
+	private final LongAdder invitationPurgeBatches = new LongAdder();
+	private final LongAdder invitationsPurged = new LongAdder();
+	private volatile long lastInvitationPurgeNanos;
+
+	/**
+	 * Constructs a DatabaseHelper for the application database.
+	 */
+	public DatabaseHelper() {
+		this(DB_URL);
+	}
+
+	/**
+	 * Constructs a DatabaseHelper for the given database, such as an isolated
+	 * in-memory H2 instance for benchmarks.
+	 * 
+	 * @param dbUrl the JDBC URL of the database
+	 */
+	DatabaseHelper(String dbUrl) {
+		this.dbUrl = dbUrl;
+	}
 
 	/**
-	 * Establishes a connection to the database and creates necessary tables.
+	 * Establishes the connection pool for the database and creates necessary tables.
+	 * Each operation checks a connection out of the pool and returns it when done,
+	 * so concurrent sessions are not serialized on a single connection.
 	 * 
 	 * @throws SQLException if a database access error occurs
 	 */
@@ -35,26 +141,31 @@ class DatabaseHelper {
 		try {
 			Class.forName(JDBC_DRIVER); // Load the JDBC driver
 			System.out.println("Connecting to database...");
-			connection = DriverManager.getConnection(DB_URL, USER, PASS);
-			statement = connection.createStatement(); 
+			pool = new ConnectionPool(dbUrl, USER, PASS);
+			startSlowQueryLog();
 			createTables();  // Create the necessary tables if they don't exist
+			migrateRoles();
+			startUsernameFilter();
+			startLoginThrottler();
+			startSessionSweeper();
+			startOtpService();
+			startInvitationPurge();
+			calibratePasswordHashing();
+			startMetrics();
 		} catch (ClassNotFoundException e) {
 			System.err.println("JDBC Driver not found: " + e.getMessage());
 		}
 	}
 	
+	/**
+	 * Checks if a user has the admin role. Served from the user attribute cache.
+	 * 
+	 * @param username the username of the user
+	 * @return true if the user is an admin, false otherwise
+	 * @throws SQLException if a database access error occurs
+	 */
 	public boolean isUserAdmin(String username) throws SQLException {
-		String query = "SELECT roles FROM cse360users WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-			try (ResultSet rs = pstmt.executeQuery()) {
-				if (rs.next()) {
-					String roles = rs.getString("roles");
-					return roles != null && roles.toLowerCase().contains("admin");
-				}
-			}
-		}
-		return false;
+		return metrics.time("isUserAdmin", () -> attributesOf(username).hasPermission(Permission.ACCESS_ADMIN_PANEL));
 	}
 	/**
 	 * Creates necessary tables in the database if they don't exist.
@@ -75,415 +186,1597 @@ class DatabaseHelper {
 				+ "otp VARCHAR(50), "
 				+ "otp_expiration TIMESTAMP, "
 				+ "is_otp_password BOOLEAN DEFAULT FALSE, "
-				+ "profile_complete BOOLEAN DEFAULT FALSE)";
-		statement.execute(userTable);
+				+ "profile_complete BOOLEAN DEFAULT FALSE, "
+				+ "otp_counter INT DEFAULT 0 NOT NULL)";
+		// Advanced when an OTP is accepted or the password changes; databases created before lack it
+		String otpCounter = "ALTER TABLE cse360users ADD COLUMN IF NOT EXISTS otp_counter INT DEFAULT 0 NOT NULL";
 
-        String invitationTable = "CREATE TABLE IF NOT EXISTS invitations ("
-                + "id INT AUTO_INCREMENT PRIMARY KEY, "
-                + "invitation_code VARCHAR(50) UNIQUE, "
-                + "roles VARCHAR(100), "
-                + "is_used BOOLEAN DEFAULT FALSE)";
-        statement.execute(invitationTable);
-    }
+		String invitationTable = "CREATE TABLE IF NOT EXISTS invitations ("
+				+ "id INT AUTO_INCREMENT PRIMARY KEY, "
+				+ "invitation_code VARCHAR(50) UNIQUE, "
+				+ "roles VARCHAR(100), "
+				+ "is_used BOOLEAN DEFAULT FALSE, "
+				+ "expires_at TIMESTAMP)";
+		// Databases created before invitations expired lack the column
+		String invitationExpiry = "ALTER TABLE invitations ADD COLUMN IF NOT EXISTS expires_at TIMESTAMP";
+		String invitationExpiryIndex = "CREATE INDEX IF NOT EXISTS idx_invitations_expires_at ON invitations (expires_at)";
+
+		// One row per (user, role); the role index turns role checks and role filters into lookups
+		String userRolesTable = "CREATE TABLE IF NOT EXISTS user_roles ("
+				+ "user_id INT NOT NULL REFERENCES cse360users(id) ON DELETE CASCADE, "
+				+ "role VARCHAR(50) NOT NULL, "
+				+ "position SMALLINT NOT NULL, "
+				+ "PRIMARY KEY (user_id, role))";
+		String userRolesIndex = "CREATE INDEX IF NOT EXISTS idx_user_roles_role ON user_roles (role, user_id)";
+
+		// Server-side keys, created once and kept across restarts
+		String secretsTable = "CREATE TABLE IF NOT EXISTS app_secrets ("
+				+ "name VARCHAR(50) PRIMARY KEY, "
+				+ "secret VARCHAR(255) NOT NULL)";
+
+		try (PooledConnection conn = borrowConnection();
+			 Statement statement = conn.createStatement()) {
+			statement.execute(userTable);
+			statement.execute(otpCounter);
+			statement.execute(invitationTable);
+			statement.execute(invitationExpiry);
+			statement.execute(invitationExpiryIndex);
+			statement.execute(userRolesTable);
+			statement.execute(userRolesIndex);
+			statement.execute(secretsTable);
+		}
+	}
 
 	/**
-	 * Checks if the database is empty.
+	 * Loads the OTP key, creating it on first start, and clears plaintext codes stored by
+	 * earlier versions. Those codes no longer verify; users still locked to an OTP by an
+	 * admin reset need a new code from an admin.
 	 * 
-	 * @return true if the database is empty, false otherwise
 	 * @throws SQLException if a database access error occurs
 	 */
-	public boolean isDatabaseEmpty() throws SQLException {
-		String query = "SELECT COUNT(*) AS count FROM cse360users";
-		ResultSet resultSet = statement.executeQuery(query);
-		if (resultSet.next()) {
-			return resultSet.getInt("count") == 0;
+	private void startOtpService() throws SQLException {
+		otpService = new OtpService(loadSecret("otp"));
+		try (PooledConnection conn = borrowConnection()) {
+			conn.prepare("UPDATE cse360users SET otp = NULL, otp_expiration = NULL WHERE otp IS NOT NULL").executeUpdate();
 		}
-		return true;
 	}
 
 	/**
-	 * Registers a new user in the database.
+	 * Gives invitations created before expiry existed a full lifetime from now, and
+	 * schedules the periodic purge of used and expired invitations.
 	 * 
-	 * @param username the username of the new user
-	 * @param password the password of the new user
-	 * @param roles the roles assigned to the new user
 	 * @throws SQLException if a database access error occurs
 	 */
-	public void register(String username, char[] password, String roles) throws SQLException {
-		String insertUser = "INSERT INTO cse360users (username, password, roles, profile_complete) VALUES (?, ?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
-			pstmt.setString(1, username);
-			pstmt.setString(2, hashPassword(password));
-			pstmt.setString(3, roles);
-			pstmt.setBoolean(4, false);
+	private void startInvitationPurge() throws SQLException {
+		try (PooledConnection conn = borrowConnection()) {
+			PreparedStatement pstmt = conn.prepare("UPDATE invitations SET expires_at = ? WHERE expires_at IS NULL");
+			pstmt.setTimestamp(1, invitationExpiry());
 			pstmt.executeUpdate();
 		}
+		if (INVITATION_PURGE_INTERVAL_MILLIS > 0) {
+			maintenance.scheduleWithFixedDelay(() -> {
+				try {
+					purgeInvitations(INVITATION_PURGE_BATCH_SIZE);
+				} catch (SQLException e) {
+					System.err.println("Invitation purge failed: " + e.getMessage());
+				}
+			}, INVITATION_PURGE_INTERVAL_MILLIS, INVITATION_PURGE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+		}
 	}
 
 	/**
-	 * Creates a new invitation in the database.
-	 * 
-	 * @param invitationCode the unique invitation code
-	 * @param roles the roles associated with the invitation
-	 * @throws SQLException if a database access error occurs
+	 * Instruments the pool's connections to log statements slower than the configured
+	 * threshold, if one is set.
 	 */
-	public void createInvitation(String invitationCode, String roles) throws SQLException {
-		String insertInvitation = "INSERT INTO invitations (invitation_code, roles) VALUES (?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertInvitation)) {
-			pstmt.setString(1, invitationCode);
-			pstmt.setString(2, roles);
-			pstmt.executeUpdate();
+	private void startSlowQueryLog() {
+		if (SlowQueryLog.DEFAULT_THRESHOLD_MILLIS <= 0) {
+			return;
 		}
+		slowQueryLog = new SlowQueryLog(SlowQueryLog.DEFAULT_THRESHOLD_MILLIS,
+				() -> DriverManager.getConnection(dbUrl, USER, PASS), System.err);
+		pool.setConnectionWrapper(slowQueryLog::instrument);
 	}
 
 	/**
-	 * Retrieves the roles associated with an invitation code.
+	 * Publishes the operation timers, the connection pool's wait, hold and query times, and the
+	 * counters of the throttler, sessions, OTPs and hashing, over JMX and, if a port is
+	 * configured, as Prometheus text.
+	 */
+	private void startMetrics() {
+		metrics.timer("db.connectionWait", pool.getWaitTimes());
+		metrics.timer("db.connectionHold", pool.getHoldTimes());
+		metrics.timer("db.query", pool.getQueryTimes());
+		metrics.counter("db.borrowTimeouts", pool::getTimeoutCount);
+		metrics.counter("login.allowed", loginThrottler::getAllowedCount);
+		metrics.counter("login.throttled.user", loginThrottler::getUserLimitedCount);
+		metrics.counter("login.throttled.global", loginThrottler::getGlobalLimitedCount);
+		metrics.counter("sessions.created", sessionManager::getCreatedCount);
+		metrics.counter("sessions.revoked", sessionManager::getRevokedCount);
+		metrics.counter("sessions.expired", sessionManager::getExpiredCount);
+		metrics.counter("sessions.refused", sessionManager::getRefusedCount);
+		metrics.counter("otp.issued", otpService::getIssuedCount);
+		metrics.counter("otp.accepted", otpService::getAcceptedCount);
+		metrics.counter("otp.rejected", otpService::getRejectedCount);
+		metrics.counter("hashing.rejected", hashingService::getRejectedCount);
+		metrics.counter("rehash.failures", rehashFailures::sum);
+		if (slowQueryLog != null) {
+			metrics.counter("slowQuery.logged", slowQueryLog::getLoggedCount);
+			metrics.counter("slowQuery.dropped", slowQueryLog::getDroppedCount);
+		}
+		metrics.publish();
+	}
+
+	/**
+	 * Reads a server-side key, generating and storing a random 256-bit key the first time.
+	 * Concurrent first starts agree on one key, since only the first insert takes effect.
 	 * 
-	 * @param invitationCode the invitation code to check
-	 * @return the roles associated with the invitation code, or null if not found
+	 * @param name the name of the key
+	 * @return the key
 	 * @throws SQLException if a database access error occurs
 	 */
-	public String getInvitationRoles(String invitationCode) throws SQLException {
-		String query = "SELECT roles FROM invitations WHERE invitation_code = ? AND is_used = FALSE";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, invitationCode);
+	private byte[] loadSecret(String name) throws SQLException {
+		String insert = "INSERT INTO app_secrets (name, secret) SELECT ?, ? FROM DUAL "
+				+ "WHERE NOT EXISTS (SELECT 1 FROM app_secrets WHERE name = ?)";
+		String select = "SELECT secret FROM app_secrets WHERE name = ?";
+		byte[] generated = new byte[32];
+		new SecureRandom().nextBytes(generated);
+		try (PooledConnection conn = borrowConnection()) {
+			PreparedStatement pstmt = conn.prepare(insert);
+			pstmt.setString(1, name);
+			pstmt.setString(2, Base64.getEncoder().encodeToString(generated));
+			pstmt.setString(3, name);
+			try {
+				pstmt.executeUpdate();
+			} catch (SQLException e) {
+				if (!"23505".equals(e.getSQLState())) {
+					throw e;
+				}
+			}
+			pstmt = conn.prepare(select);
+			pstmt.setString(1, name);
 			try (ResultSet rs = pstmt.executeQuery()) {
-				if (rs.next()) {
-					return rs.getString("roles");
+				if (!rs.next()) {
+					throw new SQLException("Secret " + name + " could not be created");
 				}
+				return Base64.getDecoder().decode(rs.getString("secret"));
 			}
 		}
-		return null;
 	}
 
 	/**
-	 * Marks an invitation as used in the database.
+	 * Copies roles from the legacy comma-separated {@code cse360users.roles} column into
+	 * {@code user_roles} for users that have no rows there yet. Users are migrated in
+	 * short transactions of {@link #ROLE_MIGRATION_BATCH_SIZE}, so the tables are never
+	 * locked for long, and the copy is idempotent, so an interrupted run simply resumes
+	 * on the next start. The legacy column keeps being written alongside the new table.
 	 * 
-	 * @param invitationCode the invitation code to mark as used
+	 * @return the number of users migrated
 	 * @throws SQLException if a database access error occurs
 	 */
-	public void markInvitationAsUsed(String invitationCode) throws SQLException {
-		String updateInvitation = "UPDATE invitations SET is_used = TRUE WHERE invitation_code = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(updateInvitation)) {
-			pstmt.setString(1, invitationCode);
-			pstmt.executeUpdate();
+	int migrateRoles() throws SQLException {
+		String pending = "SELECT id, roles FROM cse360users u WHERE id > ? AND roles IS NOT NULL AND roles <> '' "
+				+ "AND NOT EXISTS (SELECT 1 FROM user_roles r WHERE r.user_id = u.id) ORDER BY id LIMIT ?";
+		String copy = "MERGE INTO user_roles (user_id, role, position) KEY (user_id, role) VALUES (?, ?, ?)";
+		int migrated = 0;
+		int lastId = 0;
+		while (true) {
+			int afterId = lastId;
+			int[] batch = inTransaction(() -> {
+				int users = 0;
+				int maxId = afterId;
+				try (PooledConnection conn = borrowConnection()) {
+					PreparedStatement select = conn.prepare(pending);
+					select.setInt(1, afterId);
+					select.setInt(2, ROLE_MIGRATION_BATCH_SIZE);
+					PreparedStatement insert = conn.prepare(copy);
+					try (ResultSet rs = select.executeQuery()) {
+						while (rs.next()) {
+							maxId = rs.getInt("id");
+							users++;
+							String[] roles = normalizeRoles(rs.getString("roles"));
+							for (int i = 0; i < roles.length; i++) {
+								insert.setInt(1, maxId);
+								insert.setString(2, roles[i]);
+								insert.setInt(3, i);
+								insert.addBatch();
+							}
+						}
+					}
+					insert.executeBatch();
+				}
+				return new int[]{users, maxId};
+			});
+			migrated += batch[0];
+			if (batch[0] < ROLE_MIGRATION_BATCH_SIZE) {
+				break;
+			}
+			lastId = batch[1];
 		}
+		if (migrated > 0) {
+			userCache.invalidateAll();
+			System.out.println("Migrated roles of " + migrated + " users to user_roles.");
+		}
+		return migrated;
 	}
 
 	/**
-	 * Resets a user's password and sets up OTP authentication.
+	 * Loads the username filter and schedules its periodic rebuild.
 	 * 
-	 * @param username the username of the user
-	 * @param otp the one-time password
-	 * @param expirationTime the expiration time for the OTP
-	 * @throws SQLException if a database access error occurs
+	 * @throws SQLException if the usernames cannot be read
 	 */
-	public void resetUserPassword(String username, String otp, Timestamp expirationTime) throws SQLException {
-		String query = "UPDATE cse360users SET otp = ?, otp_expiration = ?, is_otp_password = TRUE WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, otp);
-			pstmt.setTimestamp(2, expirationTime);
-			pstmt.setString(3, username);
-			pstmt.executeUpdate();
+	private void startUsernameFilter() throws SQLException {
+		usernameFilter.rebuild();
+		if (USERNAME_FILTER_REBUILD_MILLIS > 0) {
+			maintenance.scheduleWithFixedDelay(() -> {
+				try {
+					usernameFilter.rebuild();
+				} catch (SQLException e) {
+					System.err.println("Username filter rebuild failed: " + e.getMessage());
+				}
+			}, USERNAME_FILTER_REBUILD_MILLIS, USERNAME_FILTER_REBUILD_MILLIS, TimeUnit.MILLISECONDS);
 		}
 	}
 
 	/**
-	 * Deletes a user from the database.
-	 * 
-	 * @param username the username of the user to delete
-	 * @throws SQLException if a database access error occurs
+	 * Schedules the periodic eviction of idle login throttling buckets.
 	 */
-	public void deleteUser(String username) throws SQLException {
-		String query = "DELETE FROM cse360users WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-			pstmt.executeUpdate();
+	private void startLoginThrottler() {
+		if (LOGIN_THROTTLE_EVICT_MILLIS > 0) {
+			maintenance.scheduleWithFixedDelay(loginThrottler::evictIdle,
+					LOGIN_THROTTLE_EVICT_MILLIS, LOGIN_THROTTLE_EVICT_MILLIS, TimeUnit.MILLISECONDS);
 		}
 	}
-	
+
+	/**
+	 * Schedules the periodic removal of abandoned, expired sessions.
+	 */
+	private void startSessionSweeper() {
+		if (SESSION_SWEEP_MILLIS > 0) {
+			maintenance.scheduleWithFixedDelay(sessionManager::evictExpired,
+					SESSION_SWEEP_MILLIS, SESSION_SWEEP_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private int countUsernames() throws SQLException {
+		try (PooledConnection conn = borrowConnection();
+			 ResultSet rs = conn.prepare("SELECT COUNT(*) AS count FROM cse360users").executeQuery()) {
+			return rs.next() ? rs.getInt("count") : 0;
+		}
+	}
+
+	private void forEachUsername(Consumer<String> sink) throws SQLException {
+		streamRows("SELECT username FROM cse360users", rs -> sink.accept(rs.getString("username")));
+	}
+
 	/**
-	 * Updates the roles of a user in the database.
+	 * Makes a new username visible to the username filter. Called before the insert, so
+	 * lookups never miss a user being created, and again after the transaction completes,
+	 * so a filter rebuild that ran concurrently cannot miss it either.
 	 * 
-	 * @param username the username of the user
-	 * @param newRoles the new roles to assign to the user
-	 * @throws SQLException if a database access error occurs
+	 * @param username the username being created
 	 */
-	public void updateUserRoles(String username, String newRoles) throws SQLException {
-		String query = "UPDATE cse360users SET roles = ? WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, newRoles);
-			pstmt.setString(2, username);
-			pstmt.executeUpdate();
+	private void noteNewUsername(String username) {
+		usernameFilter.put(username);
+		Transaction tx = currentTransaction.get();
+		if (tx != null) {
+			tx.newUsernames.add(username);
 		}
 	}
 
 	/**
-	 * Authenticates a user's login credentials.
+	 * Looks up the cached attributes of a user, skipping the cache and the database
+	 * for usernames the filter knows do not exist.
+	 */
+	private UserAttributeCache.UserAttributes attributesOf(String username) throws SQLException {
+		if (!usernameFilter.mightContain(username)) {
+			return UserAttributeCache.UserAttributes.MISSING;
+		}
+		return userCache.get(username);
+	}
+
+	/**
+	 * Checks if the database is empty.
 	 * 
-	 * @param username the username of the user
-	 * @param password the password of the user
-	 * @return true if the login is successful, false otherwise
+	 * @return true if the database is empty, false otherwise
 	 * @throws SQLException if a database access error occurs
 	 */
-	public boolean login(String username, char[] password) throws SQLException {
-		String query = "SELECT password FROM cse360users WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-			try (ResultSet rs = pstmt.executeQuery()) {
-				if (rs.next()) {
-					String storedHash = rs.getString("password");
-					return checkPassword(password, storedHash);
+	public boolean isDatabaseEmpty() throws SQLException {
+		return metrics.time("isDatabaseEmpty", () -> {
+			String query = "SELECT COUNT(*) AS count FROM cse360users";
+			try (PooledConnection conn = borrowConnection();
+				 ResultSet resultSet = conn.prepare(query).executeQuery()) {
+				if (resultSet.next()) {
+					return resultSet.getInt("count") == 0;
 				}
 			}
-		} finally {
-			Arrays.fill(password, '\0');
-		}
-		return false;
+			return true;
+		});
 	}
 
 	/**
-	 * Checks if a user's password is set to OTP.
+	 * Registers a new user in the database.
 	 * 
-	 * @param username the username of the user
-	 * @return true if the user's password is set to OTP, false otherwise
+	 * @param username the username of the new user
+	 * @param password the password of the new user
+	 * @param roles the roles assigned to the new user
 	 * @throws SQLException if a database access error occurs
 	 */
-	public boolean isOTPPasswordSet(String username) throws SQLException {
-		String query = "SELECT is_otp_password FROM cse360users WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-			try (ResultSet rs = pstmt.executeQuery()) {
-				if (rs.next()) {
-					return rs.getBoolean("is_otp_password");
-				}
-			}
-		}
-		return false;
+	public void register(String username, char[] password, String roles) throws SQLException {
+		metrics.run("register", () -> {
+			String hashedPassword = hashPassword(password); // Hash before checking out a connection
+			insertUser(username, hashedPassword, roles);
+		});
 	}
 
 	/**
-	 * Retrieves the roles of a user from the database.
+	 * Registers a new user asynchronously. The password is hashed on the hashing pool and
+	 * the insert runs on the database pool. The password array is cleared once hashed.
 	 * 
-	 * @param username the username of the user
-	 * @return an array of roles assigned to the user
+	 * @param username the username of the new user
+	 * @param password the password of the new user
+	 * @param roles the roles assigned to the new user
+	 * @return a future that completes when the user is stored, or fails with the
+	 *         {@link SQLException} or hashing rejection that stopped it
+	 */
+	public CompletableFuture<Void> registerAsync(String username, char[] password, String roles) {
+		return metrics.timeAsync("registerAsync", hashingService.hash(password)
+				.thenAcceptAsync(hashedPassword -> runSql(() -> insertUser(username, hashedPassword, roles)), databaseExecutor));
+	}
+
+	/**
+	 * Inserts a new user row with an already-hashed password.
+	 * 
+	 * @param username the username of the new user
+	 * @param hashedPassword the stored form of the user's password
+	 * @param roles the roles assigned to the new user
 	 * @throws SQLException if a database access error occurs
 	 */
-	public String[] getUserRoles(String username) throws SQLException {
-		String query = "SELECT roles FROM cse360users WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-			try (ResultSet rs = pstmt.executeQuery()) {
-				if (rs.next()) {
-					String rolesString = rs.getString("roles");
-					return rolesString.split(",");
+	private void insertUser(String username, String hashedPassword, String roles) throws SQLException {
+		String insertUser = "INSERT INTO cse360users (username, password, roles, profile_complete) VALUES (?, ?, ?, ?)";
+		String[] roleList = normalizeRoles(roles);
+		try {
+			inTransaction(() -> {
+				noteNewUsername(username);
+				try (PooledConnection conn = borrowConnection()) {
+					PreparedStatement pstmt = conn.prepare(insertUser);
+					pstmt.setString(1, username);
+					pstmt.setString(2, hashedPassword);
+					pstmt.setString(3, String.join(",", roleList));
+					pstmt.setBoolean(4, false);
+					pstmt.executeUpdate();
 				}
-			}
+				insertRoles(username, roleList);
+				return null;
+			});
+		} finally {
+			invalidateUser(username);
 		}
-		return new String[]{}; // Return an empty array if no roles are found
 	}
 
 	/**
-	 * Checks if a user's profile is complete.
+	 * Redeems an invitation and registers the new user in a single transaction. The
+	 * invitation is claimed with a conditional update, so when two registrations race for
+	 * the same code exactly one succeeds; if the user cannot be inserted (for example the
+	 * username is taken) the claim is rolled back and the code stays usable. The password
+	 * is hashed before the transaction starts so no locks are held during hashing.
 	 * 
-	 * @param username the username of the user
-	 * @return true if the user's profile is complete, false otherwise
+	 * @param invitationCode the invitation code being redeemed
+	 * @param username the username of the new user
+	 * @param password the password of the new user; cleared once hashed
+	 * @return the roles granted by the invitation, or null if the code is invalid, used or expired
 	 * @throws SQLException if a database access error occurs
 	 */
-	public boolean isProfileComplete(String username) throws SQLException {
-		String query = "SELECT profile_complete FROM cse360users WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-			try (ResultSet rs = pstmt.executeQuery()) {
-				if (rs.next()) {
-					return rs.getBoolean("profile_complete");
+	public String redeemInvitationAndRegister(String invitationCode, String username, char[] password) throws SQLException {
+		return metrics.time("redeemInvitationAndRegister", () -> {
+			String hashedPassword;
+			try {
+				if (getInvitationRoles(invitationCode) == null) {
+					return null; // Cheap rejection of used or unknown codes before paying for the hash
 				}
+				hashedPassword = hashPassword(password);
+			} finally {
+				Arrays.fill(password, '\0');
 			}
-		}
-		return false;
+			String claim = "UPDATE invitations SET is_used = TRUE WHERE invitation_code = ? AND is_used = FALSE AND expires_at > ?";
+			String rolesQuery = "SELECT roles FROM invitations WHERE invitation_code = ?";
+			return inTransaction(() -> {
+				String roles = null;
+				try (PooledConnection conn = borrowConnection()) {
+					PreparedStatement pstmt = conn.prepare(claim);
+					pstmt.setString(1, invitationCode);
+					pstmt.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+					if (pstmt.executeUpdate() == 0) {
+						return null; // Unknown or expired code, or another registration claimed it first
+					}
+					pstmt = conn.prepare(rolesQuery);
+					pstmt.setString(1, invitationCode);
+					try (ResultSet rs = pstmt.executeQuery()) {
+						if (rs.next()) {
+							roles = rs.getString("roles");
+						}
+					}
+				}
+				insertUser(username, hashedPassword, roles);
+				return roles;
+			});
+		});
 	}
 
 	/**
-	 * Updates a user's profile information in the database.
+	 * Creates a new invitation in the database, valid for {@link #INVITATION_TTL_MILLIS}.
 	 * 
-	 * @param username the username of the user
-	 * @param email the user's email address
-	 * @param firstName the user's first name
-	 * @param middleName the user's middle name (optional)
-	 * @param lastName the user's last name
-	 * @param preferredName the user's preferred name (optional)
+	 * @param invitationCode the unique invitation code
+	 * @param roles the roles associated with the invitation
 	 * @throws SQLException if a database access error occurs
 	 */
-	public void updateProfile(String username, String email, String firstName, String middleName, String lastName, String preferredName) throws SQLException {
-		String query = "UPDATE cse360users SET email = ?, first_name = ?, middle_name = ?, last_name = ?, preferred_name = ?, profile_complete = TRUE WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, email);
-			pstmt.setString(2, firstName);
-			pstmt.setString(3, middleName != null && !middleName.trim().isEmpty() ? middleName : null);
-			pstmt.setString(4, lastName);
-			pstmt.setString(5, preferredName != null && !preferredName.trim().isEmpty() ? preferredName : null);
-			pstmt.setString(6, username);
-			pstmt.executeUpdate();
-		}
+	public void createInvitation(String invitationCode, String roles) throws SQLException {
+		metrics.run("createInvitation", () -> {
+			createInvitation(invitationCode, roles, invitationExpiry());
+		});
 	}
 
 	/**
-	 * Checks if a user exists in the database.
+	 * Creates a new invitation in the database.
 	 * 
-	 * @param username the username to check
-	 * @return true if the user exists, false otherwise
+	 * @param invitationCode the unique invitation code
+	 * @param roles the roles associated with the invitation
+	 * @param expiresAt the time after which the invitation can no longer be redeemed
+	 * @throws SQLException if a database access error occurs
 	 */
-	public boolean doesUserExist(String username) {
-		String query = "SELECT COUNT(*) FROM cse360users WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-			ResultSet rs = pstmt.executeQuery();
-			
-			if (rs.next()) {
-				return rs.getInt(1) > 0;
-			}
-		} catch (SQLException e) {
-			e.printStackTrace();
+	void createInvitation(String invitationCode, String roles, Timestamp expiresAt) throws SQLException {
+		String insertInvitation = "INSERT INTO invitations (invitation_code, roles, expires_at) VALUES (?, ?, ?)";
+		try (PooledConnection conn = borrowConnection()) {
+			PreparedStatement pstmt = conn.prepare(insertInvitation);
+			pstmt.setString(1, invitationCode);
+			pstmt.setString(2, roles);
+			pstmt.setTimestamp(3, expiresAt);
+			pstmt.executeUpdate();
 		}
-		return false;
+	}
+
+	private static Timestamp invitationExpiry() {
+		return new Timestamp(System.currentTimeMillis() + INVITATION_TTL_MILLIS);
 	}
 
 	/**
-	 * Displays a list of all users for admin view.
+	 * Creates many invitations for the same roles in one transaction, inserting them with
+	 * JDBC batches. Codes are checked for duplicates within the run, and any code the
+	 * unique constraint rejects is replaced with a fresh one, so exactly {@code count}
+	 * invitations are created or none are. All of them expire after {@link #INVITATION_TTL_MILLIS}.
 	 * 
+	 * @param count the number of invitations to create
+	 * @param roles the roles granted by every invitation
+	 * @param generator the source of new codes
+	 * @return the created invitation codes
 	 * @throws SQLException if a database access error occurs
 	 */
-	public void displayUsersByAdmin() throws SQLException {
-		String sql = "SELECT username, first_name, last_name, roles FROM cse360users";
-		try (Statement stmt = connection.createStatement();
-			 ResultSet rs = stmt.executeQuery(sql)) {
-			System.out.println("User List:");
-			System.out.printf("%-20s %-20s %-20s %-20s%n", "Username", "First Name", "Last Name", "Roles");
-			System.out.println("-".repeat(80));
-			while (rs.next()) {
-				String username = rs.getString("username");
-				String firstName = rs.getString("first_name");
-				String lastName = rs.getString("last_name");
-				String roles = rs.getString("roles");
-				System.out.printf("%-20s %-20s %-20s %-20s%n", username, firstName, lastName, roles);
+	public List<String> createInvitations(int count, String roles, InvitationCodeGenerator generator) throws SQLException {
+		return metrics.time("createInvitations", () -> {
+			String insertInvitation = "INSERT INTO invitations (invitation_code, roles, expires_at) VALUES (?, ?, ?)";
+			String storedRoles = String.join(",", normalizeRoles(roles));
+			Timestamp expiresAt = invitationExpiry();
+			return inTransaction(() -> {
+				Set<String> codes = new LinkedHashSet<>(count * 2);
+				try (PooledConnection conn = borrowConnection()) {
+					PreparedStatement pstmt = conn.prepare(insertInvitation);
+					List<String> pending = new ArrayList<>(INVITATION_BATCH_SIZE);
+					while (codes.size() < count) {
+						String code = generator.nextCode();
+						if (codes.add(code)) {
+							pending.add(code);
+						}
+						if (pending.size() == INVITATION_BATCH_SIZE || codes.size() == count) {
+							for (String rejected : insertInvitationBatch(pstmt, pending, storedRoles, expiresAt)) {
+								codes.remove(rejected); // Taken by an existing invitation; the loop generates a replacement
+							}
+							pending.clear();
+						}
+					}
+				}
+				return new ArrayList<>(codes);
+			});
+		});
+	}
+
+	/**
+	 * Executes one batch of invitation inserts.
+	 * 
+	 * @return the codes that already existed and were not inserted
+	 */
+	private static List<String> insertInvitationBatch(PreparedStatement pstmt, List<String> codes, String roles,
+			Timestamp expiresAt) throws SQLException {
+		for (String code : codes) {
+			pstmt.setString(1, code);
+			pstmt.setString(2, roles);
+			pstmt.setTimestamp(3, expiresAt);
+			pstmt.addBatch();
+		}
+		List<String> rejected = new ArrayList<>();
+		try {
+			pstmt.executeBatch();
+		} catch (BatchUpdateException e) {
+			int[] counts = e.getUpdateCounts();
+			SQLException cause = e.getNextException();
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] == Statement.EXECUTE_FAILED) {
+					SQLException failure = cause != null ? cause : e;
+					if (!"23505".equals(failure.getSQLState())) {
+						throw failure;
+					}
+					rejected.add(codes.get(i));
+					cause = cause != null ? cause.getNextException() : null;
+				}
 			}
 		}
+		return rejected;
 	}
 
 	/**
-	 * Displays user details for a specific user.
+	 * Retrieves the roles associated with an invitation code.
 	 * 
-	 * @param userEmail the email of the user to display
+	 * @param invitationCode the invitation code to check
+	 * @return the roles associated with the invitation code, or null if not found, used or expired
 	 * @throws SQLException if a database access error occurs
 	 */
-	public void displayUsersByUser(String userEmail) throws SQLException {
-		String sql = "SELECT * FROM cse360users WHERE email = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-			pstmt.setString(1, userEmail);
-			try (ResultSet rs = pstmt.executeQuery()) {
-				if (rs.next()) {
-					// Retrieve by column name
-					int id = rs.getInt("id");
-					String email = rs.getString("email");
-					String firstName = rs.getString("first_name");
-					String lastName = rs.getString("last_name");
-					String preferredName = rs.getString("preferred_name");
-					String username = rs.getString("user_name");
-					String role = rs.getString("role");
-
-					// Display values
-					System.out.println("User Details:");
-					System.out.println("ID: " + id);
-					System.out.println("Email: " + email);
-					System.out.println("First Name: " + firstName);
-					System.out.println("Last Name: " + lastName);
-					System.out.println("Preferred Name: " + preferredName);
-					System.out.println("Username: " + username);
-					System.out.println("Role: " + role);
-				} else {
-					System.out.println("No user found with the email: " + userEmail);
+	public String getInvitationRoles(String invitationCode) throws SQLException {
+		return metrics.time("getInvitationRoles", () -> {
+			String query = "SELECT roles FROM invitations WHERE invitation_code = ? AND is_used = FALSE AND expires_at > ?";
+			try (PooledConnection conn = borrowConnection()) {
+				PreparedStatement pstmt = conn.prepare(query);
+				pstmt.setString(1, invitationCode);
+				pstmt.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+				try (ResultSet rs = pstmt.executeQuery()) {
+					if (rs.next()) {
+						return rs.getString("roles");
+					}
 				}
 			}
-		}
+			return null;
+		});
 	}
 
 	/**
-	 * Sets a one-time password (OTP) for a user.
-	 *
-	 * @param email The email of the user
-	 * @param otp The one-time password to set
+	 * Marks an invitation as used in the database.
+	 * 
+	 * @param invitationCode the invitation code to mark as used
 	 * @throws SQLException if a database access error occurs
 	 */
-	public void setOTP(String email, String otp) throws SQLException {
-        String query = "UPDATE cse360users SET otp = ?, is_otp_password = TRUE WHERE email = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, otp);
-            pstmt.setString(2, email);
-            pstmt.executeUpdate();
-        }
-    }
+	public void markInvitationAsUsed(String invitationCode) throws SQLException {
+		metrics.run("markInvitationAsUsed", () -> {
+			String updateInvitation = "UPDATE invitations SET is_used = TRUE WHERE invitation_code = ?";
+			try (PooledConnection conn = borrowConnection()) {
+				PreparedStatement pstmt = conn.prepare(updateInvitation);
+				pstmt.setString(1, invitationCode);
+				pstmt.executeUpdate();
+			}
+		});
+	}
 
 	/**
-	 * Verifies the one-time password (OTP) for a user.
-	 *
-	 * @param username The username of the user
-	 * @param otp The one-time password to verify
-	 * @return true if the OTP is valid, false otherwise
+	 * Deletes used and expired invitations. The table is walked in primary key order and
+	 * each batch is deleted in its own short transaction, so redemptions are never kept
+	 * waiting behind a large delete. Only rows no redemption can claim are locked.
+	 * 
+	 * @param batchSize the most invitations deleted per transaction
+	 * @return the number of invitations deleted
 	 * @throws SQLException if a database access error occurs
 	 */
-	public boolean verifyOTP(String username, String otp) throws SQLException {
-		String query = "SELECT * FROM cse360users WHERE username = ? AND otp = ? AND is_otp_password = TRUE";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-			pstmt.setString(2, otp);
-			try (ResultSet rs = pstmt.executeQuery()) {
-				return rs.next();
+	int purgeInvitations(int batchSize) throws SQLException {
+		String select = "SELECT id FROM invitations WHERE id > ? AND (is_used = TRUE OR expires_at <= ?) ORDER BY id LIMIT ?";
+		String delete = "DELETE FROM invitations WHERE id BETWEEN ? AND ? AND (is_used = TRUE OR expires_at <= ?)";
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		long start = System.nanoTime();
+		int purged = 0;
+		int lastId = 0;
+		while (true) {
+			int afterId = lastId;
+			// {rows found, rows deleted, last id}
+			int[] batch = inTransaction(() -> {
+				int found = 0;
+				int firstId = 0;
+				int maxId = afterId;
+				try (PooledConnection conn = borrowConnection()) {
+					PreparedStatement pstmt = conn.prepare(select);
+					pstmt.setInt(1, afterId);
+					pstmt.setTimestamp(2, now);
+					pstmt.setInt(3, batchSize);
+					try (ResultSet rs = pstmt.executeQuery()) {
+						while (rs.next()) {
+							maxId = rs.getInt("id");
+							if (found++ == 0) {
+								firstId = maxId;
+							}
+						}
+					}
+					if (found == 0) {
+						return new int[]{0, 0, maxId};
+					}
+					pstmt = conn.prepare(delete);
+					pstmt.setInt(1, firstId);
+					pstmt.setInt(2, maxId);
+					pstmt.setTimestamp(3, now);
+					return new int[]{found, pstmt.executeUpdate(), maxId};
+				}
+			});
+			if (batch[0] > 0) {
+				invitationPurgeBatches.increment();
+			}
+			purged += batch[1];
+			lastId = batch[2];
+			if (batch[0] < batchSize) {
+				break;
 			}
 		}
+		invitationsPurged.add(purged);
+		invitationPurgeRuns.increment();
+		lastInvitationPurgeNanos = System.nanoTime() - start;
+		return purged;
 	}
 
 	/**
-	 * Resets a user's password by setting a one-time password (OTP). Used by admin.
-	 *
-	 * @param username The username of the user
-	 * @param otp The one-time password to set
+	 * Counts the invitations in the table by state, for monitoring its size.
+	 * 
+	 * @return the invitation counts
 	 * @throws SQLException if a database access error occurs
 	 */
-	public void resetUserPasswordByAdmin(String username, String otp) throws SQLException {
-		String query = "UPDATE cse360users SET otp = ?, is_otp_password = TRUE WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, otp);
-			pstmt.setString(2, username);
-			pstmt.executeUpdate();
+	InvitationCounts getInvitationCounts() throws SQLException {
+		String query = "SELECT COUNT(*) AS total, "
+				+ "COALESCE(SUM(CASE WHEN is_used THEN 1 ELSE 0 END), 0) AS used, "
+				+ "COALESCE(SUM(CASE WHEN NOT is_used AND expires_at <= ? THEN 1 ELSE 0 END), 0) AS expired "
+				+ "FROM invitations";
+		try (PooledConnection conn = borrowConnection()) {
+			PreparedStatement pstmt = conn.prepare(query);
+			pstmt.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+			try (ResultSet rs = pstmt.executeQuery()) {
+				rs.next();
+				return new InvitationCounts(rs.getLong("total"), rs.getLong("used"), rs.getLong("expired"));
+			}
 		}
 	}
-	
+
 	/**
-	 * Resets a user's password with a new password.
-	 *
-	 * @param username The username of the user
-	 * @param newPassword The new password to set
-	 * @throws SQLException if a database access error occurs
+	 * The number of invitations in each state.
 	 */
-	public void resetPassword(String username, char[] newPassword) throws SQLException {
-		String query = "UPDATE cse360users SET password = ?, otp = NULL, is_otp_password = FALSE WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, hashPassword(newPassword));
+	static class InvitationCounts {
+		final long total;
+		final long used;
+		final long expired;
+
+		InvitationCounts(long total, long used, long expired) {
+			this.total = total;
+			this.used = used;
+			this.expired = expired;
+		}
+
+		/** @return the invitations that can still be redeemed */
+		long getActive() {
+			return total - used - expired;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("InvitationCounts[total=%d, active=%d, used=%d, expired=%d]",
+					total, getActive(), used, expired);
+		}
+	}
+
+	/**
+	 * Deletes a user from the database and ends their sessions.
+	 * 
+	 * @param username the username of the user to delete
+	 * @throws SQLException if a database access error occurs
+	 */
+	public void deleteUser(String username) throws SQLException {
+		metrics.run("deleteUser", () -> {
+			String query = "DELETE FROM cse360users WHERE username = ?";
+			try (PooledConnection conn = borrowConnection()) {
+				PreparedStatement pstmt = conn.prepare(query);
+				pstmt.setString(1, username);
+				pstmt.executeUpdate();
+			} finally {
+				invalidateUser(username);
+				revokeSessions(username);
+			}
+		});
+	}
+	
+	/**
+	 * Updates the roles of a user in the database. The user's sessions are ended, since
+	 * they hold the old roles.
+	 * 
+	 * @param username the username of the user
+	 * @param newRoles the new roles to assign to the user
+	 * @throws SQLException if a database access error occurs
+	 */
+	public void updateUserRoles(String username, String newRoles) throws SQLException {
+		metrics.run("updateUserRoles", () -> {
+			String query = "UPDATE cse360users SET roles = ? WHERE username = ?";
+			String deleteRoles = "DELETE FROM user_roles WHERE user_id = (SELECT id FROM cse360users WHERE username = ?)";
+			String[] roleList = normalizeRoles(newRoles);
+			try {
+				inTransaction(() -> {
+					try (PooledConnection conn = borrowConnection()) {
+						PreparedStatement pstmt = conn.prepare(query);
+						pstmt.setString(1, String.join(",", roleList));
+						pstmt.setString(2, username);
+						pstmt.executeUpdate();
+
+						pstmt = conn.prepare(deleteRoles);
+						pstmt.setString(1, username);
+						pstmt.executeUpdate();
+					}
+					insertRoles(username, roleList);
+					return null;
+				});
+			} finally {
+				invalidateUser(username);
+				revokeSessions(username);
+			}
+		});
+	}
+
+	/**
+	 * Inserts a batch of users with already-hashed passwords in one transaction, using
+	 * JDBC batches for both the user rows and their roles. A row that fails, such as a
+	 * duplicate username or email, is skipped and reported without affecting the rest.
+	 * 
+	 * @param users the users to insert
+	 * @return for each user, null if it was inserted or the reason it was not
+	 * @throws SQLException if the batch cannot be written at all
+	 */
+	String[] insertUsers(List<BulkUserImporter.ImportedUser> users) throws SQLException {
+		String insertUser = "INSERT INTO cse360users (username, password, roles, email, first_name, middle_name, "
+				+ "last_name, preferred_name, profile_complete) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+		String insertRole = "INSERT INTO user_roles (user_id, role, position) SELECT id, ?, ? FROM cse360users WHERE username = ?";
+		try {
+			return inTransaction(() -> {
+				String[] failures = new String[users.size()];
+				try (PooledConnection conn = borrowConnection()) {
+					PreparedStatement pstmt = conn.prepare(insertUser);
+					for (BulkUserImporter.ImportedUser user : users) {
+						noteNewUsername(user.username);
+						pstmt.setString(1, user.username);
+						pstmt.setString(2, user.getHashedPassword());
+						pstmt.setString(3, String.join(",", normalizeRoles(user.roles)));
+						pstmt.setString(4, user.email);
+						pstmt.setString(5, user.firstName);
+						pstmt.setString(6, user.middleName);
+						pstmt.setString(7, user.lastName);
+						pstmt.setString(8, user.preferredName);
+						pstmt.setBoolean(9, user.isProfileComplete());
+						pstmt.addBatch();
+					}
+					try {
+						pstmt.executeBatch();
+					} catch (BatchUpdateException e) {
+						// H2 runs the rest of the batch and chains one exception per failed row, in order
+						int[] counts = e.getUpdateCounts();
+						SQLException cause = e.getNextException();
+						for (int i = 0; i < counts.length; i++) {
+							if (counts[i] == Statement.EXECUTE_FAILED) {
+								failures[i] = describeFailure(cause != null ? cause : e);
+								cause = cause != null ? cause.getNextException() : null;
+							}
+						}
+					}
+
+					// Only add roles for rows that were inserted, so a duplicate never gains roles
+					pstmt = conn.prepare(insertRole);
+					for (int i = 0; i < users.size(); i++) {
+						if (failures[i] != null) {
+							continue;
+						}
+						String[] roles = normalizeRoles(users.get(i).roles);
+						for (int position = 0; position < roles.length; position++) {
+							pstmt.setString(1, roles[position]);
+							pstmt.setInt(2, position);
+							pstmt.setString(3, users.get(i).username);
+							pstmt.addBatch();
+						}
+					}
+					pstmt.executeBatch();
+				}
+				return failures;
+			});
+		} finally {
+			for (BulkUserImporter.ImportedUser user : users) {
+				invalidateUser(user.username);
+			}
+		}
+	}
+
+	/**
+	 * Describes why a row could not be written, without the SQL text H2 appends.
+	 */
+	static String describeFailure(SQLException e) {
+		if ("23505".equals(e.getSQLState())) {
+			return "Username or email is already in use";
+		}
+		String message = e.getMessage();
+		int sqlText = message.indexOf("; SQL statement:");
+		return sqlText >= 0 ? message.substring(0, sqlText) : message;
+	}
+
+	/**
+	 * Adds role rows for an existing user, keeping the order the roles were given in.
+	 * 
+	 * @param username the username of the user
+	 * @param roles the normalized roles to add
+	 * @throws SQLException if a database access error occurs
+	 */
+	private void insertRoles(String username, String[] roles) throws SQLException {
+		if (roles.length == 0) {
+			return;
+		}
+		String insertRole = "INSERT INTO user_roles (user_id, role, position) SELECT id, ?, ? FROM cse360users WHERE username = ?";
+		try (PooledConnection conn = borrowConnection()) {
+			PreparedStatement pstmt = conn.prepare(insertRole);
+			for (int i = 0; i < roles.length; i++) {
+				pstmt.setString(1, roles[i]);
+				pstmt.setInt(2, i);
+				pstmt.setString(3, username);
+				pstmt.addBatch();
+			}
+			pstmt.executeBatch();
+		}
+	}
+
+	/**
+	 * Lists the users holding a role, using the role index rather than scanning every user.
+	 * 
+	 * @param role the role to look for, compared case-insensitively
+	 * @return the usernames holding the role, in alphabetical order
+	 * @throws SQLException if a database access error occurs
+	 */
+	public List<String> getUsernamesByRole(String role) throws SQLException {
+		return metrics.time("getUsernamesByRole", () -> {
+			String query = "SELECT u.username FROM user_roles r JOIN cse360users u ON u.id = r.user_id "
+					+ "WHERE r.role = ? ORDER BY u.username";
+			List<String> usernames = new ArrayList<>();
+			try (PooledConnection conn = borrowConnection()) {
+				PreparedStatement pstmt = conn.prepare(query);
+				pstmt.setString(1, normalizeRole(role));
+				try (ResultSet rs = pstmt.executeQuery()) {
+					while (rs.next()) {
+						usernames.add(rs.getString("username"));
+					}
+				}
+			}
+			return usernames;
+		});
+	}
+
+	/**
+	 * Counts the users holding a role with an index-only lookup.
+	 * 
+	 * @param role the role to look for, compared case-insensitively
+	 * @return the number of users holding the role
+	 * @throws SQLException if a database access error occurs
+	 */
+	public int countUsersByRole(String role) throws SQLException {
+		return metrics.time("countUsersByRole", () -> {
+			String query = "SELECT COUNT(*) AS count FROM user_roles WHERE role = ?";
+			try (PooledConnection conn = borrowConnection()) {
+				PreparedStatement pstmt = conn.prepare(query);
+				pstmt.setString(1, normalizeRole(role));
+				try (ResultSet rs = pstmt.executeQuery()) {
+					return rs.next() ? rs.getInt("count") : 0;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Authenticates a user's login credentials.
+	 * 
+	 * @param username the username of the user
+	 * @param password the password of the user
+	 * @return true if the login is successful, false otherwise
+	 * @throws SQLException if a database access error occurs
+	 */
+	public boolean login(String username, char[] password) throws SQLException {
+		return metrics.check("login", () -> {
+			String query = "SELECT password FROM cse360users WHERE username = ?";
+			try {
+				if (!usernameFilter.mightContain(username)) {
+					return false;
+				}
+				String storedHash = null;
+				try (PooledConnection conn = borrowConnection()) {
+					PreparedStatement pstmt = conn.prepare(query);
+					pstmt.setString(1, username);
+					try (ResultSet rs = pstmt.executeQuery()) {
+						if (rs.next()) {
+							storedHash = rs.getString("password");
+						} else {
+							usernameFilter.recordFalsePositive();
+						}
+					}
+				}
+				// The connection is back in the pool before the slow hash comparison
+				return storedHash != null && verifyAndRehash(username, password, storedHash);
+			} finally {
+				Arrays.fill(password, '\0');
+			}
+		});
+	}
+
+	/**
+	 * Fetches everything the login flow needs for a user in one query on the
+	 * indexed username column.
+	 * 
+	 * @param username the username of the user
+	 * @return the user's login context, or null if the user does not exist
+	 * @throws SQLException if a database access error occurs
+	 */
+	public LoginContext getLoginContext(String username) throws SQLException {
+		return metrics.time("getLoginContext", () -> {
+			String query = "SELECT u.password, u.is_otp_password, u.profile_complete, r.role FROM cse360users u "
+					+ "LEFT JOIN user_roles r ON r.user_id = u.id WHERE u.username = ? ORDER BY r.position";
+			if (!usernameFilter.mightContain(username)) {
+				return null;
+			}
+			// Read first: a change committed after this is revoked after it too, which stops sessions from this context
+			long generation = sessionManager.getGeneration(username);
+			try (PooledConnection conn = borrowConnection()) {
+				PreparedStatement pstmt = conn.prepare(query);
+				pstmt.setString(1, username);
+				try (ResultSet rs = pstmt.executeQuery()) {
+					if (rs.next()) {
+						String passwordHash = rs.getString("password");
+						boolean otpPasswordSet = rs.getBoolean("is_otp_password");
+						boolean profileComplete = rs.getBoolean("profile_complete");
+						return new LoginContext(username, passwordHash, otpPasswordSet, profileComplete, readRoles(rs),
+								generation);
+					}
+				}
+			}
+			usernameFilter.recordFalsePositive();
+			return null;
+		});
+	}
+
+	/**
+	 * Authenticates a user's login credentials asynchronously. The password hash is read on
+	 * the database pool and compared on the hashing pool, so neither blocks the caller.
+	 * The password array is cleared once checked.
+	 * 
+	 * @param username the username of the user
+	 * @param password the password of the user
+	 * @return a future completing with true if the login is successful, or failing with the
+	 *         {@link SQLException} or hashing rejection that stopped it
+	 */
+	public CompletableFuture<Boolean> loginAsync(String username, char[] password) {
+		return metrics.timeAsync("loginAsync", CompletableFuture.supplyAsync(() -> querySql(() -> getLoginContext(username)), databaseExecutor)
+				.thenCompose(context -> {
+					if (context == null || context.getPasswordHash() == null) {
+						Arrays.fill(password, '\0');
+						return CompletableFuture.completedFuture(false);
+					}
+					String storedHash = context.getPasswordHash();
+					return hashingService.verify(password.clone(), storedHash).thenApply(matches -> {
+						if (matches) {
+							rehashIfNeeded(username, password, storedHash);
+						}
+						return matches;
+					});
+				})
+				.whenComplete((result, error) -> Arrays.fill(password, '\0')));
+	}
+
+	/**
+	 * Authenticates a password against an already-fetched login context, without
+	 * another database round trip.
+	 * 
+	 * @param context the user's login context, or null if the user does not exist
+	 * @param password the password entered by the user
+	 * @return true if the login is successful, false otherwise
+	 */
+	public boolean login(LoginContext context, char[] password) {
+		OperationMetrics.Timer timer = metrics.timer("login");
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			success = context != null && context.getPasswordHash() != null
+					&& verifyAndRehash(context.getUsername(), password, context.getPasswordHash());
+			return success;
+		} finally {
+			Arrays.fill(password, '\0');
+			timer.record(System.nanoTime() - start, !success);
+		}
+	}
+
+	/**
+	 * Checks if a user's password is set to OTP.
+	 * 
+	 * @param username the username of the user
+	 * @return true if the user's password is set to OTP, false otherwise
+	 * @throws SQLException if a database access error occurs
+	 */
+	public boolean isOTPPasswordSet(String username) throws SQLException {
+		return metrics.time("isOTPPasswordSet", () -> {
+			String query = "SELECT is_otp_password FROM cse360users WHERE username = ?";
+			if (!usernameFilter.mightContain(username)) {
+				return false;
+			}
+			try (PooledConnection conn = borrowConnection()) {
+				PreparedStatement pstmt = conn.prepare(query);
+				pstmt.setString(1, username);
+				try (ResultSet rs = pstmt.executeQuery()) {
+					if (rs.next()) {
+						return rs.getBoolean("is_otp_password");
+					}
+				}
+			}
+			usernameFilter.recordFalsePositive();
+			return false;
+		});
+	}
+
+	/**
+	 * Retrieves the roles of a user from the database.
+	 * 
+	 * @param username the username of the user
+	 * @return an array of roles assigned to the user
+	 * @throws SQLException if a database access error occurs
+	 */
+	public String[] getUserRoles(String username) throws SQLException {
+		// Empty if the user has no roles or does not exist
+		return metrics.time("getUserRoles", () -> attributesOf(username).getRoles());
+	}
+
+	/**
+	 * Loads the cacheable attributes of a user. Called by the user attribute cache on a miss.
+	 * 
+	 * @param username the username of the user
+	 * @return the user's attributes, or {@link UserAttributeCache.UserAttributes#MISSING} if not found
+	 * @throws SQLException if a database access error occurs
+	 */
+	private UserAttributeCache.UserAttributes loadUserAttributes(String username) throws SQLException {
+		String query = "SELECT u.profile_complete, r.role FROM cse360users u "
+				+ "LEFT JOIN user_roles r ON r.user_id = u.id WHERE u.username = ? ORDER BY r.position";
+		try (PooledConnection conn = borrowConnection()) {
+			PreparedStatement pstmt = conn.prepare(query);
+			pstmt.setString(1, username);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				if (rs.next()) {
+					boolean profileComplete = rs.getBoolean("profile_complete");
+					return new UserAttributeCache.UserAttributes(true, readRoles(rs), profileComplete);
+				}
+			}
+		}
+		usernameFilter.recordFalsePositive();
+		return UserAttributeCache.UserAttributes.MISSING;
+	}
+
+	/**
+	 * Collects the roles of a user from a join with {@code user_roles}, one role per row.
+	 * The result set must be positioned on the user's first row.
+	 * 
+	 * @param rs the result set, with a nullable {@code role} column
+	 * @return an array of roles
+	 * @throws SQLException if a database access error occurs
+	 */
+	private static String[] readRoles(ResultSet rs) throws SQLException {
+		List<String> roles = new ArrayList<>();
+		do {
+			String role = rs.getString("role");
+			if (role != null) {
+				roles.add(role);
+			}
+		} while (rs.next());
+		return roles.toArray(new String[0]);
+	}
+
+	/**
+	 * Splits a comma-separated roles column into trimmed, non-empty role names.
+	 * 
+	 * @param rolesString the stored roles, may be null
+	 * @return an array of roles
+	 */
+	static String[] parseRoles(String rolesString) {
+		if (rolesString == null) {
+			return new String[]{};
+		}
+		return Arrays.stream(rolesString.split(","))
+				.map(String::trim)
+				.filter(role -> !role.isEmpty())
+				.toArray(String[]::new);
+	}
+
+	/**
+	 * Parses a comma-separated roles string into the stored form: lower case, without
+	 * blanks or duplicates, in the order given.
+	 * 
+	 * @param rolesString the roles as entered, may be null
+	 * @return an array of normalized roles
+	 */
+	static String[] normalizeRoles(String rolesString) {
+		return Arrays.stream(parseRoles(rolesString))
+				.map(DatabaseHelper::normalizeRole)
+				.distinct()
+				.toArray(String[]::new);
+	}
+
+	private static String normalizeRole(String role) {
+		return role.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Checks if a user's profile is complete.
+	 * 
+	 * @param username the username of the user
+	 * @return true if the user's profile is complete, false otherwise
+	 * @throws SQLException if a database access error occurs
+	 */
+	public boolean isProfileComplete(String username) throws SQLException {
+		return metrics.time("isProfileComplete", () -> attributesOf(username).isProfileComplete());
+	}
+
+	/**
+	 * Updates a user's profile information in the database.
+	 * 
+	 * @param username the username of the user
+	 * @param email the user's email address
+	 * @param firstName the user's first name
+	 * @param middleName the user's middle name (optional)
+	 * @param lastName the user's last name
+	 * @param preferredName the user's preferred name (optional)
+	 * @throws SQLException if a database access error occurs
+	 */
+	public void updateProfile(String username, String email, String firstName, String middleName, String lastName, String preferredName) throws SQLException {
+		metrics.run("updateProfile", () -> {
+			String query = "UPDATE cse360users SET email = ?, first_name = ?, middle_name = ?, last_name = ?, preferred_name = ?, profile_complete = TRUE WHERE username = ?";
+			try (PooledConnection conn = borrowConnection()) {
+				PreparedStatement pstmt = conn.prepare(query);
+				pstmt.setString(1, email);
+				pstmt.setString(2, firstName);
+				pstmt.setString(3, middleName != null && !middleName.trim().isEmpty() ? middleName : null);
+				pstmt.setString(4, lastName);
+				pstmt.setString(5, preferredName != null && !preferredName.trim().isEmpty() ? preferredName : null);
+				pstmt.setString(6, username);
+				pstmt.executeUpdate();
+			} finally {
+				invalidateUser(username);
+			}
+		});
+	}
+
+	/**
+	 * Checks if a user exists in the database.
+	 * 
+	 * @param username the username to check
+	 * @return true if the user exists, false otherwise
+	 */
+	public boolean doesUserExist(String username) {
+		try {
+			return metrics.time("doesUserExist", () -> attributesOf(username).exists());
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return false;
+	}
+
+	/**
+	 * Lists one page of users in username order. Pages are found with a keyset seek on
+	 * the username index rather than an offset, so later pages cost the same as the first,
+	 * and the filters are applied by the database. Pass the returned page's cursor to get
+	 * the next page.
+	 * 
+	 * @param filter the filters to apply
+	 * @param cursor the cursor of the previous page, or null for the first page
+	 * @param pageSize the maximum number of users to return, up to {@link #MAX_PAGE_SIZE}
+	 * @return the page of users
+	 * @throws SQLException if a database access error occurs
+	 * @throws IllegalArgumentException if the page size is out of range or the cursor is malformed
+	 */
+	public UserPage listUsers(UserFilter filter, String cursor, int pageSize) throws SQLException {
+		return metrics.time("listUsers", () -> {
+			if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+				throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+			}
+			StringBuilder sql = new StringBuilder("SELECT " + USER_SUMMARY_COLUMNS + " FROM cse360users u WHERE 1 = 1");
+			List<Object> params = new ArrayList<>();
+			if (cursor != null) {
+				sql.append(" AND u.username > ?");
+				params.add(UserPage.decodeCursor(cursor));
+			}
+			if (filter.getUsernamePrefix() != null) {
+				sql.append(" AND u.username LIKE ? ESCAPE '\\'");
+				params.add(filter.getUsernamePrefix().replaceAll("([\\\\%_])", "\\\\$1") + "%");
+			}
+			if (filter.getProfileComplete() != null) {
+				sql.append(" AND u.profile_complete = ?");
+				params.add(filter.getProfileComplete());
+			}
+			if (filter.getRole() != null) {
+				sql.append(" AND EXISTS (SELECT 1 FROM user_roles r WHERE r.user_id = u.id AND r.role = ?)");
+				params.add(normalizeRole(filter.getRole()));
+			}
+			sql.append(" ORDER BY u.username LIMIT ?");
+			params.add(pageSize + 1); // One extra row tells whether another page follows
+
+			List<UserPage.UserSummary> users = new ArrayList<>();
+			boolean more = false;
+			try (PooledConnection conn = borrowConnection()) {
+				PreparedStatement pstmt = conn.prepare(sql.toString());
+				pstmt.setFetchSize(Math.min(LIST_FETCH_SIZE, pageSize + 1));
+				for (int i = 0; i < params.size(); i++) {
+					pstmt.setObject(i + 1, params.get(i));
+				}
+				try (ResultSet rs = pstmt.executeQuery()) {
+					while (rs.next()) {
+						if (users.size() == pageSize) {
+							more = true;
+							break;
+						}
+						users.add(readUserSummary(rs));
+					}
+				}
+			}
+			String nextCursor = more ? UserPage.encodeCursor(users.get(users.size() - 1).getUsername()) : null;
+			return new UserPage(users, nextCursor);
+		});
+	}
+
+	/**
+	 * Streams every user, in id order, to a consumer without holding the result in memory.
+	 * The query runs on a forward-only, read-only cursor with H2's lazy query execution,
+	 * so rows are produced as the cursor advances and are pulled from the driver
+	 * {@link #EXPORT_FETCH_SIZE} at a time.
+	 * 
+	 * @param consumer receives each user; may write it out as it arrives
+	 * @return the number of users streamed
+	 * @throws SQLException if a database access error occurs
+	 * @throws IOException if the consumer fails to write a user
+	 */
+	public long forEachUser(UserConsumer consumer) throws SQLException, IOException {
+		OperationMetrics.Timer timer = metrics.timer("forEachUser");
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			long count = streamUsers(consumer);
+			failed = false;
+			return count;
+		} finally {
+			timer.record(System.nanoTime() - start, failed);
+		}
+	}
+
+	private long streamUsers(UserConsumer consumer) throws SQLException, IOException {
+		String sql = "SELECT " + USER_SUMMARY_COLUMNS + " FROM cse360users u ORDER BY u.id";
+		return streamRows(sql, rs -> consumer.accept(readUserSummary(rs)));
+	}
+
+	/**
+	 * Runs a query on a forward-only, read-only cursor with H2's lazy query execution and
+	 * hands each row to a handler as the cursor advances. Without lazy execution embedded
+	 * H2 builds the whole result before returning the first row, whatever the fetch size.
+	 *
+	 * @param sql the query, without parameters
+	 * @param handler receives each row
+	 * @return the number of rows read
+	 * @throws SQLException if a database access error occurs
+	 * @throws E if the handler fails
+	 */
+	private <E extends Exception> long streamRows(String sql, RowHandler<E> handler) throws SQLException, E {
+		long count = 0;
+		try (PooledConnection conn = borrowConnection();
+			 Statement session = conn.createStatement()) {
+			session.execute("SET LAZY_QUERY_EXECUTION TRUE");
+			try (PreparedStatement pstmt = conn.prepareStreaming(sql)) {
+				pstmt.setFetchSize(EXPORT_FETCH_SIZE);
+				try (ResultSet rs = pstmt.executeQuery()) {
+					while (rs.next()) {
+						handler.accept(rs);
+						count++;
+					}
+				}
+			} finally {
+				session.execute("SET LAZY_QUERY_EXECUTION FALSE"); // The connection goes back to the pool
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Receives the rows streamed by {@link #streamRows}.
+	 */
+	private interface RowHandler<E extends Exception> {
+		void accept(ResultSet rs) throws SQLException, E;
+	}
+
+	/**
+	 * Receives users streamed by {@link #forEachUser}.
+	 */
+	interface UserConsumer {
+		void accept(UserPage.UserSummary user) throws IOException;
+	}
+
+	/**
+	 * Reads one user selected with {@link #USER_SUMMARY_COLUMNS}.
+	 */
+	private static UserPage.UserSummary readUserSummary(ResultSet rs) throws SQLException {
+		return new UserPage.UserSummary(rs.getString("username"), rs.getString("email"), rs.getString("first_name"),
+				rs.getString("middle_name"), rs.getString("last_name"), rs.getString("preferred_name"),
+				parseRoles(rs.getString("roles")), rs.getBoolean("profile_complete"));
+	}
+
+	/**
+	 * Displays user details for a specific user.
+	 * 
+	 * @param userEmail the email of the user to display
+	 * @throws SQLException if a database access error occurs
+	 */
+	public void displayUsersByUser(String userEmail) throws SQLException {
+		metrics.run("displayUsersByUser", () -> {
+			String sql = "SELECT * FROM cse360users WHERE email = ?";
+			try (PooledConnection conn = borrowConnection()) {
+				PreparedStatement pstmt = conn.prepare(sql);
+				pstmt.setString(1, userEmail);
+				try (ResultSet rs = pstmt.executeQuery()) {
+					if (rs.next()) {
+						// Retrieve by column name
+						int id = rs.getInt("id");
+						String email = rs.getString("email");
+						String firstName = rs.getString("first_name");
+						String lastName = rs.getString("last_name");
+						String preferredName = rs.getString("preferred_name");
+						String username = rs.getString("user_name");
+						String role = rs.getString("role");
+
+						// Display values
+						System.out.println("User Details:");
+						System.out.println("ID: " + id);
+						System.out.println("Email: " + email);
+						System.out.println("First Name: " + firstName);
+						System.out.println("Last Name: " + lastName);
+						System.out.println("Preferred Name: " + preferredName);
+						System.out.println("Username: " + username);
+						System.out.println("Role: " + role);
+					} else {
+						System.out.println("No user found with the email: " + userEmail);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Issues a one-time password for a user. Nothing is written: the code is derived
+	 * from the user's id, OTP counter and the current time, and expires on its own.
+	 *
+	 * @param username The username of the user
+	 * @return the six-digit code, or null if the user does not exist
+	 * @throws SQLException if a database access error occurs
+	 */
+	public String issueOTP(String username) throws SQLException {
+		return metrics.time("issueOTP", () -> {
+			String query = "SELECT id, otp_counter FROM cse360users WHERE username = ?";
+			try (PooledConnection conn = borrowConnection()) {
+				PreparedStatement pstmt = conn.prepare(query);
+				pstmt.setString(1, username);
+				try (ResultSet rs = pstmt.executeQuery()) {
+					return rs.next() ? otpService.generate(rs.getInt("id"), rs.getInt("otp_counter")) : null;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Verifies a one-time password for a user. The code is recomputed from the user's id
+	 * and OTP counter, and accepting it advances the counter, so it fails once it has
+	 * expired, has been used, or the password has changed. If the same code is checked
+	 * concurrently, only one check succeeds.
+	 *
+	 * @param username The username of the user
+	 * @param otp The one-time password to verify
+	 * @return true if the OTP is valid, false otherwise
+	 * @throws SQLException if a database access error occurs
+	 */
+	public boolean verifyOTP(String username, String otp) throws SQLException {
+		return metrics.check("verifyOTP", () -> {
+			String query = "SELECT id, otp_counter FROM cse360users WHERE username = ?";
+			String redeem = "UPDATE cse360users SET otp_counter = otp_counter + 1 WHERE id = ? AND otp_counter = ?";
+			try (PooledConnection conn = borrowConnection()) {
+				PreparedStatement pstmt = conn.prepare(query);
+				pstmt.setString(1, username);
+				int id;
+				int counter;
+				try (ResultSet rs = pstmt.executeQuery()) {
+					if (!rs.next()) {
+						return false;
+					}
+					id = rs.getInt("id");
+					counter = rs.getInt("otp_counter");
+				}
+				if (!otpService.verify(id, counter, otp)) {
+					return false;
+				}
+				// Moving the counter on retires this code and every other outstanding one
+				PreparedStatement update = conn.prepare(redeem);
+				update.setInt(1, id);
+				update.setInt(2, counter);
+				return update.executeUpdate() == 1;
+			}
+		});
+	}
+
+	/**
+	 * Resets a user's password on behalf of an admin: the user must log in with a
+	 * one-time password and choose a new password. Only the flag that routes their login
+	 * to the OTP prompt is written; the code itself is derived. The user's sessions are ended.
+	 *
+	 * @param username The username of the user
+	 * @return the one-time password to give the user, or null if the user does not exist
+	 * @throws SQLException if a database access error occurs
+	 */
+	public String resetUserPasswordByAdmin(String username) throws SQLException {
+		return metrics.time("resetUserPasswordByAdmin", () -> {
+			String query = "UPDATE cse360users SET is_otp_password = TRUE WHERE username = ?";
+			int updated;
+			try (PooledConnection conn = borrowConnection()) {
+				PreparedStatement pstmt = conn.prepare(query);
+				pstmt.setString(1, username);
+				updated = pstmt.executeUpdate();
+			} finally {
+				invalidateUser(username);
+				revokeSessions(username);
+			}
+			return updated == 0 ? null : issueOTP(username);
+		});
+	}
+	
+	/**
+	 * Resets a user's password with a new password. The user's sessions are ended.
+	 *
+	 * @param username The username of the user
+	 * @param newPassword The new password to set
+	 * @throws SQLException if a database access error occurs
+	 */
+	public void resetPassword(String username, char[] newPassword) throws SQLException {
+		metrics.run("resetPassword", () -> {
+			String hashedPassword;
+			try {
+				hashedPassword = hashPassword(newPassword); // Hash before checking out a connection
+			} finally {
+				Arrays.fill(newPassword, '\0'); // Clear the password array
+			}
+			updatePassword(username, hashedPassword);
+		});
+	}
+
+	/**
+	 * Resets a user's password asynchronously. The password is hashed on the hashing pool
+	 * and the update runs on the database pool. The password array is cleared once hashed.
+	 *
+	 * @param username The username of the user
+	 * @param newPassword The new password to set
+	 * @return a future that completes when the password is stored, or fails with the
+	 *         {@link SQLException} or hashing rejection that stopped it
+	 */
+	public CompletableFuture<Void> resetPasswordAsync(String username, char[] newPassword) {
+		return metrics.timeAsync("resetPasswordAsync", hashingService.hash(newPassword)
+				.thenAcceptAsync(hashedPassword -> runSql(() -> updatePassword(username, hashedPassword)), databaseExecutor));
+	}
+
+	/**
+	 * Stores an already-hashed password, clears any pending OTP reset and advances the
+	 * OTP counter so outstanding codes stop working.
+	 *
+	 * @param username The username of the user
+	 * @param hashedPassword The stored form of the new password
+	 * @throws SQLException if a database access error occurs
+	 */
+	private void updatePassword(String username, String hashedPassword) throws SQLException {
+		String query = "UPDATE cse360users SET password = ?, otp = NULL, is_otp_password = FALSE, "
+				+ "otp_counter = otp_counter + 1 WHERE username = ?";
+		try (PooledConnection conn = borrowConnection()) {
+			PreparedStatement pstmt = conn.prepare(query);
+			pstmt.setString(1, hashedPassword);
 			pstmt.setString(2, username);
 			pstmt.executeUpdate();
 		} finally {
-			Arrays.fill(newPassword, '\0'); // Clear the password array
+			invalidateUser(username);
+			revokeSessions(username);
 		}
 	}
 
 	/**
-	 * Hashes a password using BCrypt.
+	 * Hashes a password with the configured algorithm (BCrypt or Argon2id).
 	 *
 	 * @param password The password to hash
 	 * @return The hashed password
 	 */
 	private String hashPassword(char[] password) {
-		return BCrypt.hashpw(new String(password), BCrypt.gensalt(12));
+		return passwordHashers.hash(password);
+	}
+
+	/**
+	 * Measures BCrypt on this host and picks the highest cost that fits the latency target,
+	 * when BCrypt is the algorithm used for new hashes.
+	 */
+	private void calibratePasswordHashing() {
+		PasswordHasher current = passwordHashers.getCurrent();
+		if (current != passwordHashers.getBCrypt()) {
+			System.out.println("Password hashing: " + current);
+			return;
+		}
+		BCryptCostCalibrator calibrator = new BCryptCostCalibrator();
+		passwordHashers.getBCrypt().setCost(calibrator.calibrate());
+		System.out.printf("Password hashing: BCrypt cost %d (%.0f ms per hash, target %d ms)%n",
+				getBcryptCost(), calibrator.getMeasuredMillis(), calibrator.getTargetMillis());
+	}
+
+	/**
+	 * Checks a password and, if it matches a hash stored with a different algorithm or
+	 * parameters than the current ones, schedules a rehash. Does not clear the password array.
+	 *
+	 * @param username The username the hash belongs to
+	 * @param password The password to check
+	 * @param storedHash The stored hash to compare against
+	 * @return true if the password matches, false otherwise
+	 */
+	private boolean verifyAndRehash(String username, char[] password, String storedHash) {
+		boolean matches = verifyPassword(password, storedHash);
+		if (matches) {
+			rehashIfNeeded(username, password, storedHash);
+		}
+		return matches;
+	}
+
+	/**
+	 * Rehashes a just-verified password with the current algorithm and parameters if its
+	 * stored hash uses different ones. The new hash is computed on the hashing pool and stored on the
+	 * database pool, so the login itself does not wait for it. The stored hash is only
+	 * replaced if it has not changed in the meantime.
+	 *
+	 * @param username The username the hash belongs to
+	 * @param password The verified password; a copy is taken
+	 * @param storedHash The hash the password was verified against
+	 */
+	private void rehashIfNeeded(String username, char[] password, String storedHash) {
+		if (!passwordHashers.needsRehash(storedHash)) {
+			return;
+		}
+		PasswordHasher current = passwordHashers.getCurrent();
+		LongAdder outcome;
+		if (passwordHashers.forHash(storedHash) != current) {
+			outcome = rehashMigrations; // Switching algorithms
+		} else if (current == passwordHashers.getBCrypt()) {
+			outcome = BCryptCostCalibrator.costOf(storedHash) < getBcryptCost() ? rehashUpgrades : rehashDowngrades;
+		} else {
+			outcome = rehashUpgrades; // New Argon2id parameters
+		}
+		hashingService.hash(password.clone())
+				.thenApplyAsync(newHash -> querySql(() -> replacePasswordHash(username, storedHash, newHash)), databaseExecutor)
+				.whenComplete((replaced, error) -> {
+					if (error != null) {
+						rehashFailures.increment();
+					} else if (replaced) {
+						outcome.increment();
+					}
+				});
+	}
+
+	/**
+	 * Replaces a user's password hash, but only if it still equals the expected hash.
+	 *
+	 * @param username The username of the user
+	 * @param expectedHash The hash that must currently be stored
+	 * @param newHash The replacement hash
+	 * @return true if the hash was replaced
+	 * @throws SQLException if a database access error occurs
+	 */
+	private boolean replacePasswordHash(String username, String expectedHash, String newHash) throws SQLException {
+		String query = "UPDATE cse360users SET password = ? WHERE username = ? AND password = ?";
+		try (PooledConnection conn = borrowConnection()) {
+			PreparedStatement pstmt = conn.prepare(query);
+			pstmt.setString(1, newHash);
+			pstmt.setString(2, username);
+			pstmt.setString(3, expectedHash);
+			return pstmt.executeUpdate() == 1;
+		}
 	}
 
 	/**
@@ -495,50 +1788,369 @@ class DatabaseHelper {
 	 */
 	public boolean checkPassword(char[] inputPassword, String storedHash) {
 		try {
-			return BCrypt.checkpw(new String(inputPassword), storedHash);
-		} catch (IllegalArgumentException e) {
-			System.err.println("Error checking password: " + e.getMessage());
-			return false;
+			return verifyPassword(inputPassword, storedHash);
 		} finally {
 			Arrays.fill(inputPassword, '\0'); // Clear the password array
 		}
 	}
+
+	/**
+	 * Checks if an input password matches a stored hash without clearing the input.
+	 *
+	 * @param inputPassword The input password to check
+	 * @param storedHash The stored hash to compare against
+	 * @return true if the password matches, false otherwise
+	 */
+	private boolean verifyPassword(char[] inputPassword, String storedHash) {
+		try {
+			return passwordHashers.verify(inputPassword, storedHash);
+		} catch (RuntimeException e) {
+			System.err.println("Error checking password: " + e.getMessage());
+			return false;
+		}
+	}
 	
 	/**
-	 * Closes the database connection and statement.
+	 * Returns the connection pool backing this helper, for monitoring its metrics
+	 * and those of its statement caches.
+	 *
+	 * @return the connection pool, or null if not connected
 	 */
-	public void closeConnection() {
-		// Close statement, if it exists
+	ConnectionPool getConnectionPool() {
+		return pool;
+	}
+
+	/**
+	 * Checks a connection out of the pool, or shares the current thread's transaction
+	 * connection when called inside {@link #inTransaction}. Closing it gives it back.
+	 * 
+	 * @return a connection for one operation
+	 * @throws SQLException if no connection is available
+	 */
+	private PooledConnection borrowConnection() throws SQLException {
+		Transaction tx = currentTransaction.get();
+		return tx != null ? tx.connection.retain() : pool.borrow();
+	}
+
+	/**
+	 * Runs work in a single database transaction. Every DatabaseHelper operation the work
+	 * calls on this thread uses the same connection, and everything commits together or
+	 * not at all. Lock timeouts and deadlocks roll back and retry the whole unit with a
+	 * randomized backoff, up to {@link #TRANSACTION_ATTEMPTS} attempts. A call made inside
+	 * an existing transaction joins it.
+	 * 
+	 * @param work the transactional work; must be safe to run again after a rollback
+	 * @return the result of the work
+	 * @throws SQLException if the work fails or keeps conflicting
+	 */
+	<T> T inTransaction(SqlQuery<T> work) throws SQLException {
+		if (currentTransaction.get() != null) {
+			return work.get();
+		}
+		for (int attempt = 1; ; attempt++) {
+			Transaction tx;
+			try (PooledConnection conn = pool.borrow()) {
+				Connection connection = conn.getConnection();
+				tx = new Transaction(conn);
+				connection.setAutoCommit(false);
+				currentTransaction.set(tx);
+				try {
+					T result = work.get();
+					connection.commit();
+					return result;
+				} catch (SQLException | RuntimeException e) {
+					connection.rollback();
+					if (!(e instanceof SQLException) || !isRetryable((SQLException) e) || attempt >= TRANSACTION_ATTEMPTS) {
+						throw e;
+					}
+				} finally {
+					currentTransaction.remove();
+					connection.setAutoCommit(true);
+					tx.afterCompletion();
+				}
+			}
+			backoff(attempt);
+		}
+	}
+
+	/**
+	 * Checks whether a failed transaction may succeed if retried: H2 lock timeouts,
+	 * deadlocks and concurrent-update conflicts.
+	 */
+	private static boolean isRetryable(SQLException e) {
+		int code = e.getErrorCode();
+		return code == 50200 || code == 40001 || code == 90131
+				|| (e.getSQLState() != null && e.getSQLState().startsWith("40"));
+	}
+
+	private static void backoff(int attempt) throws SQLException {
 		try {
-			if (statement != null) {
-				statement.close();
-				System.out.println("Statement closed successfully.");
+			Thread.sleep(ThreadLocalRandom.current().nextLong(1, 10L << attempt));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while retrying a transaction", e);
+		}
+	}
+
+	/**
+	 * Drops the cached attributes of a user after a write. Inside a transaction the
+	 * user is invalidated again once it commits or rolls back, so a reader that loaded
+	 * the old row before the commit cannot leave it cached.
+	 * 
+	 * @param username the user whose row changed
+	 */
+	private void invalidateUser(String username) {
+		userCache.invalidate(username);
+		Transaction tx = currentTransaction.get();
+		if (tx != null) {
+			tx.touchedUsers.add(username);
+		}
+	}
+
+	/**
+	 * Ends every session of a user whose roles or password changed or who was deleted.
+	 * Inside a transaction the sessions are revoked again once it completes, so a login
+	 * that read the old row before the commit cannot keep its session.
+	 * 
+	 * @param username the user whose sessions are ended
+	 */
+	private void revokeSessions(String username) {
+		sessionManager.revokeUser(username);
+		Transaction tx = currentTransaction.get();
+		if (tx != null) {
+			tx.revokedUsers.add(username);
+		}
+	}
+
+	/**
+	 * The state of the transaction running on the current thread.
+	 */
+	private class Transaction {
+		final PooledConnection connection;
+		final Set<String> touchedUsers = new HashSet<>();
+		final Set<String> newUsernames = new HashSet<>();
+		final Set<String> revokedUsers = new HashSet<>();
+
+		Transaction(PooledConnection connection) {
+			this.connection = connection;
+		}
+
+		void afterCompletion() {
+			for (String username : touchedUsers) {
+				userCache.invalidate(username);
 			}
-		} catch (SQLException se2) {
-			System.err.println("Error closing statement: " + se2.getMessage());
-			se2.printStackTrace();
+			for (String username : newUsernames) {
+				usernameFilter.put(username);
+			}
+			for (String username : revokedUsers) {
+				sessionManager.revokeUser(username);
+			}
+		}
+	}
+
+	/**
+	 * A database action that may throw {@link SQLException}.
+	 */
+	interface SqlAction {
+		void run() throws SQLException;
+	}
+
+	/**
+	 * A database query that may throw {@link SQLException}.
+	 */
+	interface SqlQuery<T> {
+		T get() throws SQLException;
+	}
+
+	/**
+	 * Runs a database action inside an async stage, rethrowing SQL errors as
+	 * {@link CompletionException} so they fail the future with the original cause.
+	 */
+	private static void runSql(SqlAction action) {
+		try {
+			action.run();
+		} catch (SQLException e) {
+			throw new CompletionException(e);
 		}
+	}
 
-		// Close connection, if it exists
+	/**
+	 * Runs a database query inside an async stage, rethrowing SQL errors as
+	 * {@link CompletionException} so they fail the future with the original cause.
+	 */
+	private static <T> T querySql(SqlQuery<T> query) {
 		try {
-			if (connection != null) {
-				connection.close();
-				System.out.println("Connection closed successfully.");
+			return query.get();
+		} catch (SQLException e) {
+			throw new CompletionException(e);
+		}
+	}
+
+	/**
+	 * Returns the service that hashes passwords off the caller's thread, for monitoring
+	 * its queue depth and rejections.
+	 *
+	 * @return the hashing service
+	 */
+	HashingService getHashingService() {
+		return hashingService;
+	}
+
+	/**
+	 * @return the BCrypt cost used for new password hashes
+	 */
+	int getBcryptCost() {
+		return passwordHashers.getBCrypt().getCost();
+	}
+
+	/**
+	 * Overrides the BCrypt cost used for new password hashes.
+	 *
+	 * @param cost the cost factor
+	 */
+	void setBcryptCost(int cost) {
+		passwordHashers.getBCrypt().setCost(cost);
+	}
+
+	/** @return the number of invitation purge runs */
+	long getInvitationPurgeRunCount() {
+		return invitationPurgeRuns.sum();
+	}
+
+	/** @return the number of transactions the invitation purges deleted rows in */
+	long getInvitationPurgeBatchCount() {
+		return invitationPurgeBatches.sum();
+	}
+
+	/** @return the number of invitations deleted by purges */
+	long getInvitationsPurgedCount() {
+		return invitationsPurged.sum();
+	}
+
+	/** @return how long the last invitation purge took, in milliseconds */
+	double getLastInvitationPurgeMillis() {
+		return lastInvitationPurgeNanos / 1e6;
+	}
+
+	/** @return the number of stored hashes raised to the current cost on login */
+	long getRehashUpgradeCount() {
+		return rehashUpgrades.sum();
+	}
+
+	/** @return the number of stored hashes lowered to the current cost on login */
+	long getRehashDowngradeCount() {
+		return rehashDowngrades.sum();
+	}
+
+	/** @return the number of stored hashes moved to the current algorithm on login */
+	long getRehashMigrationCount() {
+		return rehashMigrations.sum();
+	}
+
+	/**
+	 * @return the hashing algorithms, for switching the one used for new hashes
+	 */
+	PasswordHashers getPasswordHashers() {
+		return passwordHashers;
+	}
+
+	/** @return the number of rehashes that failed or were rejected */
+	long getRehashFailureCount() {
+		return rehashFailures.sum();
+	}
+
+	/**
+	 * Returns the cache serving role, profile and existence lookups, for monitoring its hit rate.
+	 *
+	 * @return the user attribute cache
+	 */
+	UserAttributeCache getUserAttributeCache() {
+		return userCache;
+	}
+
+	/**
+	 * Returns the filter that answers lookups of nonexistent usernames without a query,
+	 * for monitoring its false-positive rate and memory use.
+	 *
+	 * @return the username filter
+	 */
+	UsernameBloomFilter getUsernameFilter() {
+		return usernameFilter;
+	}
+
+	/**
+	 * Returns the throttler shared by every login and OTP check against this database.
+	 *
+	 * @return the login throttler
+	 */
+	LoginThrottler getLoginThrottler() {
+		return loginThrottler;
+	}
+
+	/**
+	 * Returns the sessions of users logged in against this database.
+	 *
+	 * @return the session manager
+	 */
+	SessionManager getSessionManager() {
+		return sessionManager;
+	}
+
+	/**
+	 * Returns the latency and failure metrics of this helper's operations.
+	 *
+	 * @return the metrics
+	 */
+	OperationMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Closes the database connection pool.
+	 */
+	public void closeConnection() {
+		hashingService.shutdown();
+		databaseExecutor.shutdown();
+		maintenance.shutdownNow();
+		metrics.unpublish();
+		System.out.println("Operation metrics: " + metrics);
+		System.out.println("Hashing statistics: " + hashingService);
+		System.out.println("Login throttling statistics: " + loginThrottler);
+		System.out.println("Session statistics: " + sessionManager);
+		System.out.println("OTP statistics: " + otpService);
+		System.out.printf("Invitation purge statistics: runs=%d, batches=%d, purged=%d, lastRun=%.1f ms%n",
+				getInvitationPurgeRunCount(), getInvitationPurgeBatchCount(), getInvitationsPurgedCount(),
+				getLastInvitationPurgeMillis());
+		System.out.printf("Password rehash statistics: algorithm=%s, bcryptCost=%d, upgraded=%d, downgraded=%d, migrated=%d, failed=%d%n",
+				passwordHashers.getCurrent().getName(), getBcryptCost(), getRehashUpgradeCount(),
+				getRehashDowngradeCount(), getRehashMigrationCount(), getRehashFailureCount());
+		// Close the pool, if it exists
+		if (pool != null) {
+			System.out.println("Connection pool statistics: " + pool);
+			System.out.println("User cache statistics: " + userCache);
+			System.out.println("Username filter statistics: " + usernameFilter);
+			try {
+				System.out.println("Invitation table: " + getInvitationCounts());
+			} catch (SQLException e) {
+				System.err.println("Invitation counts unavailable: " + e.getMessage());
 			}
-		} catch (SQLException se) {
-			System.err.println("Error closing connection: " + se.getMessage());
-			se.printStackTrace();
+			pool.close();
+			System.out.println("Connection closed successfully.");
+		}
+		if (slowQueryLog != null) {
+			slowQueryLog.close(); // Writes the statements still queued
+			System.out.println("Slow query log statistics: " + slowQueryLog);
 		}
 	}
 
 	/**
-	 * Generates a salt for password hashing.
+	 * Generates a random salt for password hashing. The hashers generate their own
+	 * salts; this is for callers that need one directly.
 	 *
-	 * @return The generated salt
-	 * @throws UnsupportedOperationException if the method is not implemented
+	 * @return The generated 128-bit salt, Base64-encoded
 	 */
 	public String generateSalt() {
-		throw new UnsupportedOperationException("Unimplemented method 'generateSalt'");
+		return PasswordHashers.generateSalt();
 	}
 
 }
@@ -1,8 +1,47 @@
 package edu.asu.DatabasePart1;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import javax.management.JMException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
  * <p> DatabaseTester Class </p>
@@ -36,6 +75,29 @@ public class DatabaseTester {
             testUpdateProfile();
             testUserExistence();
             testAdminFunctions();
+            testConnectionPool();
+            testStatementCache();
+            testLoginContext();
+            testUserAttributeCache();
+            testAsyncHashing();
+            testRehashOnLogin();
+            testArgon2idHashing();
+            testRedeemInvitation();
+            testRoleIndex();
+            testListUsers();
+            testBulkImport();
+            testBulkInvitations();
+            testUserExport();
+            testBatchCommands();
+            testUsernameFilter();
+            testLoginThrottling();
+            testSessions();
+            testStatelessOtp();
+            testInvitationPurge();
+            testLatencyHistogram();
+            testOperationMetrics();
+            testFlightRecorderEvents();
+            testSlowQueryLog();
             
             System.out.println("Test Summary:");
             System.out.println("Passed tests: " + passedTests);
@@ -126,12 +188,11 @@ public class DatabaseTester {
         try {
             dbHelper.register(username, password, roles);
 
-            String otp = "654321";
-            Timestamp expirationTime = new Timestamp(System.currentTimeMillis() + 3600000); // 1 hour from now
-            dbHelper.resetUserPassword(username, otp, expirationTime);
+            String otp = dbHelper.resetUserPasswordByAdmin(username);
 
             boolean isOtpSet = dbHelper.isOTPPasswordSet(username);
             assert isOtpSet : "OTP password should be set";
+            assert dbHelper.verifyOTP(username, otp) : "Issued OTP should verify";
             System.out.println("Password reset and OTP set successfully.");
             passedTests++;
         } catch (AssertionError e) {
@@ -235,4 +296,1131 @@ public class DatabaseTester {
             dbHelper.deleteUser(adminUsername);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that concurrent operations share the connection pool and return their connections.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testConnectionPool() throws SQLException {
+        String username = "PoolUser";
+        char[] password = "pool123".toCharArray();
+        String roles = "student";
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            dbHelper.register(username, password, roles);
+
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(() -> dbHelper.doesUserExist(username)
+                        && dbHelper.getUserRoles(username).length == 1));
+            }
+            for (Future<Boolean> result : results) {
+                assert result.get() : "Concurrent lookup failed";
+            }
+            ConnectionPool pool = dbHelper.getConnectionPool();
+            assert pool.getActiveCount() == 0 : "Connections were not returned to the pool";
+            assert pool.getOpenCount() <= pool.getMaxSize() : "Pool exceeded its maximum size";
+            System.out.println("Connection pool test successful: " + pool);
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } catch (Exception e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            executor.shutdown();
+            dbHelper.deleteUser(username);
+        }
+    }
+
+    /**
+     * Tests that repeated queries reuse cached prepared statements.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testStatementCache() throws SQLException {
+        String username = "CacheUser";
+        char[] password = "cache123".toCharArray();
+        String roles = "student";
+
+        try {
+            dbHelper.register(username, password, roles);
+
+            StatementCache.Stats stats = dbHelper.getConnectionPool().getStatementCacheStats();
+            long hitsBefore = stats.getHits();
+            for (int i = 0; i < 10; i++) {
+                dbHelper.isOTPPasswordSet(username);
+                dbHelper.getLoginContext(username);
+            }
+            assert stats.getHits() - hitsBefore >= 18 : "Repeated queries should hit the statement cache";
+            assert dbHelper.getUserRoles(username)[0].equals(roles) : "Cached statement returned wrong roles";
+            System.out.println("Statement cache test successful: " + stats);
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            dbHelper.deleteUser(username);
+        }
+    }
+
+    /**
+     * Tests that the login context carries everything the login flow needs.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testLoginContext() throws SQLException {
+        String username = "ContextUser";
+        String roles = "admin, student";
+
+        try {
+            dbHelper.register(username, "context123".toCharArray(), roles);
+
+            LoginContext context = dbHelper.getLoginContext(username);
+            assert context != null : "Login context should exist for a registered user";
+            assert !context.isOTPPasswordSet() : "OTP should not be set for a new user";
+            assert !context.isProfileComplete() : "Profile should not be complete for a new user";
+            assert Arrays.equals(context.getRoles(), new String[]{"admin", "student"}) : "Roles should be parsed and trimmed";
+            assert dbHelper.login(context, "context123".toCharArray()) : "Login with context failed";
+            assert !dbHelper.login(context, "wrong".toCharArray()) : "Login with context accepted a wrong password";
+            assert dbHelper.getLoginContext("nonexistentuser") == null : "Unknown users should have no login context";
+            assert !dbHelper.login((LoginContext) null, "context123".toCharArray()) : "Login without context should fail";
+            System.out.println("Login context test successful.");
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            dbHelper.deleteUser(username);
+        }
+    }
+
+    /**
+     * Tests that cached user attributes are served without queries and invalidated by writes.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testUserAttributeCache() throws SQLException {
+        String username = "CachedAttrUser";
+        UserAttributeCache cache = dbHelper.getUserAttributeCache();
+
+        try {
+            assert !dbHelper.doesUserExist(username) : "User should not exist yet";
+            dbHelper.register(username, "cached123".toCharArray(), "student");
+            assert dbHelper.doesUserExist(username) : "Registration should invalidate a cached miss";
+
+            long hitsBefore = cache.getHits();
+            for (int i = 0; i < 10; i++) {
+                dbHelper.getUserRoles(username);
+                dbHelper.isProfileComplete(username);
+            }
+            assert cache.getHits() - hitsBefore == 20 : "Repeated lookups should be served from the cache";
+
+            dbHelper.updateUserRoles(username, "admin,student");
+            assert dbHelper.isUserAdmin(username) : "Role update should invalidate cached roles";
+            dbHelper.updateProfile(username, "cached@test.com", "Cached", null, "User", null);
+            assert dbHelper.isProfileComplete(username) : "Profile update should invalidate cached profile status";
+            dbHelper.deleteUser(username);
+            assert !dbHelper.doesUserExist(username) : "Deletion should invalidate cached existence";
+            System.out.println("User attribute cache test successful: " + cache);
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            dbHelper.deleteUser(username);
+        }
+    }
+
+    /**
+     * Tests the asynchronous register, login and reset operations and hashing backpressure.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testAsyncHashing() throws SQLException {
+        String username = "AsyncUser";
+
+        try {
+            dbHelper.registerAsync(username, "async123".toCharArray(), "student").join();
+            assert dbHelper.loginAsync(username, "async123".toCharArray()).join() : "Async login failed";
+            assert !dbHelper.loginAsync(username, "wrong".toCharArray()).join() : "Async login accepted a wrong password";
+            assert !dbHelper.loginAsync("nonexistentuser", "async123".toCharArray()).join() : "Async login accepted an unknown user";
+
+            dbHelper.resetPasswordAsync(username, "async456".toCharArray()).join();
+            assert dbHelper.loginAsync(username, "async456".toCharArray()).join() : "Async reset did not change the password";
+
+            // A one-thread service with a one-slot queue must reject the third concurrent request
+            HashingService saturated = new HashingService(password -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }, (password, hash) -> true, 1, 1);
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(saturated.hash("pw".toCharArray()));
+            }
+            try {
+                futures.get(2).get();
+                assert false : "Saturated hashing service should reject work";
+            } catch (ExecutionException e) {
+                assert e.getCause() instanceof RejectedExecutionException : "Expected a rejection";
+            }
+            saturated.shutdown();
+            System.out.println("Async hashing test successful: " + dbHelper.getHashingService());
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedTests++;
+        } finally {
+            dbHelper.deleteUser(username);
+        }
+    }
+
+    /**
+     * Tests that a successful login migrates a stored hash to the current BCrypt cost.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testRehashOnLogin() throws SQLException {
+        String username = "RehashUser";
+        int originalCost = dbHelper.getBcryptCost();
+
+        try {
+            dbHelper.setBcryptCost(4);
+            dbHelper.register(username, "rehash123".toCharArray(), "student");
+            assert BCryptCostCalibrator.costOf(dbHelper.getLoginContext(username).getPasswordHash()) == 4 : "Hash should use cost 4";
+
+            String otp = dbHelper.issueOTP(username);
+            dbHelper.setBcryptCost(5);
+            long upgradesBefore = dbHelper.getRehashUpgradeCount();
+            assert dbHelper.login(username, "rehash123".toCharArray()) : "Login failed before rehash";
+            long deadline = System.currentTimeMillis() + 5000;
+            while (dbHelper.getRehashUpgradeCount() == upgradesBefore && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assert BCryptCostCalibrator.costOf(dbHelper.getLoginContext(username).getPasswordHash()) == 5 : "Hash should be upgraded to cost 5";
+            assert dbHelper.login(username, "rehash123".toCharArray()) : "Login failed after rehash";
+            assert dbHelper.verifyOTP(username, otp) : "Rehashing should not invalidate an outstanding OTP";
+            System.out.println("Rehash on login successful.");
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedTests++;
+        } finally {
+            dbHelper.setBcryptCost(originalCost);
+            dbHelper.deleteUser(username);
+        }
+    }
+
+    /**
+     * Tests Argon2id hashing alongside BCrypt and migration between the two on login.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testArgon2idHashing() throws SQLException {
+        String bcryptUser = "BCryptUser";
+        String argonUser = "ArgonUser";
+        PasswordHashers hashers = dbHelper.getPasswordHashers();
+
+        try {
+            dbHelper.register(bcryptUser, "bcrypt123".toCharArray(), "student");
+            hashers.setCurrent("argon2id");
+            dbHelper.register(argonUser, "argon123".toCharArray(), "student");
+
+            String argonHash = dbHelper.getLoginContext(argonUser).getPasswordHash();
+            assert argonHash.startsWith("$argon2id$v=19$m=") : "Argon2id hash should be self-describing";
+            assert dbHelper.login(argonUser, "argon123".toCharArray()) : "Argon2id login failed";
+            assert !dbHelper.login(argonUser, "wrong".toCharArray()) : "Argon2id login accepted a wrong password";
+
+            long migrationsBefore = dbHelper.getRehashMigrationCount();
+            assert dbHelper.login(bcryptUser, "bcrypt123".toCharArray()) : "BCrypt hash should still verify";
+            long deadline = System.currentTimeMillis() + 5000;
+            while (dbHelper.getRehashMigrationCount() == migrationsBefore && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assert dbHelper.getLoginContext(bcryptUser).getPasswordHash().startsWith("$argon2id$") : "BCrypt hash should migrate to Argon2id";
+            assert dbHelper.login(bcryptUser, "bcrypt123".toCharArray()) : "Login failed after migration";
+            assert dbHelper.generateSalt().length() == 24 : "Salt should be 16 Base64-encoded bytes";
+            System.out.println("Argon2id hashing test successful.");
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedTests++;
+        } finally {
+            hashers.setCurrent("bcrypt");
+            dbHelper.deleteUser(bcryptUser);
+            dbHelper.deleteUser(argonUser);
+        }
+    }
+
+    /**
+     * Tests atomic invitation redemption, including rollback when the user cannot be created.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testRedeemInvitation() throws SQLException {
+        String takenUsername = "RedeemTaken";
+        String newUsername = "RedeemNew";
+
+        try {
+            dbHelper.register(takenUsername, "taken123".toCharArray(), "student");
+            dbHelper.createInvitation("REDEEM-1", "instructor");
+
+            try {
+                dbHelper.redeemInvitationAndRegister("REDEEM-1", takenUsername, "pw".toCharArray());
+                assert false : "Registering a taken username should fail";
+            } catch (SQLException e) {
+                assert dbHelper.getInvitationRoles("REDEEM-1") != null : "Failed registration should not consume the invitation";
+            }
+
+            String roles = dbHelper.redeemInvitationAndRegister("REDEEM-1", newUsername, "new123".toCharArray());
+            assert "instructor".equals(roles) : "Redemption should return the invitation roles";
+            assert dbHelper.login(newUsername, "new123".toCharArray()) : "Redeemed user should be able to log in";
+            assert dbHelper.redeemInvitationAndRegister("REDEEM-1", "RedeemAgain", "pw".toCharArray()) == null : "Used invitation should not redeem twice";
+            assert !dbHelper.doesUserExist("RedeemAgain") : "No user should be created from a used invitation";
+            System.out.println("Invitation redemption test successful.");
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            dbHelper.deleteUser(takenUsername);
+            dbHelper.deleteUser(newUsername);
+        }
+    }
+
+    /**
+     * Tests role lookups through the user_roles table and migration of the legacy roles column.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testRoleIndex() throws SQLException {
+        String instructor = "RoleInstructor";
+        String student = "RoleStudent";
+        String legacy = "RoleLegacy";
+
+        try {
+            dbHelper.register(instructor, "role123".toCharArray(), "Instructor, student");
+            dbHelper.register(student, "role123".toCharArray(), "student");
+
+            assert dbHelper.getUsernamesByRole("INSTRUCTOR").equals(Arrays.asList(instructor)) : "Role lookup should be case-insensitive";
+            assert dbHelper.getUsernamesByRole("student").containsAll(Arrays.asList(instructor, student)) : "Both users should be students";
+            assert Arrays.equals(dbHelper.getUserRoles(instructor), new String[]{"instructor", "student"}) : "Roles should keep their order";
+
+            dbHelper.updateUserRoles(student, "admin");
+            assert !dbHelper.getUsernamesByRole("student").contains(student) : "Old role rows should be replaced";
+            assert dbHelper.isUserAdmin(student) : "New role should be visible";
+
+            // A row written by the old code has roles in the legacy column only
+            try (PooledConnection conn = dbHelper.getConnectionPool().borrow()) {
+                PreparedStatement pstmt = conn.prepare("INSERT INTO cse360users (username, roles) VALUES (?, ?)");
+                pstmt.setString(1, legacy);
+                pstmt.setString(2, "student,instructor");
+                pstmt.executeUpdate();
+            }
+            int before = dbHelper.countUsersByRole("instructor");
+            assert dbHelper.migrateRoles() == 1 : "Only the legacy user should need migrating";
+            assert dbHelper.countUsersByRole("instructor") == before + 1 : "Migrated roles should be indexed";
+            assert dbHelper.migrateRoles() == 0 : "Migration should be idempotent";
+
+            dbHelper.deleteUser(legacy);
+            assert dbHelper.countUsersByRole("instructor") == before : "Deleting a user should remove its roles";
+            System.out.println("Role index test successful.");
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            dbHelper.deleteUser(instructor);
+            dbHelper.deleteUser(student);
+            dbHelper.deleteUser(legacy);
+        }
+    }
+
+    /**
+     * Tests keyset pagination and filtering of the user listing.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testListUsers() throws SQLException {
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            usernames.add("List_" + i);
+        }
+
+        try {
+            for (int i = 0; i < usernames.size(); i++) {
+                dbHelper.register(usernames.get(i), "list123".toCharArray(), i % 2 == 0 ? "student" : "instructor");
+            }
+            dbHelper.updateProfile(usernames.get(0), "list0@example.com", "List", "", "Zero", "");
+
+            UserFilter filter = new UserFilter().usernamePrefix("List_");
+            List<String> listed = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                UserPage page = dbHelper.listUsers(filter, cursor, 3);
+                assert page.getUsers().size() <= 3 : "Page should not exceed the page size";
+                page.getUsers().forEach(user -> listed.add(user.getUsername()));
+                cursor = page.getNextCursor();
+                pages++;
+            } while (cursor != null);
+            assert listed.equals(usernames) : "Pages should list every user once, in order";
+            assert pages == 3 : "Seven users in pages of three should take three pages";
+
+            UserPage instructors = dbHelper.listUsers(new UserFilter().usernamePrefix("List_").role("Instructor"), null, 10);
+            assert instructors.getUsers().size() == 3 : "Role filter should keep only instructors";
+            assert !instructors.hasMore() : "A short page should be the last one";
+
+            UserPage complete = dbHelper.listUsers(new UserFilter().usernamePrefix("List_").profileComplete(true), null, 10);
+            assert complete.getUsers().size() == 1 && complete.getUsers().get(0).getUsername().equals(usernames.get(0))
+                    : "Profile filter should keep only complete profiles";
+
+            assert dbHelper.listUsers(new UserFilter().usernamePrefix("List%"), null, 10).getUsers().isEmpty()
+                    : "Wildcards in the prefix should be matched literally";
+            System.out.println("User listing test successful.");
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            for (String username : usernames) {
+                dbHelper.deleteUser(username);
+            }
+        }
+    }
+
+    /**
+     * Tests that a bulk import writes valid rows in batches and reports bad ones without stopping.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testBulkImport() throws SQLException {
+        String csv = "username,password,roles,email,first_name,middle_name,last_name,preferred_name\n"
+                + "Import_1,pass1,student\n"
+                + "Import_2,pass2,\"student,Instructor\",import2@example.com,Ada,,Lovelace,\n"
+                + "Import_1,pass3,student\n"
+                + ",pass4,student\n"
+                + "Import_3,pass5,\"unterminated\n"
+                + "Import_4,pass6,admin\n";
+        List<String> usernames = Arrays.asList("Import_1", "Import_2", "Import_3", "Import_4");
+
+        try {
+            ByteArrayOutputStream log = new ByteArrayOutputStream();
+            BulkUserImporter importer = new BulkUserImporter(dbHelper, 2, 2, new PrintStream(log, true));
+            BulkUserImporter.Result result = importer.importUsers(new BufferedReader(new StringReader(csv)));
+
+            assert result.read == 6 : "Every data row should be read";
+            assert result.imported == 3 : "Valid rows should be imported";
+            assert result.failed == 3 : "Duplicate, blank and malformed rows should fail";
+            assert log.toString().contains("Line 4 (Import_1): Username or email is already in use") : "Duplicate should be reported by line";
+            assert dbHelper.login("Import_2", "pass2".toCharArray()) : "Imported user should be able to log in";
+            assert Arrays.equals(dbHelper.getUserRoles("Import_2"), new String[]{"student", "instructor"}) : "Quoted roles should be split";
+            assert dbHelper.isProfileComplete("Import_2") && !dbHelper.isProfileComplete("Import_1") : "Profile status should follow the profile columns";
+            assert dbHelper.getUserRoles("Import_1").length == 1 : "Duplicate row should not add roles to the existing user";
+            System.out.println("Bulk import test successful: " + result);
+            passedTests++;
+        } catch (AssertionError | IOException e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            for (String username : usernames) {
+                dbHelper.deleteUser(username);
+            }
+        }
+    }
+
+    /**
+     * Tests bulk invitation creation, including replacement of a code that already exists.
+     * Runs against its own in-memory database, so its fixed codes and thousands of
+     * invitations never reach the application database.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testBulkInvitations() throws SQLException {
+        DatabaseHelper dbHelper = new DatabaseHelper("jdbc:h2:mem:bulkinvitations;DB_CLOSE_DELAY=-1");
+        try {
+            dbHelper.connectToDatabase();
+            InvitationCodeGenerator random = new InvitationCodeGenerator();
+            long start = System.nanoTime();
+            List<String> codes = dbHelper.createInvitations(5000, "Student", random);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            assert codes.size() == 5000 && new HashSet<>(codes).size() == 5000 : "Every code should be unique";
+            assert "student".equals(dbHelper.getInvitationRoles(codes.get(4999))) : "Invitations should carry the roles";
+
+            // A generator that first repeats an existing code, then itself
+            String taken = codes.get(0);
+            InvitationCodeGenerator colliding = new InvitationCodeGenerator() {
+                private final String[] sequence = {taken, "FRESH-CODE1", "FRESH-CODE1", "FRESH-CODE2"};
+                private int next;
+
+                @Override
+                String nextCode() {
+                    if (next == sequence.length) {
+                        throw new AssertionError("Generator asked for more than " + sequence.length + " codes");
+                    }
+                    return sequence[next++];
+                }
+            };
+            List<String> replaced = dbHelper.createInvitations(2, "student", colliding);
+            assert replaced.equals(Arrays.asList("FRESH-CODE1", "FRESH-CODE2")) : "Taken and repeated codes should be replaced";
+            System.out.printf("Bulk invitation test successful: 5000 invitations in %.2f s%n", seconds);
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            dbHelper.closeConnection();
+        }
+    }
+
+    /**
+     * Tests that the export streams every user to gzip-compressed CSV and JSON Lines.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testUserExport() throws SQLException {
+        String username = "ExportUser";
+        Path csv = null;
+        Path jsonl = null;
+
+        try {
+            dbHelper.register(username, "export123".toCharArray(), "student,instructor");
+            dbHelper.updateProfile(username, "export@example.com", "Ex", "", "O\"Port, Jr", "");
+            UserExporter exporter = new UserExporter(dbHelper);
+            csv = Files.createTempFile("users", ".csv.gz");
+            jsonl = Files.createTempFile("users", ".jsonl.gz");
+
+            long exported = exporter.export(csv, UserExporter.Format.CSV);
+            List<String> csvLines = readGzipLines(csv);
+            assert csvLines.size() == exported + 1 : "CSV should hold a header and one line per user";
+            assert csvLines.contains("ExportUser,export@example.com,Ex,,\"O\"\"Port, Jr\",,\"student,instructor\",true")
+                    : "CSV fields should be quoted and escaped";
+
+            assert exporter.export(jsonl, UserExporter.Format.JSON_LINES) == exported : "Both formats should export every user";
+            List<String> jsonLines = readGzipLines(jsonl);
+            assert jsonLines.contains("{\"username\":\"ExportUser\",\"email\":\"export@example.com\",\"firstName\":\"Ex\","
+                    + "\"middleName\":null,\"lastName\":\"O\\\"Port, Jr\",\"preferredName\":null,"
+                    + "\"roles\":[\"student\",\"instructor\"],\"profileComplete\":true}") : "JSON Lines should escape strings";
+            System.out.println("User export test successful: " + exported + " users");
+            passedTests++;
+        } catch (AssertionError | IOException e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            dbHelper.deleteUser(username);
+            deleteQuietly(csv);
+            deleteQuietly(jsonl);
+        }
+    }
+
+    private static List<String> readGzipLines(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+            return lines;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            // Temporary file; nothing to do
+        }
+    }
+
+    /**
+     * Tests batch admin commands, including isolation of a command that fails inside a group.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testBatchCommands() throws SQLException {
+        List<String> usernames = Arrays.asList("Batch_A", "Batch_B", "Batch_C");
+        String commands = "# cohort changes\n"
+                + "set-roles Batch_A instructor,student\n"
+                + "reset-password Batch_B\n"
+                + "delete Batch_C\n"
+                + "set-roles Nobody student\n"
+                + "frobnicate Batch_A\n"
+                + "\n"
+                + "invite student\n"
+                + "invite " + "x".repeat(120) + "\n"; // Too long for the column, so its group falls back to one command per transaction
+
+        try {
+            for (String username : usernames) {
+                dbHelper.register(username, "batch123".toCharArray(), "student");
+            }
+            StringWriter report = new StringWriter();
+            BatchCommandRunner.Summary summary = new BatchCommandRunner(dbHelper, new InvitationCodeGenerator(), 4)
+                    .run(new BufferedReader(new StringReader(commands)), report);
+            String[] lines = report.toString().split("\n");
+
+            assert summary.commands == 7 && summary.succeeded == 4 && summary.failed == 3 : "Unexpected totals: " + summary;
+            assert lines.length == 8 && lines[7].startsWith("{\"summary\":true") : "Report should have one line per command and a summary";
+            assert lines[6].contains("\"status\":\"error\"") : "Failing command should be reported";
+            assert lines[3].contains("\"status\":\"error\",\"result\":\"User not found: Nobody\"") : "Missing user should be reported";
+            assert Arrays.equals(dbHelper.getUserRoles("Batch_A"), new String[]{"instructor", "student"}) : "Roles should be updated";
+            assert dbHelper.isOTPPasswordSet("Batch_B") : "Password should be reset";
+            assert !dbHelper.doesUserExist("Batch_C") : "User should be deleted";
+            String code = lines[5].replaceAll(".*\"result\":\"([^\"]+)\".*", "$1");
+            assert "student".equals(dbHelper.getInvitationRoles(code)) : "Invitation should be created";
+            System.out.println("Batch command test successful: " + summary);
+            passedTests++;
+        } catch (AssertionError | IOException e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            for (String username : usernames) {
+                dbHelper.deleteUser(username);
+            }
+        }
+    }
+
+    /**
+     * Tests that the username filter answers unknown usernames without a query and sheds
+     * deleted usernames on rebuild.
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    private static void testUsernameFilter() throws SQLException {
+        String username = "BloomUser";
+        UsernameBloomFilter filter = dbHelper.getUsernameFilter();
+
+        try {
+            long borrowsBefore = dbHelper.getConnectionPool().getBorrowCount();
+            long missesBefore = filter.getDefiniteMisses();
+            for (int i = 0; i < 100; i++) {
+                String stranger = "bot-" + i;
+                assert !dbHelper.doesUserExist(stranger) && !dbHelper.isOTPPasswordSet(stranger)
+                        && dbHelper.getLoginContext(stranger) == null && !dbHelper.login(stranger, "guess".toCharArray())
+                        : "Unknown usernames should not exist";
+            }
+            long queries = dbHelper.getConnectionPool().getBorrowCount() - borrowsBefore;
+            assert filter.getDefiniteMisses() - missesBefore >= 390 : "Most unknown usernames should be definite misses";
+            assert queries <= 10 : "Definite misses should not query the database, but " + queries + " did";
+
+            dbHelper.register(username, "bloom123".toCharArray(), "student");
+            assert filter.mightContain(username) && dbHelper.doesUserExist(username) : "Registered user should pass the filter";
+
+            dbHelper.deleteUser(username);
+            assert filter.mightContain(username) : "Deleted usernames stay in the filter until it is rebuilt";
+            filter.rebuild();
+            assert !filter.mightContain(username) : "Rebuild should shed deleted usernames";
+            System.out.println("Username filter test successful: " + filter);
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            dbHelper.deleteUser(username);
+        }
+    }
+
+    /**
+     * Tests that login and OTP attempts beyond the throttling limits are refused, and that
+     * buckets stay exact under contention and are evicted once idle.
+     */
+    private static void testLoginThrottling() throws SQLException {
+        String username = "ThrottledUser";
+        AuthenticationManager authManager = new AuthenticationManager(dbHelper);
+        LoginThrottler throttler = dbHelper.getLoginThrottler();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            dbHelper.register(username, "throttle123".toCharArray(), "student");
+            assert authManager.login(username, "throttle123".toCharArray()) : "First login should succeed";
+            for (int i = 0; i < LoginThrottler.DEFAULT_USER_BURST; i++) {
+                assert !authManager.login(username, "wrong".toCharArray()) : "Wrong password accepted";
+            }
+            long limitedBefore = throttler.getUserLimitedCount();
+            assert !authManager.login(username, "throttle123".toCharArray()) : "Login past the burst should be throttled";
+            assert throttler.getUserLimitedCount() == limitedBefore + 1 : "Throttled login was not counted";
+            assert !authManager.loginAsync(username, "throttle123".toCharArray()).join() : "Async login should be throttled too";
+
+            String otp = dbHelper.resetUserPasswordByAdmin(username);
+            String wrongOtp = otp.equals("000000") ? "111111" : "000000";
+            for (int i = 0; i < LoginThrottler.DEFAULT_USER_BURST; i++) {
+                assert !authManager.verifyOTP(username, wrongOtp) : "Wrong OTP accepted";
+            }
+            assert !authManager.verifyOTP(username, otp) : "OTP guesses past the burst should be throttled";
+
+            // Many threads draining one bucket must not let a single extra attempt through
+            LoginThrottler contended = new LoginThrottler(100, 1, 1_000_000, 1_000_000);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        contended.tryAcquire("shared");
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assert contended.getAllowedCount() == 100 : "Expected 100 allowed attempts, got " + contended.getAllowedCount();
+            assert contended.getUserLimitedCount() == 300 : "Expected 300 throttled attempts, got " + contended.getUserLimitedCount();
+
+            LoginThrottler global = new LoginThrottler(5, 1, 2, 1);
+            assert global.tryAcquire("a").isAllowed() && global.tryAcquire("b").isAllowed() : "Global burst should be allowed";
+            assert global.tryAcquire("c") == LoginThrottler.Decision.GLOBAL_LIMITED : "Global limit should apply across users";
+            // Attempts refused globally must not use up the user's own bucket
+            for (int i = 0; i < 10; i++) {
+                assert global.tryAcquire("c") == LoginThrottler.Decision.GLOBAL_LIMITED : "User bucket was charged for a refused attempt";
+            }
+            assert global.evictIdle() == 1 && global.getTrackedKeys() == 2 : "Only the refused user's bucket should still be full";
+
+            LoginThrottler fast = new LoginThrottler(1, 60_000, 1_000_000, 1_000_000);
+            fast.tryAcquire("idle");
+            Thread.sleep(5);
+            assert fast.evictIdle() == 1 && fast.getTrackedKeys() == 0 : "Refilled bucket should be evicted";
+            System.out.println("Login throttling test successful: " + throttler);
+            passedTests++;
+        } catch (AssertionError | InterruptedException | ExecutionException e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            executor.shutdownNow();
+            throttler.reset(username);
+            throttler.reset("otp:" + username);
+            dbHelper.deleteUser(username);
+        }
+    }
+
+    /**
+     * Tests that sessions authorize roles from the token, are capped per user, expire when
+     * idle, and are revoked when the user's roles or password change or the user is deleted.
+     */
+    private static void testSessions() throws SQLException {
+        String username = "SessionUser";
+        SessionManager sessions = dbHelper.getSessionManager();
+
+        try {
+            dbHelper.register(username, "session123".toCharArray(), "student,admin");
+            LoginContext context = dbHelper.getLoginContext(username);
+            String token = sessions.create(context);
+            SessionManager.Session session = sessions.get(token);
+            assert session != null && session.getUsername().equals(username) : "Session not found";
+            assert session.getPermissions() == (Permission.ADMIN | Permission.STUDENT) : "Wrong session permissions";
+            assert sessions.get("forged-token") == null : "Unknown token accepted";
+
+            String[] tokens = new String[SessionManager.DEFAULT_MAX_PER_USER];
+            for (int i = 0; i < tokens.length; i++) {
+                tokens[i] = sessions.create(context);
+            }
+            assert sessions.get(token) == null : "Oldest session should be dropped past the per-user cap";
+            assert sessions.get(tokens[tokens.length - 1]) != null : "Newest session should remain";
+
+            dbHelper.updateUserRoles(username, "student");
+            for (String t : tokens) {
+                assert sessions.get(t) == null : "Role change should revoke sessions";
+            }
+            token = sessions.create(dbHelper.getLoginContext(username));
+            assert !sessions.get(token).hasPermission(Permission.ACCESS_ADMIN_PANEL) : "New session should have the new roles";
+
+            // A login that loaded its context before a role change must not start a session with the old roles
+            LoginContext stale = dbHelper.getLoginContext(username);
+            dbHelper.updateUserRoles(username, "student,admin");
+            long refused = sessions.getRefusedCount();
+            assert sessions.create(stale) == null : "Session created from a context loaded before a role change";
+            assert sessions.getRefusedCount() == refused + 1 : "Refused session was not counted";
+            token = sessions.create(dbHelper.getLoginContext(username));
+            assert sessions.get(token).hasPermission(Permission.ACCESS_ADMIN_PANEL) : "A fresh context should start a session";
+
+            dbHelper.resetPassword(username, "session456".toCharArray());
+            assert sessions.get(token) == null : "Password reset should revoke sessions";
+            stale = dbHelper.getLoginContext(username);
+            token = sessions.create(stale);
+            dbHelper.deleteUser(username);
+            assert sessions.get(token) == null : "Deleting the user should revoke sessions";
+            assert sessions.create(stale) == null : "Session created for a deleted user";
+
+            SessionManager shortLived = new SessionManager(200, 60_000, 5);
+            String idle = shortLived.create("idle", new String[]{"student"});
+            String busy = shortLived.create("busy", new String[]{"student"});
+            for (int i = 0; i < 6; i++) {
+                Thread.sleep(60);
+                assert shortLived.get(busy) != null : "A session in use should stay valid";
+            }
+            assert shortLived.get(idle) == null : "An idle session should expire";
+            Thread.sleep(250);
+            assert shortLived.evictExpired() == 1 && shortLived.getActiveCount() == 0 : "Expired sessions should be swept";
+            System.out.println("Session test successful: " + sessions);
+            passedTests++;
+        } catch (AssertionError | InterruptedException e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            dbHelper.deleteUser(username);
+        }
+    }
+
+    /**
+     * Tests that OTPs are issued without writing, verify only within their time window
+     * and only once, and stop verifying once the password changes.
+     */
+    private static void testStatelessOtp() throws SQLException {
+        String username = "OtpUser";
+
+        try {
+            dbHelper.register(username, "otp123".toCharArray(), "student");
+            String otp = dbHelper.issueOTP(username);
+            assert otp != null && otp.matches("\\d{6}") : "OTP should be six digits";
+            assert !dbHelper.isOTPPasswordSet(username) : "Issuing an OTP should not lock the account";
+            assert !dbHelper.verifyOTP(username, otp.equals("000000") ? "111111" : "000000") : "Wrong OTP accepted";
+            assert !dbHelper.verifyOTP(username, null) && !dbHelper.verifyOTP(username, "12345") : "Malformed OTP accepted";
+            assert dbHelper.verifyOTP(username, otp) : "Issued OTP should verify";
+            assert !dbHelper.verifyOTP(username, otp) : "OTP should only verify once";
+            assert dbHelper.issueOTP("NoSuchOtpUser") == null && !dbHelper.verifyOTP("NoSuchOtpUser", otp) : "Unknown user got an OTP";
+
+            otp = dbHelper.issueOTP(username);
+            dbHelper.resetPassword(username, "otp456".toCharArray());
+            assert !dbHelper.verifyOTP(username, otp) : "OTP should stop verifying once the password changes";
+
+            // Five-minute steps, fifteen minutes of validity: the code issued at a step start lasts exactly three steps
+            OtpService service = new OtpService(new byte[32], 300, 15);
+            long issuedAt = 5_000L * 300_000;
+            String code = service.generate(1, 0, issuedAt);
+            assert service.verify(1, 0, code, issuedAt + 899_999) : "OTP should be valid within its window";
+            assert !service.verify(1, 0, code, issuedAt + 900_000) : "OTP should expire after its window";
+            assert !service.verify(1, 0, code, issuedAt - 1) : "OTP should not be valid before it was issued";
+            assert !service.verify(2, 0, code, issuedAt) : "OTP should be bound to the user";
+            assert !service.verify(1, 1, code, issuedAt) : "OTP should be bound to the counter";
+            System.out.println("Stateless OTP test successful: " + service);
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            dbHelper.deleteUser(username);
+        }
+    }
+
+    /**
+     * Tests that latency histogram percentiles stay within the bucket precision and that
+     * concurrent recording loses no counts, and that operation mixes are parsed by weight.
+     */
+    private static void testLatencyHistogram() {
+        try {
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (long micros = 1; micros <= 10_000; micros++) {
+                histogram.record(micros * 1_000);
+            }
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            assert snapshot.getCount() == 10_000 : "Histogram count should be 10000";
+            assert snapshot.getMaxNanos() == 10_000_000L : "Histogram max should be exact";
+            assert Math.abs(snapshot.getMeanNanos() - 5_000_500.0) < 1 : "Histogram mean should be exact";
+            double[] percentiles = {50, 99, 99.9};
+            long[] expected = {5_000_000L, 9_900_000L, 9_990_000L};
+            for (int i = 0; i < percentiles.length; i++) {
+                long actual = snapshot.getPercentileNanos(percentiles[i]);
+                assert Math.abs(actual - expected[i]) <= expected[i] / 60
+                        : "p" + percentiles[i] + " was " + actual + ", expected about " + expected[i];
+            }
+            assert new LatencyHistogram().snapshot().getPercentileNanos(99) == 0 : "Empty histogram should report 0";
+
+            LatencyHistogram shared = new LatencyHistogram();
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 100_000; i++) {
+                        shared.record(i);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assert shared.snapshot().getCount() == 400_000 : "Concurrent recording lost counts";
+
+            LoadGenerator.Operation[] mix = LoadGenerator.parseMix("login=3,register=1");
+            int logins = 0;
+            for (LoadGenerator.Operation operation : mix) {
+                logins += operation == LoadGenerator.Operation.LOGIN ? 1 : 0;
+            }
+            assert logins == 75 && mix.length == 100 : "Mix should give login 75% of operations";
+            try {
+                LoadGenerator.parseMix("logout=1");
+                assert false : "Unknown operation accepted in mix";
+            } catch (IllegalArgumentException expectedError) {
+                // Expected
+            }
+            System.out.println("Latency histogram test successful: " + snapshot);
+            passedTests++;
+        } catch (AssertionError | InterruptedException e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        }
+    }
+
+    /**
+     * Tests that operations are timed with their failures counted, and that the metrics
+     * are published as MXBeans and as Prometheus text over HTTP.
+     */
+    private static void testOperationMetrics() throws SQLException {
+        String username = "MetricsUser";
+        OperationMetrics metrics = dbHelper.getMetrics();
+        OperationMetrics standalone = new OperationMetrics();
+
+        try {
+            dbHelper.register(username, "metrics123".toCharArray(), "student");
+            long logins = metrics.timer("login").getCount();
+            long loginFailures = metrics.timer("login").getFailures();
+            long authLogins = metrics.timer("auth.login").getCount();
+            long hashes = metrics.timer(dbHelper.getPasswordHashers().getCurrent().getName() + ".verify").getCount();
+            long queries = metrics.timer("db.query").getCount();
+            long holds = metrics.timer("db.connectionHold").getCount();
+
+            assert dbHelper.login(username, "metrics123".toCharArray()) : "Login should succeed";
+            assert !dbHelper.login(username, "wrong".toCharArray()) : "Wrong password accepted";
+            assert new AuthenticationManager(dbHelper).login(username, "metrics123".toCharArray()) : "Flow login should succeed";
+            assert metrics.timer("login").getCount() == logins + 3 : "Every login should be timed";
+            assert metrics.timer("login").getFailures() == loginFailures + 1 : "Only the refused login is a failure";
+            assert metrics.timer("auth.login").getCount() == authLogins + 1 : "The login flow should be timed";
+            assert metrics.timer(dbHelper.getPasswordHashers().getCurrent().getName() + ".verify").getCount() == hashes + 3
+                    : "Every password verification should be timed";
+            assert metrics.timer("db.query").getCount() > queries : "Query time should be recorded";
+            assert metrics.timer("db.connectionHold").getCount() > holds : "Connection hold time should be recorded";
+
+            // The MXBean of a timer is readable over JMX
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            standalone.registerMBeans(server);
+            standalone.timer("probe").record(2_000_000, false);
+            standalone.counter("probe.events", () -> 7);
+            Set<ObjectName> names = server.queryNames(new ObjectName(OperationMetrics.JMX_DOMAIN + ":type=Operation,name=\"probe\",*"), null);
+            assert names.size() == 1 : "Probe timer MXBean should be registered once but found " + names.size();
+            assert ((Long) server.getAttribute(names.iterator().next(), "Count")) == 1 : "MXBean count should be 1";
+
+            // The Prometheus endpoint serves histograms, failures and counters
+            standalone.startHttpServer(0);
+            HttpURLConnection http = (HttpURLConnection) new URL("http://127.0.0.1:" + standalone.getHttpPort() + "/metrics").openConnection();
+            String body;
+            try (InputStream in = http.getInputStream()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            assert http.getResponseCode() == 200 : "Metrics endpoint should answer 200";
+            assert body.contains("cse360_operation_duration_seconds_bucket{operation=\"probe\",le=\"0.0025\"} 1")
+                    : "Histogram bucket missing:\n" + body;
+            assert body.contains("cse360_operation_duration_seconds_bucket{operation=\"probe\",le=\"0.001\"} 0") : "Bucket bound wrong";
+            assert body.contains("cse360_operation_duration_seconds_count{operation=\"probe\"} 1") : "Histogram count missing";
+            assert body.contains("cse360_operation_failures_total{operation=\"probe\"} 0") : "Failure counter missing";
+            assert body.contains("cse360_probe_events_total 7") : "Counter missing";
+            standalone.unpublish();
+            assert server.queryNames(new ObjectName(OperationMetrics.JMX_DOMAIN + ":type=Operation,name=\"probe\",*"), null).isEmpty()
+                    : "MXBeans should be unregistered";
+            System.out.println("Operation metrics test successful: " + metrics.timer("login").snapshot());
+            passedTests++;
+        } catch (AssertionError | JMException | IOException e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            standalone.unpublish();
+            dbHelper.deleteUser(username);
+        }
+    }
+
+    /**
+     * Tests that SQL and password hashing events are off by default and are recorded,
+     * with row counts and BCrypt cost, once a flight recording enables them.
+     */
+    private static void testFlightRecorderEvents() throws SQLException {
+        String username = "JfrUser";
+        Path file = null;
+        Recording recording = new Recording();
+        try {
+            assert !SqlExecutionEvent.isRecording() : "SQL events should be off by default";
+            recording.enable(SqlExecutionEvent.NAME).withThreshold(Duration.ZERO);
+            recording.enable(PasswordHashEvent.NAME).withThreshold(Duration.ZERO);
+            recording.start();
+            assert SqlExecutionEvent.isRecording() : "SQL events should be on while recording";
+
+            dbHelper.register(username, "jfr12345".toCharArray(), "student");
+            assert !dbHelper.login(username, "wrong".toCharArray()) : "Wrong password accepted";
+            int students = dbHelper.getUsernamesByRole("student").size();
+            recording.stop();
+            assert !SqlExecutionEvent.isRecording() : "SQL events should be off after the recording";
+
+            file = Files.createTempFile("cse360", ".jfr");
+            recording.dump(file);
+            boolean inserted = false;
+            boolean selected = false;
+            boolean hashed = false;
+            boolean rejected = false;
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                String name = event.getEventType().getName();
+                if (name.equals(SqlExecutionEvent.NAME)) {
+                    String sql = event.getString("sql");
+                    assert event.getInt("sqlId") == sql.hashCode() : "SQL ID should be the hash of the SQL text";
+                    inserted |= sql.startsWith("INSERT INTO cse360users") && event.getLong("rows") == 1;
+                    selected |= sql.contains("FROM user_roles") && event.getLong("rows") == students;
+                } else if (name.equals(PasswordHashEvent.NAME)) {
+                    hashed |= event.getString("operation").equals("hash") && event.getInt("cost") == dbHelper.getBcryptCost();
+                    rejected |= event.getString("operation").equals("verify") && !event.getBoolean("matched");
+                }
+            }
+            assert inserted : "The user insert should be recorded with one row";
+            assert selected : "The role query should be recorded with " + students + " rows";
+            assert hashed : "The password hash should be recorded with the BCrypt cost";
+            assert rejected : "The failed verification should be recorded";
+            System.out.println("Flight recorder events test successful");
+            passedTests++;
+        } catch (AssertionError | IOException e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            recording.close();
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // Left in the temporary directory
+                }
+            }
+            dbHelper.deleteUser(username);
+        }
+    }
+
+    /**
+     * Tests that statements run through an instrumented connection are logged with row
+     * counts, redacted parameters and plans, and that statements under the threshold are not.
+     */
+    private static void testSlowQueryLog() throws SQLException {
+        String url = "jdbc:h2:mem:slowquerytest;DB_CLOSE_DELAY=-1";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream log = new PrintStream(out, true, StandardCharsets.UTF_8);
+        // A zero threshold logs every statement; the second log only statements over an hour
+        SlowQueryLog everything = new SlowQueryLog(0, 16, () -> DriverManager.getConnection(url), log);
+        SlowQueryLog nothing = new SlowQueryLog(TimeUnit.HOURS.toNanos(1), 16, () -> DriverManager.getConnection(url), log);
+        SlowQueryLog patient = new SlowQueryLog(TimeUnit.MILLISECONDS.toNanos(200), 16, () -> DriverManager.getConnection(url), log);
+        try (Connection connection = everything.instrument(DriverManager.getConnection(url));
+             Connection quiet = nothing.instrument(DriverManager.getConnection(url));
+             Connection streaming = patient.instrument(DriverManager.getConnection(url))) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE accounts (id INT PRIMARY KEY, secret VARCHAR(50))");
+            }
+            PreparedStatement insert = connection.prepareStatement("INSERT INTO accounts VALUES (?, ?)");
+            insert.setInt(1, 1);
+            insert.setString(2, "hunter2-secret");
+            insert.executeUpdate();
+            insert.setInt(1, 2);
+            insert.setNull(2, Types.VARCHAR);
+            insert.executeUpdate();
+            insert.close();
+            try (PreparedStatement select = connection.prepareStatement("SELECT secret FROM accounts WHERE id > ?")) {
+                select.setInt(1, 0);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getString(1);
+                    }
+                }
+            }
+            try (PreparedStatement select = quiet.prepareStatement("SELECT COUNT(*) FROM accounts");
+                 ResultSet rs = select.executeQuery()) {
+                rs.next();
+            }
+            // The caller's work between rows is not the query's time
+            try (PreparedStatement select = streaming.prepareStatement("SELECT id FROM accounts");
+                 ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    Thread.sleep(150);
+                }
+            }
+            everything.close();
+            nothing.close();
+            patient.close();
+            String text = out.toString(StandardCharsets.UTF_8);
+
+            assert everything.getLoggedCount() == 4 : "Every statement should be logged but " + everything.getLoggedCount() + " were:\n" + text;
+            assert nothing.getLoggedCount() == 0 : "Fast statements should not be logged";
+            assert patient.getLoggedCount() == 0 : "Time spent between rows should not make a query slow:\n" + text;
+            assert !text.contains("hunter2") : "String parameters should be redacted:\n" + text;
+            assert text.contains("INSERT INTO accounts VALUES (?, ?) | parameters [1, <string(14)>]") : "Insert not logged:\n" + text;
+            assert text.contains("parameters [2, null]") : "Null parameter not logged:\n" + text;
+            assert text.matches("(?s).*2 rows, result set open [0-9.]+ ms\\): SELECT secret FROM accounts WHERE id > \\? \\| parameters \\[0\\] \\| plan: SELECT.*")
+                    : "Query not logged with its rows and plan:\n" + text;
+            assert text.contains("PUBLIC.PRIMARY_KEY") : "Plan should show the primary key index:\n" + text;
+            System.out.println("Slow query log test successful: " + everything);
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedTests++;
+        } finally {
+            everything.close();
+            nothing.close();
+            patient.close();
+            try (Connection connection = DriverManager.getConnection(url);
+                 Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+            }
+        }
+    }
+
+    /**
+     * Tests that expired invitations cannot be redeemed and that the purge deletes used
+     * and expired invitations in batches while keeping active ones.
+     */
+    private static void testInvitationPurge() throws SQLException {
+        String[] expired = {"PURGE-EXPIRED-1", "PURGE-EXPIRED-2", "PURGE-EXPIRED-3"};
+        String used = "PURGE-USED";
+        String active = "PURGE-ACTIVE";
+
+        try {
+            Timestamp past = new Timestamp(System.currentTimeMillis() - 1000);
+            for (String code : expired) {
+                dbHelper.createInvitation(code, "student", past);
+            }
+            dbHelper.createInvitation(used, "student");
+            dbHelper.markInvitationAsUsed(used);
+            dbHelper.createInvitation(active, "instructor");
+
+            assert dbHelper.getInvitationRoles(expired[0]) == null : "Expired invitation should not resolve";
+            assert dbHelper.redeemInvitationAndRegister(expired[0], "PurgeUser", "purge123".toCharArray()) == null
+                    : "Expired invitation should not be redeemable";
+
+            DatabaseHelper.InvitationCounts before = dbHelper.getInvitationCounts();
+            assert before.expired >= expired.length && before.used >= 1 : "Counts should include stale invitations: " + before;
+            long batchesBefore = dbHelper.getInvitationPurgeBatchCount();
+            int purged = dbHelper.purgeInvitations(2);
+            DatabaseHelper.InvitationCounts after = dbHelper.getInvitationCounts();
+
+            assert purged == before.used + before.expired : "Expected " + (before.used + before.expired) + " purged, got " + purged;
+            assert after.used == 0 && after.expired == 0 && after.total == before.getActive() : "Stale invitations remain: " + after;
+            assert dbHelper.getInvitationPurgeBatchCount() - batchesBefore >= 2 : "Purge should delete in several batches";
+            assert "instructor".equals(dbHelper.getInvitationRoles(active)) : "Active invitation should survive the purge";
+            System.out.println("Invitation purge test successful: " + purged + " purged, " + after);
+            passedTests++;
+        } catch (AssertionError e) {
+            System.out.println("Test failed: " + e.getMessage());
+            failedTests++;
+        } finally {
+            dbHelper.deleteUser("PurgeUser");
+            dbHelper.markInvitationAsUsed(active);
+            dbHelper.purgeInvitations(DatabaseHelper.INVITATION_PURGE_BATCH_SIZE);
+        }
+    }
+}
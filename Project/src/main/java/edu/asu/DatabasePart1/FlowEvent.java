@@ -0,0 +1,66 @@
+package edu.asu.DatabasePart1;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/****
+ * <p> FlowEvent Class </p>
+ *
+ * <p> Description: A Java Flight Recorder event for one user or admin flow, such as a
+ * login or an admin action, with its outcome. Logins and registrations start the event
+ * once the user has typed their credentials, so the duration is the application's own
+ * work. Admin actions prompt as they go, so their duration includes typing; the input
+ * time field says how much of it was. The hashing and SQL events recorded on the same
+ * thread show where the rest went. Disabled unless a recording enables it. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for JFR events
+ */
+
+@Name(FlowEvent.NAME)
+@Label("Flow")
+@Category({"CSE360", "Flows"})
+@Description("A user or admin flow, such as a login or an admin action, and its outcome")
+@Enabled(false)
+class FlowEvent extends Event {
+
+    static final String NAME = "edu.asu.DatabasePart1.Flow";
+
+    @Label("Operation")
+    @Description("The flow, such as user.login or admin.delete")
+    String operation;
+
+    @Label("Outcome")
+    @Description("How the flow ended, such as success, invalidCredentials, denied or error")
+    String outcome;
+
+    @Label("Input Time")
+    @Description("Time within the flow spent waiting for the user to type at a prompt")
+    @Timespan(Timespan.NANOSECONDS)
+    long inputTime;
+
+    // Not recorded: the prompt time already spent when the event was created
+    private final transient long inputNanosAtStart = UserInterface.getInputNanos();
+
+    /**
+     * Ends the event and commits it if the recording's threshold is met.
+     *
+     * @param operation the flow
+     * @param outcome how it ended
+     */
+    void finish(String operation, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.outcome = outcome;
+            this.inputTime = UserInterface.getInputNanos() - inputNanosAtStart;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package edu.asu.DatabasePart1;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/****
+ * <p> HashingService Class </p>
+ *
+ * <p> Description: Runs password hashing and verification on a dedicated worker pool
+ * sized to the available cores. Work waits in a bounded queue; when the queue is full
+ * new work is rejected immediately instead of piling up, so a login storm degrades
+ * into fast failures rather than unbounded latency. Database I/O never runs on these
+ * threads. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for asynchronous password hashing
+ */
+
+class HashingService {
+
+    static final int DEFAULT_THREADS = Integer.getInteger("cse360.hashing.threads",
+            Runtime.getRuntime().availableProcessors());
+    static final int DEFAULT_QUEUE_SIZE = Integer.getInteger("cse360.hashing.queueSize", DEFAULT_THREADS * 16);
+
+    private final Function<char[], String> hasher;
+    private final BiPredicate<char[], String> verifier;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates a service with the default thread count and queue size.
+     *
+     * @param hasher computes a storable hash of a password
+     * @param verifier checks a password against a stored hash
+     */
+    HashingService(Function<char[], String> hasher, BiPredicate<char[], String> verifier) {
+        this(hasher, verifier, DEFAULT_THREADS, DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * Creates a service.
+     *
+     * @param hasher computes a storable hash of a password
+     * @param verifier checks a password against a stored hash
+     * @param threads the number of hashing threads
+     * @param queueSize the number of requests allowed to wait for a thread
+     */
+    HashingService(Function<char[], String> hasher, BiPredicate<char[], String> verifier, int threads, int queueSize) {
+        this.hasher = hasher;
+        this.verifier = verifier;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), daemonThreads("cse360-hasher-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Hashes a password on the worker pool. The password array is cleared once hashed.
+     *
+     * @param password the password to hash
+     * @return a future completing with the hash, or failing with
+     *         {@link RejectedExecutionException} if the service is saturated
+     */
+    CompletableFuture<String> hash(char[] password) {
+        return submit(() -> {
+            try {
+                return hasher.apply(password);
+            } finally {
+                Arrays.fill(password, '\0');
+            }
+        }, password);
+    }
+
+    /**
+     * Verifies a password against a stored hash on the worker pool. The password array
+     * is cleared once checked.
+     *
+     * @param password the password to check
+     * @param storedHash the stored hash to compare against
+     * @return a future completing with true if the password matches, or failing with
+     *         {@link RejectedExecutionException} if the service is saturated
+     */
+    CompletableFuture<Boolean> verify(char[] password, String storedHash) {
+        return submit(() -> verifier.test(password, storedHash), password);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task, char[] password) {
+        submitted.increment();
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            Arrays.fill(password, '\0');
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Password hashing is saturated; try again shortly", e));
+        }
+    }
+
+    /**
+     * Stops accepting work and lets queued work finish.
+     */
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    long getCompletedCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HashingService[threads=%d, active=%d, queued=%d/%d, submitted=%d, completed=%d, rejected=%d]",
+                executor.getMaximumPoolSize(), getActiveCount(), getQueueDepth(),
+                getQueueDepth() + executor.getQueue().remainingCapacity(),
+                getSubmittedCount(), getCompletedCount(), getRejectedCount());
+    }
+
+    /**
+     * Creates a factory for named daemon threads, so worker pools never keep the JVM alive.
+     *
+     * @param prefix the thread name prefix
+     * @return the thread factory
+     */
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
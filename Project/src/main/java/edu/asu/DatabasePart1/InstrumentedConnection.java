@@ -0,0 +1,62 @@
+package edu.asu.DatabasePart1;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/****
+ * <p> InstrumentedConnection Class </p>
+ *
+ * <p> Description: A proxy around a JDBC connection whose prepared and plain statements
+ * are wrapped in {@link InstrumentedStatement}, so every execution is timed for the
+ * {@link SlowQueryLog} and recorded as a flight recorder event. Everything else is passed
+ * to the connection unchanged. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for the slow-query log
+ */
+
+class InstrumentedConnection implements InvocationHandler {
+
+    private final Connection connection;
+    private final SlowQueryLog slowQueryLog;
+
+    private InstrumentedConnection(Connection connection, SlowQueryLog slowQueryLog) {
+        this.connection = connection;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Wraps a connection.
+     *
+     * @param connection the connection to wrap
+     * @param slowQueryLog where slow executions are reported
+     * @return the instrumented connection
+     */
+    static Connection wrap(Connection connection, SlowQueryLog slowQueryLog) {
+        return (Connection) Proxy.newProxyInstance(InstrumentedConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new InstrumentedConnection(connection, slowQueryLog));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Object result;
+        try {
+            result = method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+            return InstrumentedStatement.wrap((PreparedStatement) result, (String) args[0], slowQueryLog);
+        }
+        if (result instanceof Statement && method.getName().equals("createStatement")) {
+            return InstrumentedStatement.wrap((Statement) result, slowQueryLog);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,263 @@
+package edu.asu.DatabasePart1;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/****
+ * <p> InstrumentedStatement Class </p>
+ *
+ * <p> Description: A proxy around a JDBC statement that records a
+ * {@link SqlExecutionEvent} for every execution and, if it has a {@link SlowQueryLog},
+ * reports executions over the log's threshold along with their bind parameters.
+ * Updates and batches report the rows they changed; a query's result set is wrapped as
+ * well, and the execution ends when it is closed, with the number of rows read. A
+ * query's time in the database counts the execution and the calls that fetch its rows,
+ * but not what the caller does between rows, so a streamed export is not reported as
+ * slow for the work of writing it out. That time is also recorded in the query-time
+ * histogram given to {@link #timed}. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for JFR events
+ */
+
+class InstrumentedStatement implements InvocationHandler {
+
+    private final Statement statement;
+    private final String sql;
+    private final SlowQueryLog slowQueryLog;
+    // Set by the pooled connection handing the statement out; the same for every checkout
+    private LatencyHistogram queryTimes;
+    // Bind parameters by index, kept only for the slow-query log
+    private Object[] parameters;
+
+    private InstrumentedStatement(Statement statement, String sql, SlowQueryLog slowQueryLog) {
+        this.statement = statement;
+        this.sql = sql;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Makes a prepared statement record the database time of its executions, wrapping it
+     * unless it is instrumented already.
+     *
+     * @param statement the statement
+     * @param sql its SQL text
+     * @param queryTimes where execution times are recorded
+     * @return the instrumented statement
+     */
+    static PreparedStatement timed(PreparedStatement statement, String sql, LatencyHistogram queryTimes) {
+        PreparedStatement instrumented = isInstrumented(statement) ? statement : wrap(statement, sql, null);
+        handlerOf(instrumented).queryTimes = queryTimes;
+        return instrumented;
+    }
+
+    /**
+     * Wraps a prepared statement whose slow executions are logged.
+     *
+     * @param statement the statement to wrap
+     * @param sql its SQL text
+     * @param slowQueryLog where slow executions are reported, or null
+     * @return the instrumented statement
+     */
+    static PreparedStatement wrap(PreparedStatement statement, String sql, SlowQueryLog slowQueryLog) {
+        return (PreparedStatement) Proxy.newProxyInstance(InstrumentedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new InstrumentedStatement(statement, sql, slowQueryLog));
+    }
+
+    /**
+     * Makes a plain statement, whose SQL is read from each execute call, record the
+     * database time of its executions, wrapping it unless it is instrumented already.
+     *
+     * @param statement the statement
+     * @param queryTimes where execution times are recorded
+     * @return the instrumented statement
+     */
+    static Statement timed(Statement statement, LatencyHistogram queryTimes) {
+        Statement instrumented = isInstrumented(statement) ? statement : wrap(statement, null);
+        handlerOf(instrumented).queryTimes = queryTimes;
+        return instrumented;
+    }
+
+    /**
+     * Wraps a plain statement whose slow executions are logged.
+     *
+     * @param statement the statement to wrap
+     * @param slowQueryLog where slow executions are reported, or null
+     * @return the instrumented statement
+     */
+    static Statement wrap(Statement statement, SlowQueryLog slowQueryLog) {
+        return (Statement) Proxy.newProxyInstance(InstrumentedStatement.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, new InstrumentedStatement(statement, null, slowQueryLog));
+    }
+
+    /**
+     * @param statement a statement
+     * @return true if it is already instrumented
+     */
+    static boolean isInstrumented(Statement statement) {
+        return Proxy.isProxyClass(statement.getClass())
+                && Proxy.getInvocationHandler(statement) instanceof InstrumentedStatement;
+    }
+
+    private static InstrumentedStatement handlerOf(Statement statement) {
+        return (InstrumentedStatement) Proxy.getInvocationHandler(statement);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (!name.startsWith("execute")) {
+            if (slowQueryLog != null && sql != null) {
+                track(name, args);
+            }
+            return call(statement, method, args);
+        }
+        String text = sql != null ? sql : args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+        SqlExecutionEvent event = new SqlExecutionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = call(statement, method, args);
+        } catch (SQLException | RuntimeException e) {
+            finish(event, text, -1, System.nanoTime() - start, -1);
+            throw e;
+        }
+        if (result instanceof ResultSet) {
+            return RowCounter.wrap((ResultSet) result, this, event, text, start);
+        }
+        finish(event, text, rowsOf(result), System.nanoTime() - start, -1);
+        return result;
+    }
+
+    /**
+     * Ends an execution: records its event and its time in the database and, if that was
+     * slow, queues it for the log.
+     *
+     * @param nanos the time spent in the database
+     * @param openNanos for a query, the time from its execution until its result set was
+     *        closed, or -1
+     */
+    private void finish(SqlExecutionEvent event, String text, long rows, long nanos, long openNanos) {
+        event.finish(text, rows, nanos);
+        if (queryTimes != null) {
+            queryTimes.record(nanos);
+        }
+        if (slowQueryLog != null && slowQueryLog.isSlow(nanos)) {
+            slowQueryLog.submit(text, parameters == null ? null : parameters.clone(), rows, nanos, openNanos);
+        }
+    }
+
+    /**
+     * Keeps the values passed to the statement's parameter setters.
+     */
+    private void track(String name, Object[] args) {
+        if (name.equals("clearParameters")) {
+            parameters = null;
+        } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+            int index = (Integer) args[0];
+            if (parameters == null || parameters.length <= index) {
+                Object[] grown = new Object[index + 1];
+                if (parameters != null) {
+                    System.arraycopy(parameters, 0, grown, 0, parameters.length);
+                }
+                parameters = grown;
+            }
+            parameters[index] = name.equals("setNull") ? null : args[1];
+        }
+    }
+
+    private long rowsOf(Object result) throws SQLException {
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        }
+        if (result instanceof int[]) {
+            long rows = 0;
+            for (int count : (int[]) result) {
+                rows += Math.max(0, count);
+            }
+            return rows;
+        }
+        if (result instanceof long[]) {
+            long rows = 0;
+            for (long count : (long[]) result) {
+                rows += Math.max(0, count);
+            }
+            return rows;
+        }
+        // execute(): a query's rows are read through getResultSet, which is not counted
+        return Boolean.FALSE.equals(result) ? statement.getUpdateCount() : 0;
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Counts the rows read from a result set, adds the time spent fetching them to the
+     * query's time in the database, and ends the statement's event when it is closed.
+     */
+    private static class RowCounter implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final InstrumentedStatement statement;
+        private final SqlExecutionEvent event;
+        private final String sql;
+        private final long start;
+        private long rows;
+        // The execution so far, then each call to next
+        private long databaseNanos;
+        private boolean finished;
+
+        private RowCounter(ResultSet resultSet, InstrumentedStatement statement, SqlExecutionEvent event, String sql,
+                           long start) {
+            this.resultSet = resultSet;
+            this.statement = statement;
+            this.event = event;
+            this.sql = sql;
+            this.start = start;
+            this.databaseNanos = System.nanoTime() - start;
+        }
+
+        static ResultSet wrap(ResultSet resultSet, InstrumentedStatement statement, SqlExecutionEvent event, String sql,
+                              long start) {
+            return (ResultSet) Proxy.newProxyInstance(InstrumentedStatement.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, new RowCounter(resultSet, statement, event, sql, start));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                try {
+                    return call(resultSet, method, args);
+                } finally {
+                    if (!finished) {
+                        finished = true;
+                        statement.finish(event, sql, rows, databaseNanos, System.nanoTime() - start);
+                    }
+                }
+            }
+            if (!name.equals("next")) {
+                return call(resultSet, method, args);
+            }
+            long fetchStart = System.nanoTime();
+            Object result = call(resultSet, method, args);
+            databaseNanos += System.nanoTime() - fetchStart;
+            if (Boolean.TRUE.equals(result)) {
+                rows++;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package edu.asu.DatabasePart1;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p> InvitationRedemptionBenchmark Class </p>
+ *
+ * <p> Description: Concurrent stress benchmark for invitation redemption. Every invitation
+ * code is raced by several registrations at once, first through the old three-step flow
+ * (look up roles, register, mark used) and then through
+ * {@link DatabaseHelper#redeemInvitationAndRegister}. It reports double redemptions and
+ * registration throughput for each. Runs against isolated in-memory databases. </p>
+ *
+ * <p> Usage: {@code InvitationRedemptionBenchmark [invitations] [threads] [contendersPerCode]} </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for invitation redemption benchmark
+ */
+public class InvitationRedemptionBenchmark {
+
+    /**
+     * One way of turning an invitation code into a registered user.
+     */
+    private interface Redemption {
+        boolean redeem(DatabaseHelper helper, String code, String username, char[] password) throws SQLException;
+    }
+
+    /**
+     * Main method to run the benchmark.
+     *
+     * @param args optional invitation count, thread count and contenders per code
+     */
+    public static void main(String[] args) throws Exception {
+        int invitations = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int contenders = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        System.out.println("Invitation redemption benchmark: " + invitations + " codes, "
+                + contenders + " contenders per code, " + threads + " threads");
+
+        Result legacy = run("three-step", invitations, threads, contenders, (helper, code, username, password) -> {
+            String roles = helper.getInvitationRoles(code);
+            if (roles == null) {
+                return false;
+            }
+            helper.register(username, password, roles);
+            helper.markInvitationAsUsed(code);
+            return true;
+        });
+        Result atomic = run("atomic", invitations, threads, contenders, (helper, code, username, password) ->
+                helper.redeemInvitationAndRegister(code, username, password) != null);
+
+        System.out.println("------------------------------------------------------------------");
+        System.out.println(legacy);
+        System.out.println(atomic);
+        System.out.printf("Throughput change: %+.1f%%%n",
+                (atomic.registrationsPerSecond() / legacy.registrationsPerSecond() - 1) * 100);
+        if (atomic.doubleRedeemed > 0) {
+            System.out.println("FAILED: atomic redemption redeemed a code more than once");
+            System.exit(1);
+        }
+    }
+
+    private static Result run(String name, int invitations, int threads, int contenders, Redemption redemption)
+            throws Exception {
+        DatabaseHelper helper = new DatabaseHelper("jdbc:h2:mem:redeem_" + name + ";DB_CLOSE_DELAY=-1");
+        helper.connectToDatabase();
+        helper.setBcryptCost(4); // Keep hashing cheap so the database work dominates
+
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < invitations; i++) {
+            String code = String.format("%s-%06d", name, i);
+            helper.createInvitation(code, "student");
+            codes.add(code);
+        }
+        List<String[]> attempts = new ArrayList<>();
+        for (String code : codes) {
+            for (int c = 0; c < contenders; c++) {
+                attempts.add(new String[]{code, code + "-user" + c});
+            }
+        }
+        Collections.shuffle(attempts);
+
+        Map<String, AtomicInteger> redemptions = new ConcurrentHashMap<>();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (String[] attempt : attempts) {
+            executor.execute(() -> {
+                try {
+                    if (redemption.redeem(helper, attempt[0], attempt[1], "password".toCharArray())) {
+                        redemptions.computeIfAbsent(attempt[0], k -> new AtomicInteger()).incrementAndGet();
+                    }
+                } catch (SQLException e) {
+                    errors.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+        long elapsedNanos = System.nanoTime() - start;
+
+        Result result = new Result(name, attempts.size(), elapsedNanos, errors.get());
+        for (AtomicInteger count : redemptions.values()) {
+            result.registrations += count.get();
+            if (count.get() > 1) {
+                result.doubleRedeemed++;
+            }
+        }
+        helper.closeConnection();
+        return result;
+    }
+
+    private static class Result {
+        final String name;
+        final int attempts;
+        final long elapsedNanos;
+        final int errors;
+        int registrations;
+        int doubleRedeemed;
+
+        Result(String name, int attempts, long elapsedNanos, int errors) {
+            this.name = name;
+            this.attempts = attempts;
+            this.elapsedNanos = elapsedNanos;
+            this.errors = errors;
+        }
+
+        double registrationsPerSecond() {
+            return registrations / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-10s attempts=%d registrations=%d doubleRedeemed=%d errors=%d time=%.2f s "
+                            + "throughput=%.1f registrations/s",
+                    name, attempts, registrations, doubleRedeemed, errors, elapsedNanos / 1e9,
+                    registrationsPerSecond());
+        }
+    }
+}
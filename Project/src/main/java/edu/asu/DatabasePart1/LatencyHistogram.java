@@ -0,0 +1,168 @@
+package edu.asu.DatabasePart1;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/****
+ * <p> LatencyHistogram Class </p>
+ *
+ * <p> Description: Records durations in nanoseconds into log-linear buckets: every power
+ * of two is split into 64 equal buckets, so a reported percentile is within about 1.6%
+ * of the true value whatever its magnitude. Recording is one atomic increment on a
+ * fixed array and never locks or allocates, so many threads can record at once.
+ * Percentiles are read from a snapshot of the counts. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for load generation
+ */
+
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos the duration in nanoseconds; negative values count as zero
+     */
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return a copy of the counts, from which percentiles are computed; durations
+     *         recorded while it is taken may be partly included
+     */
+    Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum(), max.get());
+    }
+
+    long getCount() {
+        return total.sum();
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    private static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / HALF - 1;
+        long mantissa = bucket - (long) shift * HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /**
+     * The counts of a histogram at one moment.
+     */
+    static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sumNanos;
+        private final long maxNanos;
+
+        private Snapshot(long[] counts, long count, long sumNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.sumNanos = sumNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        long getSumNanos() {
+            return sumNanos;
+        }
+
+        double getMeanNanos() {
+            return count == 0 ? 0 : (double) sumNanos / count;
+        }
+
+        long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * Finds the value below which a given share of the recorded durations fall.
+         *
+         * @param percentile the percentile, from 0 to 100
+         * @return the duration in nanoseconds, or 0 if nothing was recorded
+         */
+        long getPercentileNanos(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueIn(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        /**
+         * Counts the durations at or below a bound, e.g. for a cumulative histogram bucket.
+         * Durations in the same bucket as the bound are counted, so the result is accurate
+         * to the histogram's precision.
+         *
+         * @param nanos the bound in nanoseconds
+         * @return the number of durations recorded at or below it
+         */
+        long countAtOrBelow(long nanos) {
+            int last = bucketOf(Math.max(0, nanos));
+            long seen = 0;
+            for (int i = 0; i <= last; i++) {
+                seen += counts[i];
+            }
+            return seen;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d, mean=%.2f ms, p50=%.2f ms, p95=%.2f ms, p99=%.2f ms, p999=%.2f ms, max=%.2f ms",
+                    count, getMeanNanos() / 1e6, millis(getPercentileNanos(50)), millis(getPercentileNanos(95)),
+                    millis(getPercentileNanos(99)), millis(getPercentileNanos(99.9)), millis(maxNanos));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
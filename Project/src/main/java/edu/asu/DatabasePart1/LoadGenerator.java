@@ -0,0 +1,425 @@
+package edu.asu.DatabasePart1;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p> LoadGenerator Class </p>
+ *
+ * <p> Description: Drives the user lifecycle (register through an invitation, log in,
+ * set up the profile, select a role, have the password reset by an admin and set a new
+ * one with the OTP) from many concurrent virtual users, making the same
+ * {@link DatabaseHelper} and {@link SessionManager} calls the console flows in
+ * {@link UserManager} and {@link AuthenticationManager} make behind their prompts. Each
+ * virtual user owns a share of a seeded synthetic population, picks its next operation
+ * from a weighted mix and pauses for an exponentially distributed think time between
+ * operations. After a warm-up it records every operation's latency, and at the end it
+ * writes the throughput, error rate and latency percentiles of each operation to a JSON
+ * file. Runs against an isolated in-memory database. Login throttling is not applied,
+ * since it would cap the load at its global rate. </p>
+ *
+ * <p> Usage: {@code LoadGenerator [virtualUsers] [durationSeconds] [reportFile]} </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for load generation
+ */
+public class LoadGenerator {
+
+    static final int DEFAULT_POPULATION = Integer.getInteger("cse360.load.population", 10_000);
+    static final long DEFAULT_THINK_TIME_MILLIS = Long.getLong("cse360.load.thinkTimeMillis", 100L);
+    static final int DEFAULT_WARMUP_SECONDS = Integer.getInteger("cse360.load.warmupSeconds", 10);
+    static final String DEFAULT_MIX = System.getProperty("cse360.load.mix",
+            "login=40,selectRole=30,setupProfile=10,register=10,resetPassword=10");
+    static final long DEFAULT_SEED = Long.getLong("cse360.load.seed", 42L);
+
+    private static final String[] ROLES = {"Student", "Instructor", "Student,Instructor", "Admin"};
+    private static final double[] PERCENTILES = {50, 95, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p95", "p99", "p999"};
+
+    /**
+     * One step of the user lifecycle.
+     */
+    enum Operation {
+        REGISTER("register"),
+        LOGIN("login"),
+        SETUP_PROFILE("setupProfile"),
+        SELECT_ROLE("selectRole"),
+        RESET_PASSWORD("resetPassword");
+
+        final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        static Operation forLabel(String label) {
+            for (Operation operation : values()) {
+                if (operation.label.equalsIgnoreCase(label)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation: " + label);
+        }
+    }
+
+    /**
+     * The outcomes recorded for one operation.
+     */
+    private static class Stats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        volatile String lastError;
+    }
+
+    /**
+     * A user of the synthetic population and the password it currently has.
+     */
+    private static class Account {
+        final String username;
+        String password;
+
+        Account(String username, String password) {
+            this.username = username;
+            this.password = password;
+        }
+    }
+
+    private final DatabaseHelper helper;
+    private final Operation[] mix;
+    private final long thinkTimeMillis;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final InvitationCodeGenerator codes = new InvitationCodeGenerator();
+    private final AtomicLong registrations = new AtomicLong();
+    private final AtomicLong passwordResets = new AtomicLong();
+    private volatile long measureFromNanos;
+    private volatile long stopAtNanos;
+
+    LoadGenerator(DatabaseHelper helper, Operation[] mix, long thinkTimeMillis) {
+        this.helper = helper;
+        this.mix = mix;
+        this.thinkTimeMillis = thinkTimeMillis;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    /**
+     * Main method to run the load generator.
+     *
+     * @param args optional virtual user count, measured duration in seconds and report file
+     */
+    public static void main(String[] args) throws Exception {
+        int virtualUsers = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int durationSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        String reportFile = args.length > 2 ? args[2] : "load-report.json";
+
+        DatabaseHelper helper = new DatabaseHelper("jdbc:h2:mem:load;DB_CLOSE_DELAY=-1");
+        helper.connectToDatabase();
+        LoadGenerator generator = new LoadGenerator(helper, parseMix(DEFAULT_MIX), DEFAULT_THINK_TIME_MILLIS);
+        System.out.println("Load generator: " + virtualUsers + " virtual users, " + DEFAULT_POPULATION
+                + " seeded users, mix " + DEFAULT_MIX + ", think time " + DEFAULT_THINK_TIME_MILLIS + " ms, warm-up "
+                + DEFAULT_WARMUP_SECONDS + " s, measured " + durationSeconds + " s");
+        List<List<Account>> accounts = generator.seed(DEFAULT_POPULATION, virtualUsers);
+        generator.run(accounts, DEFAULT_WARMUP_SECONDS, durationSeconds, DEFAULT_SEED);
+
+        System.out.println("------------------------------------------------------------------");
+        for (Operation operation : Operation.values()) {
+            Stats s = generator.stats.get(operation);
+            System.out.printf("%-14s %s, errors=%d%n", operation.label, s.latency.snapshot(), s.errors.sum());
+        }
+        try (Writer out = Files.newBufferedWriter(Paths.get(reportFile), StandardCharsets.UTF_8)) {
+            generator.writeReport(out, virtualUsers, durationSeconds);
+        }
+        System.out.println("Report written to " + reportFile);
+        helper.closeConnection();
+    }
+
+    /**
+     * Parses an operation mix such as {@code login=40,selectRole=30}.
+     *
+     * @param spec comma-separated operation names and integer weights
+     * @return a table of 100 entries in which each operation appears in proportion to its weight
+     * @throws IllegalArgumentException if an entry is malformed or names an unknown operation
+     */
+    static Operation[] parseMix(String spec) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        int total = 0;
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2 || Integer.parseInt(parts[1].trim()) < 0) {
+                throw new IllegalArgumentException("Expected name=weight but found: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            weights.merge(Operation.forLabel(parts[0].trim()), weight, Integer::sum);
+            total += weight;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("The operation mix has no weight");
+        }
+        Operation[] table = new Operation[100];
+        int filled = 0;
+        int cumulative = 0;
+        for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+            cumulative += entry.getValue();
+            int upTo = (int) Math.round(cumulative * 100.0 / total);
+            while (filled < upTo) {
+                table[filled++] = entry.getKey();
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Inserts the synthetic population, every user with the same password hashed once,
+     * and deals it out to the virtual users so no two of them touch the same account.
+     *
+     * @param population the number of users to insert
+     * @param virtualUsers the number of virtual users
+     * @return each virtual user's accounts
+     * @throws SQLException if the users cannot be inserted
+     */
+    List<List<Account>> seed(int population, int virtualUsers) throws SQLException {
+        String password = "Load#Pass0";
+        String hashedPassword = helper.getPasswordHashers().hash(password.toCharArray());
+        List<List<Account>> accounts = new ArrayList<>(virtualUsers);
+        for (int v = 0; v < virtualUsers; v++) {
+            accounts.add(new ArrayList<>());
+        }
+        List<BulkUserImporter.ImportedUser> batch = new ArrayList<>(BulkUserImporter.DEFAULT_BATCH_SIZE);
+        for (int i = 0; i < population; i++) {
+            String username = "load" + i;
+            // Half the population still has to set up its profile
+            boolean complete = i % 2 == 0;
+            batch.add(new BulkUserImporter.ImportedUser(i + 1, username, password.toCharArray(), ROLES[i % ROLES.length],
+                    complete ? username + "@example.edu" : null, complete ? "First" + i : null, null,
+                    complete ? "Last" + i : null, null).withHashedPassword(hashedPassword));
+            if (batch.size() == BulkUserImporter.DEFAULT_BATCH_SIZE || i == population - 1) {
+                helper.insertUsers(batch);
+                batch.clear();
+            }
+            accounts.get(i % virtualUsers).add(new Account(username, password));
+        }
+        return accounts;
+    }
+
+    /**
+     * Runs one virtual user per account list until the warm-up and the measured period
+     * have passed.
+     *
+     * @param accounts each virtual user's accounts
+     * @param warmupSeconds the time during which operations run but are not recorded
+     * @param durationSeconds the measured time
+     * @param seed the seed of every virtual user's random choices
+     * @throws InterruptedException if interrupted while waiting for the virtual users
+     */
+    void run(List<List<Account>> accounts, int warmupSeconds, int durationSeconds, long seed) throws InterruptedException {
+        long start = System.nanoTime();
+        measureFromNanos = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        stopAtNanos = measureFromNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        ExecutorService executor = Executors.newFixedThreadPool(accounts.size());
+        for (int v = 0; v < accounts.size(); v++) {
+            executor.execute(new VirtualUser(accounts.get(v), new SplittableRandom(seed + v)));
+        }
+        executor.shutdown();
+        executor.awaitTermination(warmupSeconds + durationSeconds + 600L, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes the run's settings and each operation's results as one JSON object.
+     *
+     * @param out where the report is written
+     * @param virtualUsers the number of virtual users that ran
+     * @param durationSeconds the measured time
+     * @throws IOException if the report cannot be written
+     */
+    void writeReport(Writer out, int virtualUsers, int durationSeconds) throws IOException {
+        out.write(String.format(Locale.ROOT, "{\"virtualUsers\":%d,\"durationSeconds\":%d,\"warmupSeconds\":%d,"
+                        + "\"population\":%d,\"thinkTimeMillis\":%d,\"bcryptCost\":%d,\"algorithm\":",
+                virtualUsers, durationSeconds, DEFAULT_WARMUP_SECONDS, DEFAULT_POPULATION, thinkTimeMillis,
+                helper.getBcryptCost()));
+        UserExporter.writeJsonString(out, helper.getPasswordHashers().getCurrent().getName());
+        out.write(",\"mix\":");
+        UserExporter.writeJsonString(out, DEFAULT_MIX);
+        out.write(",\"operations\":{");
+        boolean first = true;
+        for (Operation operation : Operation.values()) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            Stats s = stats.get(operation);
+            LatencyHistogram.Snapshot latency = s.latency.snapshot();
+            long errors = s.errors.sum();
+            UserExporter.writeJsonString(out, operation.label);
+            out.write(String.format(Locale.ROOT, ":{\"count\":%d,\"errors\":%d,\"errorRate\":%.5f,\"throughputPerSecond\":%.3f,"
+                            + "\"latencyMillis\":{\"mean\":%.3f",
+                    latency.getCount(), errors, latency.getCount() == 0 ? 0.0 : (double) errors / latency.getCount(),
+                    (double) latency.getCount() / durationSeconds, latency.getMeanNanos() / 1e6));
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                out.write(String.format(Locale.ROOT, ",\"%s\":%.3f", PERCENTILE_NAMES[i],
+                        latency.getPercentileNanos(PERCENTILES[i]) / 1e6));
+            }
+            out.write(String.format(Locale.ROOT, ",\"max\":%.3f},\"lastError\":", latency.getMaxNanos() / 1e6));
+            UserExporter.writeJsonString(out, s.lastError);
+            out.write('}');
+        }
+        out.write("}}\n");
+    }
+
+    /**
+     * One simulated user: picks an operation, performs it, records it and thinks.
+     * Each virtual user runs on its own thread and only touches its own accounts.
+     */
+    private class VirtualUser implements Runnable {
+        private final List<Account> accounts;
+        private final SplittableRandom random;
+        private Account current;
+        private String token;
+
+        VirtualUser(List<Account> accounts, SplittableRandom random) {
+            this.accounts = accounts;
+            this.random = random;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (System.nanoTime() < stopAtNanos) {
+                    perform(mix[random.nextInt(mix.length)]);
+                    think();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                helper.getSessionManager().revoke(token);
+            }
+        }
+
+        private void perform(Operation operation) {
+            if ((operation == Operation.SETUP_PROFILE || operation == Operation.SELECT_ROLE) && token == null) {
+                perform(Operation.LOGIN); // Both steps happen inside a logged-in session
+            }
+            Stats s = stats.get(operation);
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                ok = execute(operation);
+                if (!ok) {
+                    s.lastError = "operation failed";
+                }
+            } catch (SQLException | RuntimeException e) {
+                ok = false;
+                s.lastError = e.toString();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (start >= measureFromNanos && start < stopAtNanos) {
+                s.latency.record(elapsed);
+                if (!ok) {
+                    s.errors.increment();
+                }
+            }
+        }
+
+        private boolean execute(Operation operation) throws SQLException {
+            switch (operation) {
+                case REGISTER:
+                    return register();
+                case LOGIN:
+                    return login(accounts.get(random.nextInt(accounts.size())));
+                case SETUP_PROFILE:
+                    return setupProfile();
+                case SELECT_ROLE:
+                    return selectRole();
+                case RESET_PASSWORD:
+                    return resetPassword(accounts.get(random.nextInt(accounts.size())));
+                default:
+                    throw new IllegalStateException("Unhandled operation " + operation);
+            }
+        }
+
+        private boolean register() throws SQLException {
+            String code = codes.nextCode();
+            helper.createInvitation(code, ROLES[random.nextInt(ROLES.length)]);
+            if (helper.getInvitationRoles(code) == null) {
+                return false;
+            }
+            Account account = new Account("registered" + registrations.incrementAndGet(), "Load#Pass0");
+            if (helper.redeemInvitationAndRegister(code, account.username, account.password.toCharArray()) == null) {
+                return false;
+            }
+            accounts.add(account);
+            return true;
+        }
+
+        private boolean login(Account account) throws SQLException {
+            LoginContext context = helper.getLoginContext(account.username);
+            if (context == null || context.isOTPPasswordSet() || !helper.login(context, account.password.toCharArray())) {
+                return false;
+            }
+            helper.getSessionManager().revoke(token);
+            token = helper.getSessionManager().create(context);
+            if (token == null) {
+                return false; // The account changed while logging in
+            }
+            current = account;
+            return true;
+        }
+
+        private boolean setupProfile() throws SQLException {
+            if (helper.getSessionManager().get(token) == null) {
+                return false;
+            }
+            String name = current.username;
+            helper.updateProfile(name, name + "@example.edu", "First", null, "Last", null);
+            return helper.isProfileComplete(name);
+        }
+
+        private boolean selectRole() {
+            SessionManager.Session session = helper.getSessionManager().get(token);
+            if (session == null) {
+                return false;
+            }
+            String[] roles = session.getRoles();
+            long rolePermissions = Permission.forRole(roles[random.nextInt(roles.length)]);
+            return (session.getPermissions() & rolePermissions) == rolePermissions;
+        }
+
+        private boolean resetPassword(Account account) throws SQLException {
+            String otp = helper.resetUserPasswordByAdmin(account.username);
+            LoginContext context = helper.getLoginContext(account.username);
+            if (otp == null || context == null || !context.isOTPPasswordSet() || !helper.verifyOTP(account.username, otp)) {
+                return false;
+            }
+            String newPassword = "Load#Pass" + passwordResets.incrementAndGet();
+            helper.resetPassword(account.username, newPassword.toCharArray());
+            account.password = newPassword;
+            if (account == current) {
+                token = null; // The reset ended the account's sessions
+            }
+            return true;
+        }
+
+        private void think() throws InterruptedException {
+            if (thinkTimeMillis > 0) {
+                // Exponential think times make arrivals independent, as with real users
+                Thread.sleep((long) (-thinkTimeMillis * Math.log(1 - random.nextDouble())));
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package edu.asu.DatabasePart1;
+
+/****
+ * <p> LoginContext Class </p>
+ *
+ * <p> Description: Everything the login flow needs to know about a user, fetched from
+ * the database in a single query: the password hash, whether an OTP reset is pending,
+ * whether the profile is complete, and the assigned roles. It also records the user's
+ * session revocation generation from just before the query, so a session is not started
+ * from it once the user's roles or password have changed. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for single-query login
+ */
+
+class LoginContext {
+    private final String username;
+    private final String passwordHash;
+    private final boolean otpPasswordSet;
+    private final boolean profileComplete;
+    private final String[] roles;
+    private final long permissions;
+    private final long revocationGeneration;
+
+    /**
+     * Constructs a LoginContext.
+     *
+     * @param username the username of the user
+     * @param passwordHash the stored password hash
+     * @param otpPasswordSet whether the user's password has been reset to an OTP
+     * @param profileComplete whether the user has completed their profile
+     * @param roles the roles assigned to the user
+     * @param revocationGeneration the user's {@link SessionManager#getGeneration} read
+     *        before the context was loaded
+     */
+    LoginContext(String username, String passwordHash, boolean otpPasswordSet, boolean profileComplete, String[] roles,
+                 long revocationGeneration) {
+        this.username = username;
+        this.passwordHash = passwordHash;
+        this.otpPasswordSet = otpPasswordSet;
+        this.profileComplete = profileComplete;
+        this.roles = roles;
+        this.permissions = Permission.forRoles(roles);
+        this.revocationGeneration = revocationGeneration;
+    }
+
+    String getUsername() {
+        return username;
+    }
+
+    String getPasswordHash() {
+        return passwordHash;
+    }
+
+    boolean isOTPPasswordSet() {
+        return otpPasswordSet;
+    }
+
+    boolean isProfileComplete() {
+        return profileComplete;
+    }
+
+    long getRevocationGeneration() {
+        return revocationGeneration;
+    }
+
+    String[] getRoles() {
+        return roles.clone();
+    }
+
+    /**
+     * @return the permissions granted by the user's roles, as a {@link Permission} bitset
+     */
+    long getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * Checks whether the user's roles grant a permission.
+     *
+     * @param permission the permission to check
+     * @return true if the permission is granted
+     */
+    boolean hasPermission(Permission permission) {
+        return permission.isGrantedBy(permissions);
+    }
+}
@@ -0,0 +1,190 @@
+package edu.asu.DatabasePart1;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/****
+ * <p> LoginThrottler Class </p>
+ *
+ * <p> Description: Rate limits password and OTP attempts before any hashing is done.
+ * Every attempt needs a token from the bucket of its username and one from a global
+ * bucket shared by all attempts, so neither guessing one account nor spraying many
+ * accounts can keep the hashing threads busy. An attempt the global bucket refuses gives
+ * its username's token back, so a spraying attack does not use up real users' buckets
+ * with attempts that were never checked. A bucket is a single atomic timestamp
+ * (the generic cell rate algorithm), updated with compare-and-set, so checks never
+ * lock. Buckets that have refilled completely carry no state and are evicted. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for login throttling
+ */
+
+class LoginThrottler {
+
+    static final int DEFAULT_USER_BURST = Integer.getInteger("cse360.throttle.userBurst", 5);
+    static final int DEFAULT_USER_PER_MINUTE = Integer.getInteger("cse360.throttle.userPerMinute", 5);
+    static final int DEFAULT_GLOBAL_PER_SECOND = Integer.getInteger("cse360.throttle.globalPerSecond",
+            Math.max(10, Runtime.getRuntime().availableProcessors() * 8));
+    static final int DEFAULT_GLOBAL_BURST = Integer.getInteger("cse360.throttle.globalBurst", DEFAULT_GLOBAL_PER_SECOND * 2);
+
+    /**
+     * The outcome of an attempt to acquire a token.
+     */
+    enum Decision {
+        ALLOWED, USER_LIMITED, GLOBAL_LIMITED;
+
+        boolean isAllowed() {
+            return this == ALLOWED;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Bucket> userBuckets = new ConcurrentHashMap<>();
+    private final long userIntervalNanos;
+    private final int userBurst;
+    private final Bucket globalBucket;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder userLimited = new LongAdder();
+    private final LongAdder globalLimited = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a throttler with the configured limits.
+     */
+    LoginThrottler() {
+        this(DEFAULT_USER_BURST, DEFAULT_USER_PER_MINUTE, DEFAULT_GLOBAL_BURST, DEFAULT_GLOBAL_PER_SECOND);
+    }
+
+    /**
+     * Creates a throttler.
+     *
+     * @param userBurst the attempts one username may make back to back
+     * @param userPerMinute the sustained attempts per minute for one username
+     * @param globalBurst the attempts all usernames together may make back to back
+     * @param globalPerSecond the sustained attempts per second for all usernames together
+     */
+    LoginThrottler(int userBurst, int userPerMinute, int globalBurst, int globalPerSecond) {
+        this.userBurst = userBurst;
+        this.userIntervalNanos = TimeUnit.MINUTES.toNanos(1) / userPerMinute;
+        this.globalBucket = new Bucket(TimeUnit.SECONDS.toNanos(1) / globalPerSecond, globalBurst);
+    }
+
+    /**
+     * Takes a token for one attempt on behalf of a key, usually a username.
+     *
+     * @param key the key whose bucket is charged
+     * @return whether the attempt may go ahead, and which limit stopped it if not
+     */
+    Decision tryAcquire(String key) {
+        long now = System.nanoTime();
+        Bucket bucket = userBuckets.computeIfAbsent(key, k -> new Bucket(userIntervalNanos, userBurst));
+        if (!bucket.tryAcquire(now)) {
+            userLimited.increment();
+            return Decision.USER_LIMITED;
+        }
+        if (!globalBucket.tryAcquire(now)) {
+            bucket.release();
+            globalLimited.increment();
+            return Decision.GLOBAL_LIMITED;
+        }
+        allowed.increment();
+        return Decision.ALLOWED;
+    }
+
+    /**
+     * Refills a key's bucket, e.g. once the user has proved who they are.
+     *
+     * @param key the key to reset
+     */
+    void reset(String key) {
+        userBuckets.remove(key);
+    }
+
+    /**
+     * Drops buckets that have refilled completely. A dropped bucket is recreated full on
+     * the next attempt, so this never changes a decision.
+     *
+     * @return the number of buckets dropped
+     */
+    int evictIdle() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (ConcurrentHashMap.Entry<String, Bucket> entry : userBuckets.entrySet()) {
+            if (entry.getValue().isFull(now) && userBuckets.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        evictions.add(removed);
+        return removed;
+    }
+
+    int getTrackedKeys() {
+        return userBuckets.size();
+    }
+
+    long getAllowedCount() {
+        return allowed.sum();
+    }
+
+    long getUserLimitedCount() {
+        return userLimited.sum();
+    }
+
+    long getGlobalLimitedCount() {
+        return globalLimited.sum();
+    }
+
+    long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LoginThrottler[allowed=%d, userLimited=%d, globalLimited=%d, trackedKeys=%d, evictions=%d]",
+                getAllowedCount(), getUserLimitedCount(), getGlobalLimitedCount(), getTrackedKeys(), getEvictionCount());
+    }
+
+    /**
+     * A token bucket kept as the time at which it will next be full. Each token pushes
+     * that time one interval later; an attempt is refused if the bucket would have to be
+     * more than its burst of tokens in debt.
+     */
+    private static class Bucket {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final AtomicLong fullAt;
+
+        Bucket(long intervalNanos, int burst) {
+            this.intervalNanos = intervalNanos;
+            this.toleranceNanos = intervalNanos * burst;
+            this.fullAt = new AtomicLong(System.nanoTime());
+        }
+
+        boolean tryAcquire(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + intervalNanos;
+                if (next - now > toleranceNanos) {
+                    return false;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Gives back a token taken by {@link #tryAcquire}.
+         */
+        void release() {
+            fullAt.addAndGet(-intervalNanos);
+        }
+
+        boolean isFull(long now) {
+            return fullAt.get() - now <= 0;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package edu.asu.DatabasePart1;
+
+import java.util.Map;
+
+/****
+ * <p> MetricCountersMXBean Interface </p>
+ *
+ * <p> Description: The JMX view of the counters published alongside the operation
+ * timers, such as throttled logins and OTP outcomes. JMX requires the interface to be
+ * public. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for operation metrics
+ */
+
+public interface MetricCountersMXBean {
+
+    /**
+     * @return each counter's current value, by name
+     */
+    Map<String, Long> getCounters();
+}
@@ -0,0 +1,431 @@
+package edu.asu.DatabasePart1;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/****
+ * <p> OperationMetrics Class </p>
+ *
+ * <p> Description: Latency histograms and counters for database operations and
+ * authentication flows. Each named operation has a {@link LatencyHistogram} and a
+ * failure count, recorded without locks or allocation, so every call can be timed.
+ * Counters kept elsewhere, such as the throttler's or the connection pool's, are read
+ * through suppliers when the metrics are published. Metrics are published as JMX
+ * MXBeans and, when a port is configured, as Prometheus text on
+ * {@code http://127.0.0.1:<port>/metrics}. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for operation metrics
+ */
+
+class OperationMetrics implements MetricCountersMXBean {
+
+    static final int DEFAULT_HTTP_PORT = Integer.getInteger("cse360.metrics.port", 0);
+    static final boolean DEFAULT_JMX_ENABLED = Boolean.parseBoolean(System.getProperty("cse360.metrics.jmx", "true"));
+
+    static final String JMX_DOMAIN = "edu.asu.DatabasePart1";
+    // Upper bounds, in seconds, of the buckets of the Prometheus histograms
+    private static final double[] BUCKET_SECONDS = {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1,
+            0.25, 0.5, 1, 2.5, 5, 10};
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongSupplier> counters = new ConcurrentHashMap<>();
+    private final String instance = Integer.toString(INSTANCES.incrementAndGet());
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+    private volatile MBeanServer mbeanServer;
+    private volatile HttpServer httpServer;
+
+    /**
+     * Looks up the timer of an operation, creating it on first use.
+     *
+     * @param name the operation name, such as {@code login} or {@code bcrypt.hash}
+     * @return the operation's timer
+     */
+    Timer timer(String name) {
+        Timer timer = timers.get(name);
+        if (timer == null) {
+            return register(new Timer(name, new LatencyHistogram()));
+        }
+        return timer;
+    }
+
+    /**
+     * Publishes a histogram recorded elsewhere, such as the connection pool's, as an
+     * operation timer.
+     *
+     * @param name the operation name
+     * @param latency the histogram
+     * @return the operation's timer
+     */
+    Timer timer(String name, LatencyHistogram latency) {
+        return register(new Timer(name, latency));
+    }
+
+    private Timer register(Timer timer) {
+        Timer existing = timers.putIfAbsent(timer.name, timer);
+        if (existing != null) {
+            return existing;
+        }
+        MBeanServer server = mbeanServer;
+        if (server != null) {
+            registerMBean(server, timer);
+        }
+        return timer;
+    }
+
+    /**
+     * Publishes a counter kept elsewhere.
+     *
+     * @param name the counter name, such as {@code login.throttled.user}
+     * @param value reads the counter's current value
+     */
+    void counter(String name, LongSupplier value) {
+        counters.put(name, value);
+    }
+
+    /**
+     * Runs and times a database query. It counts as failed if it throws.
+     *
+     * @param name the operation name
+     * @param work the query
+     * @return the query's result
+     * @throws SQLException if the query fails
+     */
+    <T> T time(String name, DatabaseHelper.SqlQuery<T> work) throws SQLException {
+        Timer timer = timer(name);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = work.get();
+            failed = false;
+            return result;
+        } finally {
+            timer.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Runs and times a database action. It counts as failed if it throws.
+     *
+     * @param name the operation name
+     * @param work the action
+     * @throws SQLException if the action fails
+     */
+    void run(String name, DatabaseHelper.SqlAction work) throws SQLException {
+        time(name, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs and times a check, such as a login. It counts as failed if it returns false
+     * or throws.
+     *
+     * @param name the operation name
+     * @param work the check
+     * @return the check's result
+     * @throws SQLException if the check fails
+     */
+    boolean check(String name, DatabaseHelper.SqlQuery<Boolean> work) throws SQLException {
+        Timer timer = timer(name);
+        long start = System.nanoTime();
+        boolean passed = false;
+        try {
+            passed = work.get();
+            return passed;
+        } finally {
+            timer.record(System.nanoTime() - start, !passed);
+        }
+    }
+
+    /**
+     * Times an asynchronous operation from now until its future completes. It counts as
+     * failed if the future fails or completes with {@code false}.
+     *
+     * @param name the operation name
+     * @param future the operation's future
+     * @return the same future
+     */
+    <T> CompletableFuture<T> timeAsync(String name, CompletableFuture<T> future) {
+        Timer timer = timer(name);
+        long start = System.nanoTime();
+        return future.whenComplete((result, error) ->
+                timer.record(System.nanoTime() - start, error != null || Boolean.FALSE.equals(result)));
+    }
+
+    /**
+     * Registers every operation as an MXBean named
+     * {@code edu.asu.DatabasePart1:type=Operation,instance=<n>,name=<operation>}, and the
+     * counters as {@code type=Counters}. Operations first used later are registered then.
+     *
+     * @param server the MBean server to register with
+     */
+    void registerMBeans(MBeanServer server) {
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Counters,instance=" + instance);
+            server.registerMBean(this, name);
+            synchronized (registeredNames) {
+                registeredNames.add(name);
+            }
+        } catch (JMException e) {
+            System.err.println("Could not register metrics MBean: " + e.getMessage());
+            return;
+        }
+        mbeanServer = server;
+        for (Timer timer : timers.values()) {
+            registerMBean(server, timer);
+        }
+    }
+
+    private void registerMBean(MBeanServer server, Timer timer) {
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Operation,instance=" + instance
+                    + ",name=" + ObjectName.quote(timer.name));
+            synchronized (registeredNames) {
+                if (server.isRegistered(name)) {
+                    return;
+                }
+                server.registerMBean(timer, name);
+                registeredNames.add(name);
+            }
+        } catch (JMException e) {
+            System.err.println("Could not register MBean for " + timer.name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Serves the Prometheus text format on the loopback interface.
+     *
+     * @param port the port to listen on
+     * @throws IOException if the port cannot be bound
+     */
+    void startHttpServer(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            StringWriter text = new StringWriter();
+            writePrometheus(text);
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        httpServer = server;
+    }
+
+    /**
+     * @return the port the Prometheus endpoint listens on, or -1 if it is not running
+     */
+    int getHttpPort() {
+        HttpServer server = httpServer;
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /**
+     * Starts the configured publishers: JMX unless disabled, and the Prometheus endpoint
+     * if a port is set. A publisher that cannot start is reported and skipped.
+     */
+    void publish() {
+        if (DEFAULT_JMX_ENABLED) {
+            registerMBeans(ManagementFactory.getPlatformMBeanServer());
+        }
+        if (DEFAULT_HTTP_PORT > 0) {
+            try {
+                startHttpServer(DEFAULT_HTTP_PORT);
+                System.out.println("Metrics: http://127.0.0.1:" + DEFAULT_HTTP_PORT + "/metrics");
+            } catch (IOException e) {
+                System.err.println("Could not serve metrics on port " + DEFAULT_HTTP_PORT + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops the Prometheus endpoint and unregisters the MXBeans.
+     */
+    void unpublish() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+        MBeanServer server = mbeanServer;
+        mbeanServer = null;
+        if (server != null) {
+            synchronized (registeredNames) {
+                for (ObjectName name : registeredNames) {
+                    try {
+                        server.unregisterMBean(name);
+                    } catch (JMException e) {
+                        // Already gone
+                    }
+                }
+                registeredNames.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes every operation as a Prometheus histogram with a failure counter, and every
+     * counter, in the Prometheus text format.
+     *
+     * @param out where the metrics are written
+     * @throws IOException if writing fails
+     */
+    void writePrometheus(Writer out) throws IOException {
+        Map<String, Timer> sorted = new TreeMap<>(timers);
+        out.write("# HELP cse360_operation_duration_seconds Time taken by database operations and authentication flows.\n");
+        out.write("# TYPE cse360_operation_duration_seconds histogram\n");
+        for (Timer timer : sorted.values()) {
+            LatencyHistogram.Snapshot snapshot = timer.latency.snapshot();
+            String label = "operation=\"" + escapeLabel(timer.name) + "\"";
+            for (double bound : BUCKET_SECONDS) {
+                out.write(String.format(Locale.ROOT, "cse360_operation_duration_seconds_bucket{%s,le=\"%s\"} %d%n", label,
+                        Double.toString(bound), snapshot.countAtOrBelow((long) (bound * 1e9))));
+            }
+            out.write(String.format(Locale.ROOT, "cse360_operation_duration_seconds_bucket{%s,le=\"+Inf\"} %d%n", label, snapshot.getCount()));
+            out.write(String.format(Locale.ROOT, "cse360_operation_duration_seconds_sum{%s} %.9f%n", label, snapshot.getSumNanos() / 1e9));
+            out.write(String.format(Locale.ROOT, "cse360_operation_duration_seconds_count{%s} %d%n", label, snapshot.getCount()));
+        }
+        out.write("# HELP cse360_operation_failures_total Operations that threw, or checks such as logins that were refused.\n");
+        out.write("# TYPE cse360_operation_failures_total counter\n");
+        for (Timer timer : sorted.values()) {
+            out.write(String.format(Locale.ROOT, "cse360_operation_failures_total{operation=\"%s\"} %d%n",
+                    escapeLabel(timer.name), timer.getFailures()));
+        }
+        for (Map.Entry<String, Long> counter : getCounters().entrySet()) {
+            String metric = "cse360_" + counter.getKey().replaceAll("[^A-Za-z0-9_]", "_") + "_total";
+            out.write("# TYPE " + metric + " counter\n");
+            out.write(metric + " " + counter.getValue() + "\n");
+        }
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, LongSupplier> counter : counters.entrySet()) {
+            values.put(counter.getKey(), counter.getValue().getAsLong());
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder("OperationMetrics[");
+        for (Timer timer : new TreeMap<>(timers).values()) {
+            if (summary.length() > "OperationMetrics[".length()) {
+                summary.append("; ");
+            }
+            LatencyHistogram.Snapshot snapshot = timer.latency.snapshot();
+            summary.append(String.format(Locale.ROOT, "%s n=%d failed=%d p50=%.2fms p99=%.2fms", timer.name,
+                    snapshot.getCount(), timer.getFailures(), snapshot.getPercentileNanos(50) / 1e6,
+                    snapshot.getPercentileNanos(99) / 1e6));
+        }
+        return summary.append(']').toString();
+    }
+
+    /**
+     * The latency and failures of one operation. Percentiles cover every call since
+     * startup; for recent behavior, scrape the Prometheus histogram and take rates.
+     */
+    static final class Timer implements OperationStatsMXBean {
+        private final String name;
+        private final LatencyHistogram latency;
+        private final LongAdder failures = new LongAdder();
+
+        private Timer(String name, LatencyHistogram latency) {
+            this.name = name;
+            this.latency = latency;
+        }
+
+        /**
+         * Records one call.
+         *
+         * @param nanos how long the call took
+         * @param failed whether it failed
+         */
+        void record(long nanos, boolean failed) {
+            latency.record(nanos);
+            if (failed) {
+                failures.increment();
+            }
+        }
+
+        LatencyHistogram.Snapshot snapshot() {
+            return latency.snapshot();
+        }
+
+        @Override
+        public long getCount() {
+            return latency.getCount();
+        }
+
+        @Override
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return latency.snapshot().getMeanNanos() / 1e6;
+        }
+
+        @Override
+        public double getP50Millis() {
+            return percentileMillis(50);
+        }
+
+        @Override
+        public double getP95Millis() {
+            return percentileMillis(95);
+        }
+
+        @Override
+        public double getP99Millis() {
+            return percentileMillis(99);
+        }
+
+        @Override
+        public double getP999Millis() {
+            return percentileMillis(99.9);
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return latency.snapshot().getMaxNanos() / 1e6;
+        }
+
+        private double percentileMillis(double percentile) {
+            return latency.snapshot().getPercentileNanos(percentile) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
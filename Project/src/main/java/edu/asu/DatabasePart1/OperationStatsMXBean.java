@@ -0,0 +1,38 @@
+package edu.asu.DatabasePart1;
+
+/****
+ * <p> OperationStatsMXBean Interface </p>
+ *
+ * <p> Description: The JMX view of one timed operation: how often it ran, how often it
+ * failed, and its latency percentiles since startup. JMX requires the interface to be
+ * public. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for operation metrics
+ */
+
+public interface OperationStatsMXBean {
+
+    /**
+     * @return the number of calls recorded
+     */
+    long getCount();
+
+    /**
+     * @return the number of calls that threw, or checks that were refused
+     */
+    long getFailures();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+}
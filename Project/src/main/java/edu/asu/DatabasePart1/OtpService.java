@@ -0,0 +1,169 @@
+package edu.asu.DatabasePart1;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/****
+ * <p> OtpService Class </p>
+ *
+ * <p> Description: Derives one-time passwords instead of storing them. Each user has a
+ * secret computed as an HMAC, under a server key, of their user id and an OTP counter
+ * kept with the user. A code is the HMAC of that secret and the current time step, cut
+ * down to six digits as in RFC 4226. Issuing a code writes nothing. A code stops working
+ * once its time steps have passed, and as soon as the counter moves on: the caller
+ * advances it when a code is accepted and when the password changes, which makes every
+ * code single use. Rehashing a password in place does not touch the counter, so it
+ * leaves outstanding codes valid. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for stateless OTPs
+ */
+
+class OtpService {
+
+    static final int DEFAULT_STEP_SECONDS = Integer.getInteger("cse360.otp.stepSeconds", 300);
+    static final int DEFAULT_VALIDITY_MINUTES = Integer.getInteger("cse360.otp.validityMinutes", 15);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int DIGITS = 6;
+    private static final int MODULUS = 1_000_000;
+
+    private final byte[] serverKey;
+    private final long stepMillis;
+    private final int windowSteps;
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates a service with the configured step and validity.
+     *
+     * @param serverKey the secret key all user secrets are derived from
+     */
+    OtpService(byte[] serverKey) {
+        this(serverKey, DEFAULT_STEP_SECONDS, DEFAULT_VALIDITY_MINUTES);
+    }
+
+    /**
+     * Creates a service.
+     *
+     * @param serverKey the secret key all user secrets are derived from
+     * @param stepSeconds the length of one time step
+     * @param validityMinutes how long a code is accepted at most; it is accepted for at
+     *        least this long minus one step
+     */
+    OtpService(byte[] serverKey, int stepSeconds, int validityMinutes) {
+        this.serverKey = serverKey.clone();
+        this.stepMillis = TimeUnit.SECONDS.toMillis(stepSeconds);
+        this.windowSteps = (int) Math.max(1, (TimeUnit.MINUTES.toMillis(validityMinutes) + stepMillis - 1) / stepMillis);
+    }
+
+    /**
+     * Issues a code for a user at the current time.
+     *
+     * @param userId the id of the user the code is for
+     * @param counter the user's current OTP counter
+     * @return the six-digit code
+     */
+    String generate(int userId, long counter) {
+        return generate(userId, counter, System.currentTimeMillis());
+    }
+
+    String generate(int userId, long counter, long nowMillis) {
+        issued.increment();
+        return format(code(userSecret(userId, counter), nowMillis / stepMillis));
+    }
+
+    /**
+     * Checks a code against the current time step and the steps before it within the
+     * validity period. The caller must advance the counter when this accepts a code, or
+     * the code stays valid until it expires.
+     *
+     * @param userId the id of the user the code was issued to
+     * @param counter the user's current OTP counter
+     * @param code the code entered by the user
+     * @return true if the code is valid now
+     */
+    boolean verify(int userId, long counter, String code) {
+        return verify(userId, counter, code, System.currentTimeMillis());
+    }
+
+    boolean verify(int userId, long counter, String code, long nowMillis) {
+        if (code == null || code.trim().length() != DIGITS) {
+            rejected.increment();
+            return false;
+        }
+        byte[] entered = code.trim().getBytes(StandardCharsets.US_ASCII);
+        byte[] secret = userSecret(userId, counter);
+        long step = nowMillis / stepMillis;
+        boolean match = false;
+        for (int i = 0; i < windowSteps; i++) {
+            // Check every step even after a match, so the time taken does not reveal the code's age
+            match |= MessageDigest.isEqual(entered, format(code(secret, step - i)).getBytes(StandardCharsets.US_ASCII));
+        }
+        (match ? accepted : rejected).increment();
+        return match;
+    }
+
+    private byte[] userSecret(int userId, long counter) {
+        String material = "otp\u0000" + userId + "\u0000" + counter;
+        return hmac(serverKey, material.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int code(byte[] secret, long step) {
+        byte[] counter = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            counter[i] = (byte) step;
+            step >>>= 8;
+        }
+        byte[] mac = hmac(secret, counter);
+        int offset = mac[mac.length - 1] & 0x0f;
+        int binary = ((mac[offset] & 0x7f) << 24) | ((mac[offset + 1] & 0xff) << 16)
+                | ((mac[offset + 2] & 0xff) << 8) | (mac[offset + 3] & 0xff);
+        return binary % MODULUS;
+    }
+
+    private static String format(int code) {
+        String digits = Integer.toString(code);
+        StringBuilder padded = new StringBuilder(DIGITS);
+        for (int i = digits.length(); i < DIGITS; i++) {
+            padded.append('0');
+        }
+        return padded.append(digits).toString();
+    }
+
+    private static byte[] hmac(byte[] key, byte[] data) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    long getIssuedCount() {
+        return issued.sum();
+    }
+
+    long getAcceptedCount() {
+        return accepted.sum();
+    }
+
+    long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OtpService[stepSeconds=%d, windowSteps=%d, issued=%d, accepted=%d, rejected=%d]",
+                stepMillis / 1000, windowSteps, getIssuedCount(), getAcceptedCount(), getRejectedCount());
+    }
+}
@@ -0,0 +1,64 @@
+package edu.asu.DatabasePart1;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/****
+ * <p> PasswordHashEvent Class </p>
+ *
+ * <p> Description: A Java Flight Recorder event for one password hash or verification.
+ * Disabled unless a recording enables it; when disabled, creating and ending the event
+ * is optimized away. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for JFR events
+ */
+
+@Name(PasswordHashEvent.NAME)
+@Label("Password Hash")
+@Category({"CSE360", "Security"})
+@Description("Hashing a password, or verifying one against a stored hash")
+@Enabled(false)
+class PasswordHashEvent extends Event {
+
+    static final String NAME = "edu.asu.DatabasePart1.PasswordHash";
+
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Operation")
+    @Description("hash or verify")
+    String operation;
+
+    @Label("Cost")
+    @Description("BCrypt cost factor of the hash, or 0 for other algorithms")
+    int cost;
+
+    @Label("Matched")
+    @Description("Whether a verified password matched; always true for hashing")
+    boolean matched;
+
+    /**
+     * Ends the event and commits it if the recording's threshold is met.
+     *
+     * @param algorithm the algorithm name
+     * @param operation "hash" or "verify"
+     * @param hash the produced or stored hash, from which the cost is read
+     * @param matched whether the password matched
+     */
+    void finish(String algorithm, String operation, String hash, boolean matched) {
+        end();
+        if (shouldCommit()) {
+            this.algorithm = algorithm;
+            this.operation = operation;
+            this.cost = BCryptPasswordHasher.NAME.equals(algorithm) ? BCryptCostCalibrator.costOf(hash) : 0;
+            this.matched = matched;
+            commit();
+        }
+    }
+}
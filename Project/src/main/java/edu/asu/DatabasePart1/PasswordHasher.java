@@ -0,0 +1,52 @@
+package edu.asu.DatabasePart1;
+
+/****
+ * <p> PasswordHasher Interface </p>
+ *
+ * <p> Description: A password hashing algorithm. Stored hashes are self-describing:
+ * each begins with an algorithm prefix (for example {@code $2a$} for BCrypt or
+ * {@code $argon2id$} for Argon2id) followed by the parameters used, so any stored
+ * hash can be verified no matter which algorithm is currently configured. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for pluggable password hashing
+ */
+
+interface PasswordHasher {
+
+    /**
+     * @return the algorithm name used in configuration and log output
+     */
+    String getName();
+
+    /**
+     * Hashes a password with a fresh random salt. Does not clear the password array.
+     *
+     * @param password the password to hash
+     * @return the self-describing stored hash
+     */
+    String hash(char[] password);
+
+    /**
+     * Checks a password against a stored hash produced by this algorithm. Does not clear
+     * the password array.
+     *
+     * @param password the password to check
+     * @param storedHash the stored hash
+     * @return true if the password matches, false otherwise (including malformed hashes)
+     */
+    boolean verify(char[] password, String storedHash);
+
+    /**
+     * @param storedHash a stored hash
+     * @return true if the hash was produced by this algorithm
+     */
+    boolean supports(String storedHash);
+
+    /**
+     * @param storedHash a stored hash produced by this algorithm
+     * @return true if the hash uses different parameters than new hashes would
+     */
+    boolean needsRehash(String storedHash);
+}
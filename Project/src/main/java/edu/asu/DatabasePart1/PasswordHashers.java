@@ -0,0 +1,168 @@
+package edu.asu.DatabasePart1;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/****
+ * <p> PasswordHashers Class </p>
+ *
+ * <p> Description: The set of supported password hashing algorithms. New hashes are
+ * produced by the configured algorithm; stored hashes are verified by whichever
+ * algorithm their prefix names, so BCrypt and Argon2id hashes can coexist while users
+ * migrate on their next login. Every hash and verification is timed under the
+ * algorithm's name, e.g. {@code bcrypt.hash}, and recorded as a
+ * {@link PasswordHashEvent} when a flight recording enables it. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for pluggable password hashing
+ */
+
+class PasswordHashers {
+
+    // Algorithm for new hashes: "bcrypt" or "argon2id"
+    static final String DEFAULT_ALGORITHM = System.getProperty("cse360.password.algorithm", BCryptPasswordHasher.NAME);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final BCryptPasswordHasher bcrypt;
+    private final Argon2idPasswordHasher argon2id;
+    private final OperationMetrics metrics;
+    private volatile PasswordHasher current;
+
+    /**
+     * Creates the hasher set with the configured algorithm as the current one.
+     *
+     * @param bcryptCost the initial BCrypt cost factor
+     * @param metrics where hashing times are recorded
+     */
+    PasswordHashers(int bcryptCost, OperationMetrics metrics) {
+        this(new BCryptPasswordHasher(bcryptCost), new Argon2idPasswordHasher(), DEFAULT_ALGORITHM, metrics);
+    }
+
+    /**
+     * Creates the hasher set.
+     *
+     * @param bcrypt the BCrypt hasher
+     * @param argon2id the Argon2id hasher
+     * @param algorithm the name of the algorithm used for new hashes
+     * @param metrics where hashing times are recorded
+     */
+    PasswordHashers(BCryptPasswordHasher bcrypt, Argon2idPasswordHasher argon2id, String algorithm,
+                    OperationMetrics metrics) {
+        this.bcrypt = bcrypt;
+        this.argon2id = argon2id;
+        this.metrics = metrics;
+        setCurrent(algorithm);
+    }
+
+    /**
+     * Hashes a password with the current algorithm.
+     *
+     * @param password the password to hash
+     * @return the self-describing stored hash
+     */
+    String hash(char[] password) {
+        PasswordHasher hasher = current;
+        OperationMetrics.Timer timer = metrics.timer(hasher.getName() + ".hash");
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String hash = null;
+        try {
+            hash = hasher.hash(password);
+            return hash;
+        } finally {
+            timer.record(System.nanoTime() - start, hash == null);
+            event.finish(hasher.getName(), "hash", hash, hash != null);
+        }
+    }
+
+    /**
+     * Verifies a password with the algorithm named by the stored hash's prefix.
+     *
+     * @param password the password to check
+     * @param storedHash the stored hash
+     * @return true if the password matches, false otherwise
+     */
+    boolean verify(char[] password, String storedHash) {
+        PasswordHasher hasher = forHash(storedHash);
+        if (hasher == null) {
+            System.err.println("Error checking password: unrecognized hash format");
+            return false;
+        }
+        OperationMetrics.Timer timer = metrics.timer(hasher.getName() + ".verify");
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean matches = false;
+        try {
+            matches = hasher.verify(password, storedHash);
+            return matches;
+        } finally {
+            timer.record(System.nanoTime() - start, !matches);
+            event.finish(hasher.getName(), "verify", storedHash, matches);
+        }
+    }
+
+    /**
+     * @param storedHash a stored hash
+     * @return true if the hash was made by another algorithm or with other parameters than the current ones
+     */
+    boolean needsRehash(String storedHash) {
+        PasswordHasher hasher = forHash(storedHash);
+        return hasher != null && (hasher != current || hasher.needsRehash(storedHash));
+    }
+
+    /**
+     * @param storedHash a stored hash
+     * @return the hasher that produced it, or null if unrecognized
+     */
+    PasswordHasher forHash(String storedHash) {
+        if (bcrypt.supports(storedHash)) {
+            return bcrypt;
+        }
+        if (argon2id.supports(storedHash)) {
+            return argon2id;
+        }
+        return null;
+    }
+
+    PasswordHasher getCurrent() {
+        return current;
+    }
+
+    /**
+     * Switches the algorithm used for new hashes.
+     *
+     * @param algorithm "bcrypt" or "argon2id"
+     */
+    void setCurrent(String algorithm) {
+        if (BCryptPasswordHasher.NAME.equalsIgnoreCase(algorithm)) {
+            current = bcrypt;
+        } else if (Argon2idPasswordHasher.NAME.equalsIgnoreCase(algorithm)) {
+            current = argon2id;
+        } else {
+            throw new IllegalArgumentException("Unknown password algorithm: " + algorithm);
+        }
+    }
+
+    BCryptPasswordHasher getBCrypt() {
+        return bcrypt;
+    }
+
+    Argon2idPasswordHasher getArgon2id() {
+        return argon2id;
+    }
+
+    /**
+     * Generates a random 128-bit salt.
+     *
+     * @return the salt, Base64-encoded
+     */
+    static String generateSalt() {
+        byte[] salt = new byte[16];
+        RANDOM.nextBytes(salt);
+        return Base64.getEncoder().encodeToString(salt);
+    }
+}
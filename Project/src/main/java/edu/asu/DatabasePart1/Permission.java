@@ -0,0 +1,101 @@
+package edu.asu.DatabasePart1;
+
+import java.util.Locale;
+
+/****
+ * <p> Permission Enum </p>
+ *
+ * <p> Description: The actions a user may be allowed to take. Each permission is one bit
+ * of a {@code long}, and each role maps to a fixed set of bits, so a user's permissions
+ * are computed once when their roles are loaded and every access check afterwards is a
+ * single bitwise test that neither allocates nor compares strings. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for permission bitsets
+ */
+
+enum Permission {
+    VIEW_COURSES,
+    SUBMIT_ASSIGNMENTS,
+    MANAGE_COURSES,
+    GRADE_ASSIGNMENTS,
+    ACCESS_ADMIN_PANEL,
+    INVITE_USERS,
+    RESET_PASSWORDS,
+    DELETE_USERS,
+    LIST_USERS,
+    MODIFY_ROLES,
+    IMPORT_USERS,
+    EXPORT_USERS,
+    RUN_COMMAND_FILES;
+
+    static final long NONE = 0L;
+    static final long STUDENT = of(VIEW_COURSES, SUBMIT_ASSIGNMENTS);
+    static final long INSTRUCTOR = of(MANAGE_COURSES, GRADE_ASSIGNMENTS);
+    static final long ADMIN = of(ACCESS_ADMIN_PANEL, INVITE_USERS, RESET_PASSWORDS, DELETE_USERS, LIST_USERS,
+            MODIFY_ROLES, IMPORT_USERS, EXPORT_USERS, RUN_COMMAND_FILES);
+
+    private final long mask = 1L << ordinal();
+
+    long mask() {
+        return mask;
+    }
+
+    /**
+     * Checks whether a permission set includes this permission.
+     *
+     * @param permissions a permission set, as returned by {@link #forRoles}
+     * @return true if the permission is granted
+     */
+    boolean isGrantedBy(long permissions) {
+        return (permissions & mask) != 0;
+    }
+
+    /**
+     * Combines permissions into a permission set.
+     *
+     * @param permissions the permissions to include
+     * @return the permission set
+     */
+    static long of(Permission... permissions) {
+        long set = NONE;
+        for (Permission permission : permissions) {
+            set |= permission.mask;
+        }
+        return set;
+    }
+
+    /**
+     * Looks up the permissions granted by a role.
+     *
+     * @param role the role name, case-insensitive
+     * @return the role's permission set; empty for an unknown role
+     */
+    static long forRole(String role) {
+        switch (role.trim().toLowerCase(Locale.ROOT)) {
+            case "student":
+                return STUDENT;
+            case "instructor":
+                return INSTRUCTOR;
+            case "admin":
+                return ADMIN;
+            default:
+                return NONE;
+        }
+    }
+
+    /**
+     * Computes the permissions granted by all of a user's roles.
+     *
+     * @param roles the user's roles
+     * @return the union of the roles' permission sets
+     */
+    static long forRoles(String[] roles) {
+        long set = NONE;
+        for (String role : roles) {
+            set |= forRole(role);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,123 @@
+package edu.asu.DatabasePart1;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * <p> PermissionBenchmark Class </p>
+ *
+ * <p> Description: Measures the time and heap allocation of one "is this user an admin"
+ * check done three ways: lower-casing the stored roles string and searching it, as the
+ * original {@code isUserAdmin} did; scanning the role array with
+ * {@code equalsIgnoreCase}; and testing the precomputed {@link Permission} bitset.
+ * Allocation is read from the JVM's per-thread allocation counter. The benchmark fails
+ * if the bitset check allocates. </p>
+ *
+ * <p> Usage: {@code PermissionBenchmark [checks]} </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for permission benchmark
+ */
+public class PermissionBenchmark {
+
+    private static final String[] STORED_ROLES = {"Student", "Instructor", "Admin", "Student,Admin",
+            "Instructor,Student", "Admin,Instructor,Student", "student", "Student,Instructor"};
+
+    /**
+     * One way of checking a user for admin rights.
+     */
+    private interface Check {
+        boolean isAdmin(int user);
+    }
+
+    private static int sink;
+
+    /**
+     * Main method to run the benchmark.
+     *
+     * @param args optional number of checks per method
+     */
+    public static void main(String[] args) {
+        int checks = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        int users = 1024;
+        String[] storedRoles = new String[users];
+        String[][] roleArrays = new String[users][];
+        long[] permissions = new long[users];
+        for (int i = 0; i < users; i++) {
+            storedRoles[i] = STORED_ROLES[i % STORED_ROLES.length];
+            roleArrays[i] = storedRoles[i].split(",");
+            permissions[i] = Permission.forRoles(roleArrays[i]);
+        }
+
+        System.out.println("Permission check benchmark: " + checks + " checks per method");
+        Result legacy = run("toLowerCase().contains", checks, user -> storedRoles[user].toLowerCase().contains("admin"));
+        Result scan = run("equalsIgnoreCase scan", checks, user -> {
+            for (String role : roleArrays[user]) {
+                if (role.equalsIgnoreCase("admin")) {
+                    return true;
+                }
+            }
+            return false;
+        });
+        Result bitset = run("permission bitset", checks, user -> Permission.ACCESS_ADMIN_PANEL.isGrantedBy(permissions[user]));
+
+        System.out.println("------------------------------------------------------------------");
+        System.out.println(legacy);
+        System.out.println(scan);
+        System.out.println(bitset);
+        if (bitset.bytesPerCheck() >= 0.01) {
+            System.out.println("FAILED: permission bitset check allocated");
+            System.exit(1);
+        }
+    }
+
+    private static Result run(String name, int checks, Check check) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        measure(check, checks / 4); // Warm up so the timed run is compiled code
+        long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        int admins = measure(check, checks);
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+        sink += admins;
+        return new Result(name, checks, elapsed, bytes);
+    }
+
+    private static int measure(Check check, int checks) {
+        int admins = 0;
+        for (int i = 0; i < checks; i++) {
+            if (check.isAdmin(i & 1023)) {
+                admins++;
+            }
+        }
+        return admins;
+    }
+
+    /**
+     * The timing and allocation of one method.
+     */
+    private static class Result {
+        final String name;
+        final int checks;
+        final long elapsedNanos;
+        final long allocatedBytes;
+
+        Result(String name, int checks, long elapsedNanos, long allocatedBytes) {
+            this.name = name;
+            this.checks = checks;
+            this.elapsedNanos = elapsedNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        double bytesPerCheck() {
+            return (double) allocatedBytes / checks;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-24s %8.2f ns/check %10.2f bytes/check", name,
+                    (double) elapsedNanos / checks, bytesPerCheck());
+        }
+    }
+}
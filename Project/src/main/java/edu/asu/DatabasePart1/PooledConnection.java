@@ -0,0 +1,177 @@
+package edu.asu.DatabasePart1;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/****
+ * <p> PooledConnection Class </p>
+ *
+ * <p> Description: A connection checked out of a {@link ConnectionPool}. Closing it
+ * returns the underlying connection to the pool instead of closing it. Each connection
+ * keeps its own cache of prepared statements that lives as long as the connection.
+ * The statements handed out are instrumented, so the time each execution spends in the
+ * database goes into the pool's query times and, while a flight recording has it
+ * enabled, into a {@link SqlExecutionEvent}. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for connection pooling
+ */
+
+class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final StatementCache statementCache;
+
+    // Bookkeeping for validation and leak detection
+    private volatile long borrowedAt;
+    private volatile long borrowedNanos;
+    private volatile long returnedAt = System.currentTimeMillis();
+    private volatile String borrowerThread;
+    private volatile Throwable borrowSite;
+    private volatile boolean leakReported;
+
+    // Number of open handles on this checkout; the connection goes back to the pool when it drops to zero
+    private int holds;
+
+    /**
+     * Wraps a physical connection owned by the given pool.
+     *
+     * @param pool the pool this connection belongs to
+     * @param connection the physical JDBC connection
+     * @param statementCacheSize the maximum number of prepared statements cached on this connection
+     * @param cacheStats the pool-wide statement cache counters
+     */
+    PooledConnection(ConnectionPool pool, Connection connection, int statementCacheSize,
+                     StatementCache.Stats cacheStats) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = new StatementCache(connection, statementCacheSize, cacheStats);
+    }
+
+    /**
+     * @return the underlying JDBC connection
+     */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL from this connection's statement cache.
+     * The statement stays owned by the cache, so callers must close their result sets but
+     * not the statement itself.
+     *
+     * @param sql the SQL text to prepare
+     * @return the prepared statement, with its parameters cleared
+     * @throws SQLException if a database access error occurs
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        return InstrumentedStatement.timed(statementCache.prepare(sql), sql, pool.getQueryTimes());
+    }
+
+    /**
+     * Prepares a forward-only, read-only statement outside the statement cache, for
+     * streaming a large result. The caller must close it.
+     *
+     * @param sql the SQL text to prepare
+     * @return the prepared statement
+     * @throws SQLException if a database access error occurs
+     */
+    PreparedStatement prepareStreaming(String sql) throws SQLException {
+        PreparedStatement pstmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        return InstrumentedStatement.timed(pstmt, sql, pool.getQueryTimes());
+    }
+
+    /**
+     * Creates a plain statement on the underlying connection.
+     *
+     * @return the statement
+     * @throws SQLException if a database access error occurs
+     */
+    Statement createStatement() throws SQLException {
+        return InstrumentedStatement.timed(connection.createStatement(), pool.getQueryTimes());
+    }
+
+    /**
+     * Adds a handle to this checkout, so an enclosing transaction can share the
+     * connection with the operations it calls. Each retain needs a matching close.
+     *
+     * @return this connection
+     */
+    PooledConnection retain() {
+        holds++;
+        return this;
+    }
+
+    /**
+     * Releases one handle, returning the connection to the pool once no handles remain.
+     */
+    @Override
+    public void close() {
+        if (--holds == 0) {
+            pool.release(this);
+        }
+    }
+
+    void markBorrowed(boolean captureStackTrace) {
+        holds = 1;
+        borrowedAt = System.currentTimeMillis();
+        borrowedNanos = System.nanoTime();
+        borrowerThread = Thread.currentThread().getName();
+        borrowSite = captureStackTrace ? new Throwable("Connection borrowed here") : null;
+        leakReported = false;
+    }
+
+    void markReturned() {
+        returnedAt = System.currentTimeMillis();
+        borrowSite = null;
+    }
+
+    long idleMillis() {
+        return System.currentTimeMillis() - returnedAt;
+    }
+
+    long getBorrowedAt() {
+        return borrowedAt;
+    }
+
+    long getBorrowedNanos() {
+        return borrowedNanos;
+    }
+
+    String getBorrowerThread() {
+        return borrowerThread;
+    }
+
+    Throwable getBorrowSite() {
+        return borrowSite;
+    }
+
+    /**
+     * Marks this connection as reported leaked.
+     *
+     * @return true if this is the first report for the current checkout
+     */
+    boolean flagLeak() {
+        if (leakReported) {
+            return false;
+        }
+        leakReported = true;
+        return true;
+    }
+
+    /**
+     * Closes the cached statements and the physical connection.
+     */
+    void closePhysical() {
+        statementCache.clear();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package edu.asu.DatabasePart1;
+
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/****
+ * <p> SessionManager Class </p>
+ *
+ * <p> Description: Issues opaque session tokens after a successful login, so the rest of
+ * the session is authorized from memory instead of asking for the password again. Tokens
+ * are random 256-bit values that carry no data; the session they name holds the username
+ * and the permissions its roles granted at login. A session expires after a period
+ * without use, or after a fixed lifetime however busy it is, and each user may hold only
+ * a limited number of sessions at once, the oldest being dropped first. Sessions are revoked when the user's roles or
+ * password change or the user is deleted. Each revocation also moves the user's
+ * revocation generation on; a login context records the generation it was loaded at,
+ * and no session is created from a context that a revocation has overtaken, so a login
+ * racing a role change or deletion cannot start a session with the old roles. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for session tokens
+ */
+
+class SessionManager {
+
+    static final long DEFAULT_IDLE_TIMEOUT_MILLIS = Long.getLong("cse360.sessions.idleTimeoutMillis", 30 * 60_000L);
+    static final long DEFAULT_MAX_LIFETIME_MILLIS = Long.getLong("cse360.sessions.maxLifetimeMillis", 12 * 60 * 60_000L);
+    static final int DEFAULT_MAX_PER_USER = Integer.getInteger("cse360.sessions.maxPerUser", 5);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    // Each user's sessions, oldest first; a deque is only touched inside compute() on its key
+    private final ConcurrentHashMap<String, ArrayDeque<Session>> sessionsByUser = new ConcurrentHashMap<>();
+    // Revocations per user, only incremented inside compute() on the user's sessionsByUser key
+    private final ConcurrentHashMap<String, Long> generations = new ConcurrentHashMap<>();
+    private final long idleTimeoutNanos;
+    private final long maxLifetimeNanos;
+    private final int maxPerUser;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder revoked = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder displaced = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+
+    /**
+     * Creates a session manager with the configured timeouts and per-user cap.
+     */
+    SessionManager() {
+        this(DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_MAX_LIFETIME_MILLIS, DEFAULT_MAX_PER_USER);
+    }
+
+    /**
+     * Creates a session manager.
+     *
+     * @param idleTimeoutMillis how long a session stays valid without being used
+     * @param maxLifetimeMillis how long a session stays valid at most
+     * @param maxPerUser the most sessions one user may hold; creating another drops the oldest
+     */
+    SessionManager(long idleTimeoutMillis, long maxLifetimeMillis, int maxPerUser) {
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(maxLifetimeMillis);
+        this.maxPerUser = maxPerUser;
+    }
+
+    /**
+     * @param username a user
+     * @return how many times the user's sessions have been revoked, to be recorded in a
+     *         login context before it is loaded
+     */
+    long getGeneration(String username) {
+        return generations.getOrDefault(username, 0L);
+    }
+
+    /**
+     * Starts a session for a user who has just logged in, unless the user's sessions have
+     * been revoked since the context was loaded. The context's roles may then be out of
+     * date, or the user may have been deleted.
+     *
+     * @param context the login context the user authenticated against
+     * @return the session token, or null if the context is out of date
+     */
+    String create(LoginContext context) {
+        String token = create(context.getUsername(), context.getRoles(), context.getRevocationGeneration());
+        if (token == null) {
+            refused.increment();
+        }
+        return token;
+    }
+
+    /**
+     * Starts a session.
+     *
+     * @param username the user the session belongs to
+     * @param roles the user's roles, fixed for the life of the session
+     * @return the session token
+     */
+    String create(String username, String[] roles) {
+        return create(username, roles, -1);
+    }
+
+    private String create(String username, String[] roles, long generation) {
+        long now = System.nanoTime();
+        Session session = new Session(newToken(), username, roles, now);
+        boolean[] stale = new boolean[1];
+        sessionsByUser.compute(username, (key, userSessions) -> {
+            // Checked under the same lock as revokeUser, so a revocation is either seen here or ends this session
+            if (generation >= 0 && generation != getGeneration(key)) {
+                stale[0] = true;
+                return userSessions;
+            }
+            if (userSessions == null) {
+                userSessions = new ArrayDeque<>();
+            }
+            userSessions.removeIf(old -> old.isExpired(now) && expire(old));
+            while (userSessions.size() >= maxPerUser) {
+                if (sessions.remove(userSessions.pollFirst().token) != null) {
+                    displaced.increment();
+                }
+            }
+            userSessions.addLast(session);
+            sessions.put(session.token, session);
+            return userSessions;
+        });
+        if (stale[0]) {
+            return null;
+        }
+        created.increment();
+        return session.token;
+    }
+
+    /**
+     * Looks up a session by token and extends it.
+     *
+     * @param token the session token, may be null
+     * @return the session, or null if the token is unknown, expired or revoked
+     */
+    Session get(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (session.isExpired(now)) {
+            if (expire(session)) {
+                removeFromUser(session);
+            }
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+
+    /**
+     * Ends one session, e.g. on logout.
+     *
+     * @param token the session token
+     */
+    void revoke(String token) {
+        Session session = token == null ? null : sessions.remove(token);
+        if (session != null) {
+            revoked.increment();
+            removeFromUser(session);
+        }
+    }
+
+    /**
+     * Ends every session of a user and moves their revocation generation on, so login
+     * contexts loaded before now can no longer start one.
+     *
+     * @param username the user whose sessions are ended
+     * @return the number of sessions ended
+     */
+    int revokeUser(String username) {
+        List<Session> ended = new ArrayList<>();
+        sessionsByUser.compute(username, (key, userSessions) -> {
+            generations.merge(key, 1L, Long::sum);
+            if (userSessions != null) {
+                ended.addAll(userSessions);
+            }
+            return null;
+        });
+        int count = 0;
+        for (Session session : ended) {
+            if (sessions.remove(session.token) != null) {
+                count++;
+            }
+        }
+        revoked.add(count);
+        return count;
+    }
+
+    /**
+     * Drops every expired session. Expired sessions are also dropped when they are next
+     * looked up, so this only reclaims the memory of sessions that were abandoned.
+     *
+     * @return the number of sessions dropped
+     */
+    int evictExpired() {
+        long now = System.nanoTime();
+        int count = 0;
+        for (Session session : sessions.values()) {
+            if (session.isExpired(now) && expire(session)) {
+                removeFromUser(session);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean expire(Session session) {
+        if (sessions.remove(session.token, session)) {
+            expired.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private void removeFromUser(Session session) {
+        sessionsByUser.computeIfPresent(session.username, (key, userSessions) -> {
+            userSessions.remove(session);
+            return userSessions.isEmpty() ? null : userSessions;
+        });
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    int getActiveCount() {
+        return sessions.size();
+    }
+
+    long getCreatedCount() {
+        return created.sum();
+    }
+
+    long getRevokedCount() {
+        return revoked.sum();
+    }
+
+    long getExpiredCount() {
+        return expired.sum();
+    }
+
+    long getDisplacedCount() {
+        return displaced.sum();
+    }
+
+    long getRefusedCount() {
+        return refused.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SessionManager[active=%d, created=%d, revoked=%d, expired=%d, displaced=%d, refused=%d]",
+                getActiveCount(), getCreatedCount(), getRevokedCount(), getExpiredCount(), getDisplacedCount(),
+                getRefusedCount());
+    }
+
+    /**
+     * One logged-in session. Access checks are answered from the permission bitset
+     * computed at login.
+     */
+    final class Session {
+        private final String token;
+        private final String username;
+        private final String[] roles;
+        private final long permissions;
+        private final long createdNanos;
+        private volatile long lastUsedNanos;
+
+        private Session(String token, String username, String[] roles, long now) {
+            this.token = token;
+            this.username = username;
+            this.roles = roles.clone();
+            this.permissions = Permission.forRoles(roles);
+            this.createdNanos = now;
+            this.lastUsedNanos = now;
+        }
+
+        String getToken() {
+            return token;
+        }
+
+        String getUsername() {
+            return username;
+        }
+
+        String[] getRoles() {
+            return roles.clone();
+        }
+
+        /**
+         * @return the permissions granted at login, as a {@link Permission} bitset
+         */
+        long getPermissions() {
+            return permissions;
+        }
+
+        /**
+         * Checks whether the session's roles grant a permission.
+         *
+         * @param permission the permission to check
+         * @return true if the permission is granted
+         */
+        boolean hasPermission(Permission permission) {
+            return permission.isGrantedBy(permissions);
+        }
+
+        private boolean isExpired(long now) {
+            return now - lastUsedNanos > idleTimeoutNanos || now - createdNanos > maxLifetimeNanos;
+        }
+
+        private void touch(long now) {
+            // Skip the write while the session is fresh, so busy sessions do not keep dirtying the shared field
+            if (now - lastUsedNanos > idleTimeoutNanos >> 4) {
+                lastUsedNanos = now;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Session[username=" + username + ", roles=" + Arrays.toString(roles) + "]";
+        }
+    }
+}
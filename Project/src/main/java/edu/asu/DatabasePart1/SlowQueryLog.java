@@ -0,0 +1,237 @@
+package edu.asu.DatabasePart1;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/****
+ * <p> SlowQueryLog Class </p>
+ *
+ * <p> Description: Logs SQL statements that spend longer than a threshold in the
+ * database, with their
+ * bind parameters redacted, the rows they read or changed, and H2's {@code EXPLAIN}
+ * plan. Connections wrapped by {@link #instrument} time every execution; a slow one is
+ * handed to a single background thread through a bounded queue, so the request that
+ * ran it never waits for the plan or the log. When the queue is full the record is
+ * dropped and counted. Plans are looked up on a connection of the log's own, once per
+ * SQL text. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for the slow-query log
+ */
+
+class SlowQueryLog implements AutoCloseable {
+
+    static final long DEFAULT_THRESHOLD_MILLIS = Long.getLong("cse360.slowQuery.thresholdMillis", 0L);
+    static final int DEFAULT_QUEUE_SIZE = Integer.getInteger("cse360.slowQuery.queueSize", 1000);
+
+    private static final int MAX_CACHED_PLANS = 256;
+
+    private final long thresholdNanos;
+    private final DatabaseHelper.SqlQuery<Connection> explainConnections;
+    private final PrintStream log;
+    private final ThreadPoolExecutor writer;
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    // Only used by the writer thread
+    private final Map<String, String> plans = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_CACHED_PLANS;
+        }
+    };
+    private Connection explainConnection;
+
+    /**
+     * Creates a log with the configured queue size.
+     *
+     * @param thresholdMillis executions taking at least this long are logged
+     * @param explainConnections opens the connection plans are looked up on
+     * @param log where slow statements are written
+     */
+    SlowQueryLog(long thresholdMillis, DatabaseHelper.SqlQuery<Connection> explainConnections, PrintStream log) {
+        this(TimeUnit.MILLISECONDS.toNanos(thresholdMillis), DEFAULT_QUEUE_SIZE, explainConnections, log);
+    }
+
+    /**
+     * Creates a log.
+     *
+     * @param thresholdNanos executions taking at least this long are logged
+     * @param queueSize the number of slow statements allowed to wait for the writer
+     * @param explainConnections opens the connection plans are looked up on
+     * @param log where slow statements are written
+     */
+    SlowQueryLog(long thresholdNanos, int queueSize, DatabaseHelper.SqlQuery<Connection> explainConnections,
+                 PrintStream log) {
+        this.thresholdNanos = thresholdNanos;
+        this.explainConnections = explainConnections;
+        this.log = log;
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                HashingService.daemonThreads("cse360-slow-query-"), (task, executor) -> dropped.increment());
+    }
+
+    /**
+     * Wraps a connection so every statement executed through it is timed.
+     *
+     * @param connection the connection to wrap
+     * @return the instrumented connection
+     */
+    Connection instrument(Connection connection) {
+        return InstrumentedConnection.wrap(connection, this);
+    }
+
+    /**
+     * @param nanos an execution time
+     * @return true if an execution that long is logged
+     */
+    boolean isSlow(long nanos) {
+        return nanos >= thresholdNanos;
+    }
+
+    /**
+     * Queues a slow execution for logging without waiting. The parameters are redacted on
+     * the writer thread.
+     *
+     * @param sql the SQL text
+     * @param parameters the bind parameters by index from 1, or null if there are none
+     * @param rows the rows read or changed, or -1 if the statement failed
+     * @param nanos the time spent executing the statement and fetching its rows
+     * @param openNanos for a query, the time from its execution until its result set was
+     *        closed, including the caller's work between rows, or -1
+     */
+    void submit(String sql, Object[] parameters, long rows, long nanos, long openNanos) {
+        if (sql == null) {
+            return;
+        }
+        writer.execute(() -> write(sql, parameters, rows, nanos, openNanos));
+    }
+
+    private void write(String sql, Object[] parameters, long rows, long nanos, long openNanos) {
+        String plan = plans.get(sql);
+        if (plan == null) {
+            plan = explain(sql);
+            plans.put(sql, plan);
+        }
+        String open = openNanos < 0 ? "" : String.format(Locale.ROOT, ", result set open %.1f ms", openNanos / 1e6);
+        log.printf(Locale.ROOT, "Slow query (%.1f ms, %s%s): %s | parameters %s | plan: %s%n", nanos / 1e6,
+                rows < 0 ? "failed" : rows + (rows == 1 ? " row" : " rows"), open, sql, redact(parameters), plan);
+        logged.increment();
+    }
+
+    /**
+     * Looks up the plan of a statement, with every parameter bound to NULL.
+     */
+    private String explain(String sql) {
+        String keyword = sql.trim().split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+        switch (keyword) {
+            case "SELECT":
+            case "WITH":
+            case "INSERT":
+            case "UPDATE":
+            case "DELETE":
+            case "MERGE":
+                break;
+            default:
+                return "n/a";
+        }
+        try {
+            if (explainConnection == null || explainConnection.isClosed()) {
+                explainConnection = explainConnections.get();
+            }
+            try (PreparedStatement explain = explainConnection.prepareStatement("EXPLAIN " + sql)) {
+                int count = explain.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= count; i++) {
+                    explain.setNull(i, Types.NULL);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = explain.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(plan.length() == 0 ? "" : " ").append(rs.getString(1));
+                    }
+                }
+                return plan.toString().replaceAll("\\s+", " ");
+            }
+        } catch (SQLException e) {
+            return "unavailable (" + e.getMessage().split("\n", 2)[0] + ")";
+        }
+    }
+
+    /**
+     * Describes bind parameters without their text: strings and binary values by length,
+     * other values by type, and numbers, booleans and nulls as they are.
+     *
+     * @param parameters the parameters by index from 1, or null
+     * @return the redacted list
+     */
+    static String redact(Object[] parameters) {
+        if (parameters == null) {
+            return "[]";
+        }
+        List<String> redacted = new ArrayList<>(parameters.length);
+        for (int i = 1; i < parameters.length; i++) {
+            Object value = parameters[i];
+            if (value == null || value instanceof Number || value instanceof Boolean) {
+                redacted.add(String.valueOf(value));
+            } else if (value instanceof CharSequence) {
+                redacted.add("<string(" + ((CharSequence) value).length() + ")>");
+            } else if (value instanceof byte[]) {
+                redacted.add("<bytes(" + ((byte[]) value).length + ")>");
+            } else {
+                redacted.add("<" + value.getClass().getSimpleName() + ">");
+            }
+        }
+        return redacted.toString();
+    }
+
+    long getLoggedCount() {
+        return logged.sum();
+    }
+
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Writes the statements still queued, then closes the plan connection.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (explainConnection != null) {
+            try {
+                explainConnection.close();
+            } catch (SQLException e) {
+                // Closing anyway
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SlowQueryLog[threshold=%.0f ms, logged=%d, dropped=%d, queued=%d]",
+                thresholdNanos / 1e6, getLoggedCount(), getDroppedCount(), writer.getQueue().size());
+    }
+}
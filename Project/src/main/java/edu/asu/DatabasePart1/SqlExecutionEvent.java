@@ -0,0 +1,78 @@
+package edu.asu.DatabasePart1;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/****
+ * <p> SqlExecutionEvent Class </p>
+ *
+ * <p> Description: A Java Flight Recorder event for one SQL statement execution. For a
+ * query it lasts until the result set is closed, so it includes fetching the rows, which
+ * H2 may do lazily, and whatever the caller does between rows; the database time field
+ * leaves the latter out. The event is disabled unless a recording enables it, for example
+ * with the {@code cse360.jfc} settings, and costs next to nothing otherwise; the
+ * statements are instrumented regardless to time them (see {@link InstrumentedStatement}). </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for JFR events
+ */
+
+@Name(SqlExecutionEvent.NAME)
+@Label("SQL Execution")
+@Category({"CSE360", "Database"})
+@Description("Execution of one SQL statement, including fetching the rows of a query")
+@Enabled(false)
+class SqlExecutionEvent extends Event {
+
+    static final String NAME = "edu.asu.DatabasePart1.SqlExecution";
+
+    private static final EventType TYPE = EventType.getEventType(SqlExecutionEvent.class);
+
+    @Label("SQL ID")
+    @Description("Hash of the SQL text, the same for every execution of one statement")
+    int sqlId;
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Rows")
+    @Description("Rows read by a query or changed by an update, or -1 if the statement failed")
+    long rows;
+
+    @Label("Database Time")
+    @Description("Time spent executing the statement and fetching its rows, without the caller's work between rows")
+    @Timespan(Timespan.NANOSECONDS)
+    long databaseTime;
+
+    /**
+     * @return true if a running recording has this event enabled
+     */
+    static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+
+    /**
+     * Ends the event and commits it if the recording's threshold is met.
+     *
+     * @param sql the SQL text, or null if unknown
+     * @param rows the rows read or changed, or -1 if the statement failed
+     * @param databaseNanos the time spent in the database
+     */
+    void finish(String sql, long rows, long databaseNanos) {
+        end();
+        if (shouldCommit()) {
+            this.sqlId = sql == null ? 0 : sql.hashCode();
+            this.sql = sql;
+            this.rows = rows;
+            this.databaseTime = databaseNanos;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package edu.asu.DatabasePart1;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/****
+ * <p> StatementCache Class </p>
+ *
+ * <p> Description: A bounded, least-recently-used cache of prepared statements for one
+ * connection, keyed by SQL text. A pooled connection is only used by one thread at a
+ * time, so the cache itself is not synchronized; the hit and miss counters are shared
+ * by every connection in the pool. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for prepared statement caching
+ */
+
+class StatementCache {
+
+    static final int DEFAULT_MAX_SIZE = Integer.getInteger("cse360.statementCache.size", 32);
+
+    private final Connection connection;
+    private final Stats stats;
+    private final Map<String, PreparedStatement> statements;
+
+    /**
+     * Creates a cache for the given connection.
+     *
+     * @param connection the connection statements are prepared on
+     * @param maxSize the maximum number of statements kept open
+     * @param stats the counters to record hits, misses and evictions in
+     */
+    StatementCache(Connection connection, int maxSize, Stats stats) {
+        this.connection = connection;
+        this.stats = stats;
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > maxSize) {
+                    stats.evictions.increment();
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, reusing a cached one when possible.
+     * Parameters left over from the previous use are cleared. The caller must not close
+     * the returned statement.
+     *
+     * @param sql the SQL text
+     * @return a ready-to-use prepared statement
+     * @throws SQLException if the statement cannot be prepared
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement pstmt = statements.get(sql);
+        if (pstmt != null && !pstmt.isClosed()) {
+            pstmt.clearParameters();
+            stats.hits.increment();
+            return pstmt;
+        }
+        stats.misses.increment();
+        pstmt = connection.prepareStatement(sql);
+        statements.put(sql, pstmt);
+        return pstmt;
+    }
+
+    /**
+     * Closes every cached statement.
+     */
+    void clear() {
+        for (PreparedStatement pstmt : statements.values()) {
+            closeQuietly(pstmt);
+        }
+        statements.clear();
+    }
+
+    /**
+     * @return the number of statements currently cached
+     */
+    int size() {
+        return statements.size();
+    }
+
+    private static void closeQuietly(PreparedStatement pstmt) {
+        try {
+            pstmt.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters shared by all statement caches of a pool.
+     */
+    static class Stats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        long getHits() {
+            return hits.sum();
+        }
+
+        long getMisses() {
+            return misses.sum();
+        }
+
+        long getEvictions() {
+            return evictions.sum();
+        }
+
+        double getHitRate() {
+            long h = hits.sum();
+            long total = h + misses.sum();
+            return total == 0 ? 0.0 : (double) h / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("StatementCache[hits=%d, misses=%d, evictions=%d, hitRate=%.1f%%]",
+                    getHits(), getMisses(), getEvictions(), getHitRate() * 100);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package edu.asu.DatabasePart1;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/****
+ * <p> UserAttributeCache Class </p>
+ *
+ * <p> Description: A bounded, read-through cache of per-user attributes (existence,
+ * roles and profile status). Entries expire after a time-to-live and the least
+ * recently used entries are evicted when the cache is full. Writers must invalidate
+ * the affected username so readers never see an attribute older than the last write. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for user attribute caching
+ */
+
+class UserAttributeCache {
+
+    static final int DEFAULT_MAX_SIZE = Integer.getInteger("cse360.userCache.maxSize", 10_000);
+    static final long DEFAULT_TTL_MILLIS = Long.getLong("cse360.userCache.ttlMillis", 60_000L);
+
+    /**
+     * Loads the attributes of a user from the database on a cache miss.
+     */
+    interface Loader {
+        UserAttributes load(String username) throws SQLException;
+    }
+
+    private final Loader loader;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<String, CachedEntry> entries;
+
+    // Bumped on every invalidation so a load that raced with a write is not cached
+    private final AtomicLong invalidationSequence = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Creates a cache with the default size and time-to-live.
+     *
+     * @param loader the database lookup used on a miss
+     */
+    UserAttributeCache(Loader loader) {
+        this(loader, DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param loader the database lookup used on a miss
+     * @param maxSize the maximum number of users kept in the cache
+     * @param ttlMillis how long an entry stays valid after it is loaded
+     */
+    UserAttributeCache(Loader loader, int maxSize, long ttlMillis) {
+        this.loader = loader;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<String, CachedEntry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedEntry> eldest) {
+                if (size() > UserAttributeCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the attributes of a user, loading them from the database on a miss.
+     *
+     * @param username the username to look up
+     * @return the user's attributes; {@link UserAttributes#MISSING} if the user does not exist
+     * @throws SQLException if the database lookup fails
+     */
+    UserAttributes get(String username) throws SQLException {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            CachedEntry entry = entries.get(username);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.increment();
+                    return entry.attributes;
+                }
+                entries.remove(username);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+
+        long sequence = invalidationSequence.get();
+        UserAttributes attributes = loader.load(username);
+        synchronized (entries) {
+            if (sequence == invalidationSequence.get()) {
+                entries.put(username, new CachedEntry(attributes, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * Drops the cached attributes of a user. Call after any write that changes them.
+     *
+     * @param username the user whose attributes changed
+     */
+    void invalidate(String username) {
+        synchronized (entries) {
+            invalidationSequence.incrementAndGet();
+            entries.remove(username);
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * Drops every cached entry.
+     */
+    void invalidateAll() {
+        synchronized (entries) {
+            invalidationSequence.incrementAndGet();
+            entries.clear();
+        }
+        invalidations.increment();
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    long getEvictions() {
+        return evictions.sum();
+    }
+
+    long getExpirations() {
+        return expirations.sum();
+    }
+
+    long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    /**
+     * @return the fraction of lookups served without a database query
+     */
+    double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UserAttributeCache[size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, "
+                        + "evictions=%d, expirations=%d, invalidations=%d]",
+                size(), maxSize, getHits(), getMisses(), getHitRate() * 100,
+                getEvictions(), getExpirations(), getInvalidations());
+    }
+
+    private static class CachedEntry {
+        final UserAttributes attributes;
+        final long expiresAt;
+
+        CachedEntry(UserAttributes attributes, long expiresAt) {
+            this.attributes = attributes;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * The cached attributes of one user.
+     */
+    static class UserAttributes {
+        static final UserAttributes MISSING = new UserAttributes(false, new String[]{}, false);
+
+        private final boolean exists;
+        private final String[] roles;
+        private final long permissions;
+        private final boolean profileComplete;
+
+        UserAttributes(boolean exists, String[] roles, boolean profileComplete) {
+            this.exists = exists;
+            this.roles = roles;
+            this.permissions = Permission.forRoles(roles);
+            this.profileComplete = profileComplete;
+        }
+
+        boolean exists() {
+            return exists;
+        }
+
+        String[] getRoles() {
+            return roles.clone();
+        }
+
+        boolean isProfileComplete() {
+            return profileComplete;
+        }
+
+        boolean hasPermission(Permission permission) {
+            return permission.isGrantedBy(permissions);
+        }
+    }
+}
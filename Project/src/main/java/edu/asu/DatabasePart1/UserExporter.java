@@ -0,0 +1,188 @@
+package edu.asu.DatabasePart1;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/****
+ * <p> UserExporter Class </p>
+ *
+ * <p> Description: Writes the user directory (username, email, names, roles and profile
+ * status) to a gzip-compressed file as CSV or JSON Lines. Users are streamed from the
+ * database cursor straight into the compressed output one at a time, so memory use does
+ * not depend on the number of users. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for user export
+ */
+
+class UserExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String[] CSV_HEADER = {"username", "email", "first_name", "middle_name", "last_name",
+            "preferred_name", "roles", "profile_complete"};
+
+    /**
+     * The supported output formats.
+     */
+    enum Format {
+        CSV, JSON_LINES;
+
+        /**
+         * Picks a format from a name such as {@code csv}, {@code jsonl} or {@code json}.
+         *
+         * @param name the format name, case-insensitive
+         * @return the format
+         * @throws IllegalArgumentException if the name is not recognised
+         */
+        static Format parse(String name) {
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "csv":
+                    return CSV;
+                case "json":
+                case "jsonl":
+                    return JSON_LINES;
+                default:
+                    throw new IllegalArgumentException("Unknown export format: " + name);
+            }
+        }
+    }
+
+    private final DatabaseHelper databaseHelper;
+
+    /**
+     * Creates an exporter.
+     *
+     * @param databaseHelper the database to export from
+     */
+    UserExporter(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    /**
+     * Exports every user to a gzip-compressed file, replacing it if it exists.
+     *
+     * @param file the file to write
+     * @param format the output format
+     * @return the number of users exported
+     * @throws IOException if the file cannot be written
+     * @throws SQLException if a database access error occurs
+     */
+    long export(Path file, Format format) throws IOException, SQLException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            return export(out, format);
+        }
+    }
+
+    /**
+     * Exports every user to a writer.
+     *
+     * @param out the destination
+     * @param format the output format
+     * @return the number of users exported
+     * @throws IOException if the output cannot be written
+     * @throws SQLException if a database access error occurs
+     */
+    long export(Writer out, Format format) throws IOException, SQLException {
+        if (format == Format.CSV) {
+            writeCsvRow(out, CSV_HEADER);
+            return databaseHelper.forEachUser(user -> writeCsvRow(out, new String[]{user.getUsername(), user.getEmail(),
+                    user.getFirstName(), user.getMiddleName(), user.getLastName(), user.getPreferredName(),
+                    String.join(",", user.getRoles()), String.valueOf(user.isProfileComplete())}));
+        }
+        return databaseHelper.forEachUser(user -> writeJsonLine(out, user));
+    }
+
+    private static void writeCsvRow(Writer out, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            String field = fields[i];
+            if (field == null) {
+                continue;
+            }
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(field.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(field);
+            }
+        }
+        out.write('\n');
+    }
+
+    private static void writeJsonLine(Writer out, UserPage.UserSummary user) throws IOException {
+        out.write("{\"username\":");
+        writeJsonString(out, user.getUsername());
+        out.write(",\"email\":");
+        writeJsonString(out, user.getEmail());
+        out.write(",\"firstName\":");
+        writeJsonString(out, user.getFirstName());
+        out.write(",\"middleName\":");
+        writeJsonString(out, user.getMiddleName());
+        out.write(",\"lastName\":");
+        writeJsonString(out, user.getLastName());
+        out.write(",\"preferredName\":");
+        writeJsonString(out, user.getPreferredName());
+        out.write(",\"roles\":[");
+        String[] roles = user.getRoles();
+        for (int i = 0; i < roles.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeJsonString(out, roles[i]);
+        }
+        out.write("],\"profileComplete\":");
+        out.write(String.valueOf(user.isProfileComplete()));
+        out.write("}\n");
+    }
+
+    /**
+     * Writes a JSON string literal, or {@code null}.
+     */
+    static void writeJsonString(Writer out, String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,64 @@
+package edu.asu.DatabasePart1;
+
+/****
+ * <p> UserFilter Class </p>
+ *
+ * <p> Description: Server-side filters for listing users. Every filter is optional;
+ * unset filters match all users. The setters return the filter so they can be chained,
+ * e.g. {@code new UserFilter().role("student").usernamePrefix("a")}. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for paginated user listing
+ */
+
+class UserFilter {
+    private String role;
+    private Boolean profileComplete;
+    private String usernamePrefix;
+
+    /**
+     * Only lists users holding the given role.
+     *
+     * @param role the role, compared case-insensitively, or null for any role
+     * @return this filter
+     */
+    UserFilter role(String role) {
+        this.role = role == null || role.trim().isEmpty() ? null : role;
+        return this;
+    }
+
+    /**
+     * Only lists users whose profile is, or is not, complete.
+     *
+     * @param profileComplete the required profile status, or null for either
+     * @return this filter
+     */
+    UserFilter profileComplete(Boolean profileComplete) {
+        this.profileComplete = profileComplete;
+        return this;
+    }
+
+    /**
+     * Only lists users whose username starts with the given text.
+     *
+     * @param usernamePrefix the prefix, matched case-sensitively, or null for any username
+     * @return this filter
+     */
+    UserFilter usernamePrefix(String usernamePrefix) {
+        this.usernamePrefix = usernamePrefix == null || usernamePrefix.isEmpty() ? null : usernamePrefix;
+        return this;
+    }
+
+    String getRole() {
+        return role;
+    }
+
+    Boolean getProfileComplete() {
+        return profileComplete;
+    }
+
+    String getUsernamePrefix() {
+        return usernamePrefix;
+    }
+}
@@ -2,6 +2,7 @@ package edu.asu.DatabasePart1;
 
 import java.sql.SQLException;
 import java.util.Scanner;
+import java.util.concurrent.atomic.LongAdder;
 
 /****
  * <p> UserInterface Class </p>
@@ -15,6 +16,8 @@ import java.util.Scanner;
 
 public class UserInterface {
     private static final Scanner scanner = new Scanner(System.in);
+    // Time spent waiting for the user to type, so flow events can tell it apart from work
+    private static final LongAdder inputNanos = new LongAdder();
     private final UserManager userManager;
     private final AdminManager adminManager;
 
@@ -75,7 +78,12 @@ public class UserInterface {
      */
     public static String getInput(String prompt) {
         System.out.print(prompt);
-        return scanner.nextLine();
+        long start = System.nanoTime();
+        try {
+            return scanner.nextLine();
+        } finally {
+            inputNanos.add(System.nanoTime() - start);
+        }
     }
 
     /**
@@ -86,14 +94,26 @@ public class UserInterface {
      */
     public static char[] getPassword(String prompt) {
         System.out.print(prompt);
-        if (System.console() != null) {
-            return System.console().readPassword();
-        } else {
-            // Fallback to using Scanner when console is not available
-            return scanner.nextLine().toCharArray();
+        long start = System.nanoTime();
+        try {
+            if (System.console() != null) {
+                return System.console().readPassword();
+            } else {
+                // Fallback to using Scanner when console is not available
+                return scanner.nextLine().toCharArray();
+            }
+        } finally {
+            inputNanos.add(System.nanoTime() - start);
         }
     }
 
+    /**
+     * @return the total time spent waiting at prompts so far, in nanoseconds
+     */
+    static long getInputNanos() {
+        return inputNanos.sum();
+    }
+
     /**
      * Gets required input from the user, ensuring it's not empty.
      * 
@@ -67,9 +67,13 @@ public class UserManager {
         System.out.println("User Registration");
         System.out.println("-------------------------------------");
         String invitationCode = UserInterface.getInput("Enter invitation code: ");
+        // Each event starts after the prompts before it, so typing is not counted
+        FlowEvent event = new FlowEvent();
+        event.begin();
         String roles = databaseHelper.getInvitationRoles(invitationCode);
         
         if (roles == null) {
+            event.finish("user.register", "invalidInvitation");
             System.out.println("Invalid or used invitation code. Registration failed.");
             return;
         }
@@ -77,14 +81,23 @@ public class UserManager {
         String username = UserInterface.getInput("Enter Username: ");
         char[] password = UserInterface.getPassword("Enter Password: ");
         char[] confirmPassword = UserInterface.getPassword("Confirm Password: ");
+        event = new FlowEvent();
+        event.begin();
 
         if (Arrays.equals(password, confirmPassword)) {
-            databaseHelper.register(username, password, roles);
-            databaseHelper.markInvitationAsUsed(invitationCode);
+            Arrays.fill(confirmPassword, '\0');
+            // Claims the code and creates the user atomically, so a code can only be redeemed once
+            if (databaseHelper.redeemInvitationAndRegister(invitationCode, username, password) == null) {
+                event.finish("user.register", "invalidInvitation");
+                System.out.println("Invalid or used invitation code. Registration failed.");
+                return;
+            }
+            event.finish("user.register", "success");
             System.out.println("-------------------------------------");
             System.out.println("Registration successful. Please log in to set up your profile.");
             System.out.println("-------------------------------------");
         } else {
+            event.finish("user.register", "passwordMismatch");
             System.out.println("Passwords do not match. Registration failed.");
         }
     }
@@ -99,28 +112,48 @@ public class UserManager {
         System.out.println("User Login");
         System.out.println("-------------------------------------");
         String username = UserInterface.getInput("Enter Username: ");
+        FlowEvent event = new FlowEvent();
+        event.begin();
+        // One query fetches the hash, OTP flag, profile status and roles
+        LoginContext context = databaseHelper.getLoginContext(username);
         
-        if (databaseHelper.isOTPPasswordSet(username)) {
+        if (context != null && context.isOTPPasswordSet()) {
+            event.finish("user.login", "otp");
             authManager.handleOTPLogin(username);
             return;
         } else {
             char[] password = UserInterface.getPassword("Enter Password: ");
-            if (authManager.login(username, password)) {
-                System.out.println("Login successful.");
-                if (!databaseHelper.isProfileComplete(username)) {
-                    authManager.setupProfile(username);
+            // Restarted after the prompt; the context lookup above is recorded as its own SQL event
+            event = new FlowEvent();
+            event.begin();
+            if (authManager.login(context, password)) {
+                // The rest of the session is authorized from the token, without the password. It is
+                // created before any further prompt, so a role change or deletion meanwhile revokes it
+                String token = databaseHelper.getSessionManager().create(context);
+                if (token == null) {
+                    event.finish("user.login", "revoked");
+                    System.out.println("Your account changed while you were logging in. Please log in again.");
+                    return;
                 }
-                String[] roles = databaseHelper.getUserRoles(username);
-                if (roles.length > 0) {
+                event.finish("user.login", "success");
+                System.out.println("Login successful.");
+                try {
+                    if (!context.isProfileComplete()) {
+                        authManager.setupProfile(username);
+                    }
+                    String[] roles = context.getRoles();
                     if (roles.length > 1) {
-                        chooseRoleFlow(username, roles);
+                        chooseRoleFlow(token, roles);
+                    } else if (roles.length == 1) {
+                        userSession(token, roles[0]);
                     } else {
-                        userSession(username, roles[0]);
+                        System.out.println("No roles assigned to this user. Please contact an admin.");
                     }
-                } else {
-                    System.out.println("No roles assigned to this user. Please contact an admin.");
+                } finally {
+                    databaseHelper.getSessionManager().revoke(token);
                 }
             } else {
+                event.finish("user.login", "invalidCredentials");
                 System.out.println("Invalid credentials. Try again.");
             }
         }
@@ -129,11 +162,11 @@ public class UserManager {
     /**
      * Manages the role selection process for users with multiple roles.
      * 
-     * @param username The username of the logged-in user
+     * @param token The session token of the logged-in user
      * @param roles An array of roles assigned to the user
      * @throws SQLException if a database access error occurs
      */
-    private void chooseRoleFlow(String username, String[] roles) throws SQLException {
+    private void chooseRoleFlow(String token, String[] roles) throws SQLException {
         while (true) {
             System.out.println("-------------------------------------");
             System.out.println("Role Selection");
@@ -149,7 +182,9 @@ public class UserManager {
                 System.out.println("Returning to main menu.");
                 return;
             } else if (choice > 0 && choice <= roles.length) {
-                userSession(username, roles[choice - 1]);
+                if (!userSession(token, roles[choice - 1])) {
+                    return;
+                }
                 System.out.print("Do you want to switch to another role? (Y/N): ");
                 String switchRole = UserInterface.getInput("").trim().toUpperCase();
                 if (!switchRole.equals("Y")) {
@@ -164,24 +199,32 @@ public class UserManager {
     /**
      * Manages the user session based on the selected role.
      * 
-     * @param username The username of the logged-in user
+     * @param token The session token of the logged-in user
      * @param role The role selected by the user
+     * @return false if the session ended while in use, true if the user logged out
      * @throws SQLException if a database access error occurs
      */
-    private void userSession(String username, String role) throws SQLException {
+    private boolean userSession(String token, String role) throws SQLException {
+        // The menu offers what the selected role grants, not everything the user may do
+        long rolePermissions = Permission.forRole(role);
         String choice;
         do {
+            SessionManager.Session session = databaseHelper.getSessionManager().get(token);
+            if (session == null || (session.getPermissions() & rolePermissions) != rolePermissions) {
+                System.out.println("Your session has ended. Please log in again.");
+                return false;
+            }
             System.out.println("\n-------------------------------------");
             System.out.println(role.substring(0, 1).toUpperCase() + role.substring(1) + " Menu:");
             System.out.println("-------------------------------------");
-            if (role.equalsIgnoreCase("student")) {
-                System.out.println("1 - View Courses");
-                System.out.println("2 - Submit Assignment");
-            } else if (role.equalsIgnoreCase("instructor")) {
+            if (Permission.ACCESS_ADMIN_PANEL.isGrantedBy(rolePermissions)) {
+                System.out.println("1 - Access Admin Panel");
+            } else if (Permission.MANAGE_COURSES.isGrantedBy(rolePermissions)) {
                 System.out.println("1 - Manage Courses");
                 System.out.println("2 - Grade Assignments");
-            } else if (role.equalsIgnoreCase("admin")) {
-                System.out.println("1 - Access Admin Panel");
+            } else if (Permission.VIEW_COURSES.isGrantedBy(rolePermissions)) {
+                System.out.println("1 - View Courses");
+                System.out.println("2 - Submit Assignment");
             }
             System.out.println("Q - Logout");
             System.out.print("Enter your choice: ");
@@ -189,8 +232,8 @@ public class UserManager {
     
             switch (choice) {
                 case "1":
-                    if (role.equalsIgnoreCase("admin")) {
-                        new AdminManager(databaseHelper).adminFlow();
+                    if (Permission.ACCESS_ADMIN_PANEL.isGrantedBy(rolePermissions)) {
+                        new AdminManager(databaseHelper).adminFlow(token);
                     } else {
                         System.out.println("This feature is not implemented yet.");
                     }
@@ -205,5 +248,6 @@ public class UserManager {
                     System.out.println("Invalid choice. Please try again.");
             }
         } while (!choice.equals("Q"));
+        return true;
     }
 }
@@ -0,0 +1,129 @@
+package edu.asu.DatabasePart1;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/****
+ * <p> UserPage Class </p>
+ *
+ * <p> Description: One page of a user listing, ordered by username. The page carries an
+ * opaque cursor for the next page, which encodes the last username returned, so the
+ * next page starts with an index seek instead of skipping over earlier rows. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for paginated user listing
+ */
+
+class UserPage {
+    private final List<UserSummary> users;
+    private final String nextCursor;
+
+    /**
+     * Constructs a UserPage.
+     *
+     * @param users the users on this page
+     * @param nextCursor the cursor for the following page, or null if this is the last page
+     */
+    UserPage(List<UserSummary> users, String nextCursor) {
+        this.users = Collections.unmodifiableList(users);
+        this.nextCursor = nextCursor;
+    }
+
+    List<UserSummary> getUsers() {
+        return users;
+    }
+
+    /**
+     * @return the cursor to pass to {@link DatabaseHelper#listUsers} for the next page,
+     *         or null if there are no more users
+     */
+    String getNextCursor() {
+        return nextCursor;
+    }
+
+    boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Encodes the position after a username as a cursor token.
+     *
+     * @param lastUsername the last username on a page
+     * @return the cursor token
+     */
+    static String encodeCursor(String lastUsername) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastUsername.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor token back into the username it follows.
+     *
+     * @param cursor the cursor token
+     * @return the last username of the previous page
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    static String decodeCursor(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The listed details of one user.
+     */
+    static class UserSummary {
+        private final String username;
+        private final String email;
+        private final String firstName;
+        private final String middleName;
+        private final String lastName;
+        private final String preferredName;
+        private final String[] roles;
+        private final boolean profileComplete;
+
+        UserSummary(String username, String email, String firstName, String middleName, String lastName,
+                    String preferredName, String[] roles, boolean profileComplete) {
+            this.username = username;
+            this.email = email;
+            this.firstName = firstName;
+            this.middleName = middleName;
+            this.lastName = lastName;
+            this.preferredName = preferredName;
+            this.roles = roles;
+            this.profileComplete = profileComplete;
+        }
+
+        String getUsername() {
+            return username;
+        }
+
+        String getEmail() {
+            return email;
+        }
+
+        String getFirstName() {
+            return firstName;
+        }
+
+        String getMiddleName() {
+            return middleName;
+        }
+
+        String getLastName() {
+            return lastName;
+        }
+
+        String getPreferredName() {
+            return preferredName;
+        }
+
+        String[] getRoles() {
+            return roles.clone();
+        }
+
+        boolean isProfileComplete() {
+            return profileComplete;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package edu.asu.DatabasePart1;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/****
+ * <p> UsernameBloomFilter Class </p>
+ *
+ * <p> Description: An in-memory Bloom filter of every username in the database. A
+ * negative answer is definite, so lookups of usernames that do not exist (typos,
+ * credential-stuffing bots) can be answered without a query; a positive answer only
+ * means the database must be asked. New usernames are added as they are registered.
+ * Deleted usernames cannot be removed from a Bloom filter, so the filter is rebuilt
+ * from the database from time to time; names registered during a rebuild are added to
+ * both the old and the new filter, so none are ever missed. </p>
+ *
+ * @author Dhruv Bansal, Shreyas Bachiraju, Nirek Shah, Dhruv Shetty, Sonit Penchala
+ *
+ * @version 1.01 2026-10-17 Implementation for username Bloom filter
+ */
+
+class UsernameBloomFilter {
+
+    static final double DEFAULT_FALSE_POSITIVE_RATE = Double.parseDouble(
+            System.getProperty("cse360.bloom.falsePositiveRate", "0.01"));
+    static final int DEFAULT_MIN_CAPACITY = Integer.getInteger("cse360.bloom.minCapacity", 10_000);
+
+    /**
+     * Reads every username from the database when the filter is rebuilt.
+     */
+    interface Loader {
+        /**
+         * @return the current number of users, used to size the filter
+         */
+        int countUsernames() throws SQLException;
+
+        /**
+         * Passes every username to the sink.
+         */
+        void forEachUsername(Consumer<String> sink) throws SQLException;
+    }
+
+    private final Loader loader;
+    private final double falsePositiveRate;
+    private final int minCapacity;
+
+    private volatile Bits bits;
+    private volatile Bits rebuilding;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    /**
+     * Creates an empty filter with the default false-positive rate and capacity. Call
+     * {@link #rebuild()} to load it; until then every username is reported as possibly present.
+     *
+     * @param loader the source of usernames for rebuilds
+     */
+    UsernameBloomFilter(Loader loader) {
+        this(loader, DEFAULT_FALSE_POSITIVE_RATE, DEFAULT_MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an empty filter.
+     *
+     * @param loader the source of usernames for rebuilds
+     * @param falsePositiveRate the target false-positive rate once loaded
+     * @param minCapacity the smallest number of usernames the filter is sized for
+     */
+    UsernameBloomFilter(Loader loader, double falsePositiveRate, int minCapacity) {
+        this.loader = loader;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minCapacity = minCapacity;
+    }
+
+    /**
+     * Checks whether a username may exist.
+     *
+     * @param username the username to check
+     * @return false if the username is definitely not in the database, true if it may be
+     */
+    boolean mightContain(String username) {
+        Bits current = bits;
+        if (current == null || username == null) {
+            return true; // Not loaded yet
+        }
+        checks.increment();
+        if (current.mightContain(hash(username))) {
+            return true;
+        }
+        definiteMisses.increment();
+        return false;
+    }
+
+    /**
+     * Adds a username, e.g. when a user is registered.
+     *
+     * @param username the username to add
+     */
+    void put(String username) {
+        long hash = hash(username);
+        // Read the rebuild target first: if it is already gone, the swap has happened and bits is the new filter
+        Bits next = rebuilding;
+        Bits current = bits;
+        if (next != null) {
+            next.put(hash);
+        }
+        if (current != null) {
+            current.put(hash);
+        }
+    }
+
+    /**
+     * Records that the filter said a username might exist but the database did not have it.
+     */
+    void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    /**
+     * Builds a fresh filter from the database and swaps it in, shedding deleted usernames
+     * and resizing for the current number of users.
+     *
+     * @throws SQLException if the usernames cannot be read
+     */
+    synchronized void rebuild() throws SQLException {
+        Bits next = new Bits(Math.max(minCapacity, loader.countUsernames() * 2), falsePositiveRate);
+        rebuilding = next; // From here on, registrations also go into the new filter
+        try {
+            loader.forEachUsername(username -> next.put(hash(username)));
+            bits = next;
+            rebuilds.increment();
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    /**
+     * @return the fraction of checked usernames that were not in the database but passed the
+     *         filter, including deleted usernames not yet shed by a rebuild
+     */
+    double getObservedFalsePositiveRate() {
+        long fp = falsePositives.sum();
+        long negatives = fp + definiteMisses.sum();
+        return negatives == 0 ? 0.0 : (double) fp / negatives;
+    }
+
+    /**
+     * @return the false-positive rate predicted from how many bits are set
+     */
+    double getExpectedFalsePositiveRate() {
+        Bits current = bits;
+        return current == null ? 1.0 : current.expectedFalsePositiveRate();
+    }
+
+    /**
+     * @return the memory used by the filter's bit array, in bytes
+     */
+    long getMemoryBytes() {
+        Bits current = bits;
+        return current == null ? 0 : current.words.length() * 8L;
+    }
+
+    long getChecks() {
+        return checks.sum();
+    }
+
+    long getDefiniteMisses() {
+        return definiteMisses.sum();
+    }
+
+    long getFalsePositives() {
+        return falsePositives.sum();
+    }
+
+    long getRebuilds() {
+        return rebuilds.sum();
+    }
+
+    @Override
+    public String toString() {
+        Bits current = bits;
+        return String.format("UsernameBloomFilter[bits=%d, hashes=%d, memory=%.1f KB, checks=%d, definiteMisses=%d, "
+                        + "falsePositives=%d, observedFpp=%.4f, expectedFpp=%.4f, rebuilds=%d]",
+                current == null ? 0 : current.bitCount, current == null ? 0 : current.hashCount,
+                getMemoryBytes() / 1024.0, getChecks(), getDefiniteMisses(), getFalsePositives(),
+                getObservedFalsePositiveRate(), getExpectedFalsePositiveRate(), getRebuilds());
+    }
+
+    /**
+     * A 64-bit FNV-1a hash of the username, finished with the MurmurHash3 mixer so both
+     * halves are well distributed for double hashing.
+     */
+    static long hash(String username) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < username.length(); i++) {
+            h ^= username.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * The bit array, sized for a capacity and false-positive rate. Bits are set with
+     * atomic compare-and-set, so readers and writers never lock.
+     */
+    private static class Bits {
+        final AtomicLongArray words;
+        final long bitCount;
+        final int hashCount;
+
+        Bits(int capacity, double falsePositiveRate) {
+            long m = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.max(1, (m + 63) / 64);
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = wordCount * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        void put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = index(h1 + i * h2);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = words.get(word);
+                    if ((old & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, old, old | mask));
+            }
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = index(h1 + i * h2);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long index(int combined) {
+            return (combined & 0x7fffffffL) % bitCount;
+        }
+
+        double expectedFalsePositiveRate() {
+            long set = 0;
+            for (int i = 0; i < words.length(); i++) {
+                set += Long.bitCount(words.get(i));
+            }
+            return Math.pow((double) set / bitCount, hashCount);
+        }
+    }
+}